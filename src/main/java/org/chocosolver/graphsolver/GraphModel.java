@@ -38,6 +38,7 @@ import org.chocosolver.solver.search.strategy.strategy.AbstractStrategy;
 import org.chocosolver.solver.variables.Variable;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 
 /**
  * An extension of Model that handles graph variables
@@ -62,7 +63,10 @@ public class GraphModel extends Model implements IGraphVarFactory, IGraphConstra
 			public AbstractStrategy makeDefaultSearch(Model model) {
 				// overrides default search strategy to handle graph vars
 				AbstractStrategy other = Search.defaultSearch(model);
-				GraphVar[] gvs = retrieveGraphVars();
+				// views are instantiated with the variables they observe
+				GraphVar[] gvs = Arrays.stream(retrieveGraphVars())
+						.filter(g -> (g.getTypeAndKind() & Variable.TYPE) != Variable.VIEW)
+						.toArray(GraphVar[]::new);
 				if (gvs.length == 0) {
 					return other;
 				} else {
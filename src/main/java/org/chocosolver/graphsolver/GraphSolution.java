@@ -0,0 +1,141 @@
+/**
+ * Copyright (c) 1999-2011, Ecole des Mines de Nantes
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * <p>
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the Ecole des Mines de Nantes nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE REGENTS AND CONTRIBUTORS ``AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE REGENTS AND CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.chocosolver.graphsolver;
+
+import org.chocosolver.graphsolver.variables.GraphSnapshot;
+import org.chocosolver.graphsolver.variables.GraphVar;
+import org.chocosolver.solver.Model;
+import org.chocosolver.solver.Solution;
+import org.chocosolver.solver.exception.ContradictionException;
+import org.chocosolver.solver.exception.SolverException;
+import org.chocosolver.solver.variables.Variable;
+
+import java.util.ArrayList;
+
+/**
+ * A solution which also stores the value of graph variables.
+ * Each graph value is stored as a {@link GraphSnapshot}, whose memory is proportional to the size of the graph,
+ * and whose arrays are reused from one recording to another.
+ * <p>
+ * As in {@link Solution}, when no variable is specified, the variables to store are resolved
+ * upon the first call to <code>record()</code>, so that graph variables created after this object are stored.
+ *
+ * @see Solution
+ */
+public class GraphSolution extends Solution {
+
+	//***********************************************************************************
+	// VARIABLES
+	//***********************************************************************************
+
+	private final Model model;
+	private final Variable[] varsToStore;
+	private GraphVar[] graphVars;
+	private GraphSnapshot[] values;
+	private boolean empty;
+
+	//***********************************************************************************
+	// CONSTRUCTORS
+	//***********************************************************************************
+
+	/**
+	 * Create an empty solution object
+	 * able to store the value of each variable in <code>varsToStore</code> when calling <code>record()</code>
+	 *
+	 * Stores all variables by default, when <code>varsToStore</code> is empty
+	 *
+	 * @param model       model of the solution
+	 * @param varsToStore variables to store in this object
+	 */
+	public GraphSolution(Model model, Variable... varsToStore) {
+		super(model, varsToStore);
+		this.model = model;
+		this.varsToStore = varsToStore;
+		empty = true;
+	}
+
+	//***********************************************************************************
+	// METHODS
+	//***********************************************************************************
+
+	@Override
+	public GraphSolution record() {
+		super.record();
+		if (graphVars == null) {
+			retrieveGraphVars();
+		}
+		for (int i = 0; i < graphVars.length; i++) {
+			values[i].record(graphVars[i]);
+		}
+		empty = false;
+		return this;
+	}
+
+	private void retrieveGraphVars() {
+		ArrayList<GraphVar> gvars = new ArrayList<>();
+		for (Variable v : varsToStore.length == 0 ? model.getVars() : varsToStore) {
+			if ((v.getTypeAndKind() & Variable.KIND) == GraphVar.GRAPH) {
+				gvars.add((GraphVar) v);
+			}
+		}
+		graphVars = gvars.toArray(new GraphVar[gvars.size()]);
+		values = new GraphSnapshot[graphVars.length];
+		for (int i = 0; i < graphVars.length; i++) {
+			values[i] = new GraphSnapshot(graphVars[i].getNbMaxNodes());
+		}
+	}
+
+	/**
+	 * Get the value of graph variable g in this solution.
+	 *
+	 * @param g a graph variable
+	 * @return the value of g in this solution (should not be modified)
+	 * @exception SolverException if g is not stored by this object or if no solution has been recorded yet
+	 */
+	public GraphSnapshot getGraphVal(GraphVar g) {
+		if (empty) {
+			throw new SolverException("Cannot access value of " + g.getName() + ": No solution has been recorded yet (empty solution). Make sure this.record() has been called.");
+		}
+		for (int i = 0; i < graphVars.length; i++) {
+			if (graphVars[i] == g) {
+				return values[i];
+			}
+		}
+		throw new SolverException("Cannot access value of " + g.getName() + ": variable not stored in this solution.");
+	}
+
+	@Override
+	public void restore() throws ContradictionException {
+		if (!empty) {
+			for (int i = 0; i < graphVars.length; i++) {
+				graphVars[i].instantiateTo(values[i], this);
+			}
+		}
+		super.restore();
+	}
+}
@@ -34,14 +34,19 @@ import org.chocosolver.graphsolver.cstrs.channeling.nodes.PropNodeBoolsChannel;
 import org.chocosolver.graphsolver.cstrs.channeling.nodes.PropNodeSetChannel;
 import org.chocosolver.graphsolver.cstrs.connectivity.PropBiconnected;
 import org.chocosolver.graphsolver.cstrs.connectivity.PropConnected;
+import org.chocosolver.graphsolver.cstrs.connectivity.PropKEdgeConnected;
 import org.chocosolver.graphsolver.cstrs.connectivity.PropNbCC;
 import org.chocosolver.graphsolver.cstrs.connectivity.PropNbSCC;
 import org.chocosolver.graphsolver.cstrs.connectivity.PropSizeMinCC;
 import org.chocosolver.graphsolver.cstrs.connectivity.PropSizeMaxCC;
+import org.chocosolver.graphsolver.cstrs.connectivity.PropStronglyConnected;
+import org.chocosolver.graphsolver.cstrs.cost.IArcCost;
 import org.chocosolver.graphsolver.cstrs.cost.trees.PropMaxDegVarTree;
 import org.chocosolver.graphsolver.cstrs.cost.trees.PropTreeCostSimple;
 import org.chocosolver.graphsolver.cstrs.cost.trees.lagrangian.PropGenericLagrDCMST;
+import org.chocosolver.graphsolver.cstrs.cost.tsp.PropCircuitCostAssignment;
 import org.chocosolver.graphsolver.cstrs.cost.tsp.PropCycleCostSimple;
+import org.chocosolver.graphsolver.cstrs.cost.tsp.lagrangian.PropLagrOneArborescence;
 import org.chocosolver.graphsolver.cstrs.cost.tsp.lagrangian.PropLagrOneTree;
 import org.chocosolver.graphsolver.cstrs.cycles.*;
 import org.chocosolver.graphsolver.cstrs.degree.*;
@@ -711,14 +716,40 @@ public interface IGraphConstraintFactory {
 		);
 	}
 
-	@Deprecated
+	/**
+	 * g must form a circuit going through every vertex in [0,n-1]
+	 *
+	 * @param g a directed graph variable
+	 * @return a hamiltonian circuit constraint
+	 */
 	default Constraint hamiltonianCircuit(DirectedGraphVar g) {
-		throw new SolverException("Use circuit constraint over IntVar[] instead");
+		return new Constraint("hamiltonianCircuit",
+				new PropNbNodes(g, g.getModel().intVar(g.getNbMaxNodes())),
+				new PropNodeDegreeAtLeastIncr(g, Orientation.SUCCESSORS, 1),
+				new PropNodeDegreeAtMostIncr(g, Orientation.SUCCESSORS, 1),
+				new PropNodeDegreeAtLeastIncr(g, Orientation.PREDECESSORS, 1),
+				new PropNodeDegreeAtMostIncr(g, Orientation.PREDECESSORS, 1),
+				new PropCircuit(g),
+				new PropStronglyConnected(g)
+		);
 	}
 
-	@Deprecated
+	/**
+	 * g must form a circuit (its vertices are not fixed, so that it is a subcircuit of the upper bound)
+	 * No channeling with integer variables is required
+	 *
+	 * @param g a directed graph variable
+	 * @return a circuit constraint
+	 */
 	default Constraint circuit(DirectedGraphVar g) {
-		throw new SolverException("Use subcircuit constraint over IntVar[] instead");
+		return new Constraint("circuit",
+				new PropNodeDegreeAtLeastIncr(g, Orientation.SUCCESSORS, 1),
+				new PropNodeDegreeAtMostIncr(g, Orientation.SUCCESSORS, 1),
+				new PropNodeDegreeAtLeastIncr(g, Orientation.PREDECESSORS, 1),
+				new PropNodeDegreeAtMostIncr(g, Orientation.PREDECESSORS, 1),
+				new PropCircuit(g),
+				new PropStronglyConnected(g)
+		);
 	}
 
 	/**
@@ -730,7 +761,7 @@ public interface IGraphConstraintFactory {
 	 * @return A cycle elimination constraint
 	 */
 	default Constraint noCycle(UndirectedGraphVar g) {
-		return new Constraint("noCycle", new PropACyclic(g));
+		return new Constraint("noCycle", new PropUndirectedACyclic(g));
 	}
 
 	/**
@@ -743,7 +774,7 @@ public interface IGraphConstraintFactory {
 	 * @return A circuit elimination constraint
 	 */
 	default Constraint noCircuit(DirectedGraphVar g) {
-		return new Constraint("noCircuit", new PropACyclic(g));
+		return new Constraint("noCircuit", new PropDirectedACyclic(g));
 	}
 
 
@@ -769,6 +800,21 @@ public interface IGraphConstraintFactory {
 		return new Constraint("connected", new PropConnected(g));
 	}
 
+	/**
+	 * Creates a connectedness constraint which ensures that g is connected and has nbNodes nodes
+	 *
+	 * In addition to connected(g), distances from mandatory nodes are used to compute a Steiner tree lower bound
+	 * of nbNodes and to remove nodes that are too far from mandatory nodes with respect to the upper bound of nbNodes.
+	 * This is worth it when there are few mandatory nodes among many potential ones.
+	 *
+	 * @param g       an undirected graph variable
+	 * @param nbNodes an integer variable indicating the number of nodes of g
+	 * @return A connectedness constraint which ensures that g is connected and has nbNodes nodes
+	 */
+	default Constraint connected(UndirectedGraphVar g, IntVar nbNodes) {
+		return new Constraint("connected", new PropNbNodes(g, nbNodes), new PropConnected(g, nbNodes));
+	}
+
 	/**
 	 * Creates a connectedness constraint which ensures that g is biconnected
 	 * Beware : should be used in addition to connected
@@ -780,6 +826,24 @@ public interface IGraphConstraintFactory {
 		return new Constraint("connected", new PropBiconnected(g));
 	}
 
+	/**
+	 * Creates a constraint which ensures that g is k-edge-connected,
+	 * i.e. that g remains connected after the removal of any k-1 edges
+	 * (nodes are linked by k edge-disjoint paths).
+	 * Filtering relies on max flows, capped at k, from a mandatory node to every other node of g.
+	 *
+	 * @param g an undirected graph variable
+	 * @param k minimum number of edges whose removal disconnects g
+	 * @return A constraint which ensures that g is k-edge-connected
+	 * @throws IllegalArgumentException if k is lower than 1
+	 */
+	default Constraint kEdgeConnected(UndirectedGraphVar g, int k) {
+		if (k < 1) {
+			throw new IllegalArgumentException("k should be at least 1 in kEdgeConnected, got " + k);
+		}
+		return new Constraint("kEdgeConnected", new PropKEdgeConnected(g, k));
+	}
+
 	/**
 	 * Creates a connectedness constraint which ensures that g has nb connected components
 	 *
@@ -833,12 +897,16 @@ public interface IGraphConstraintFactory {
 
 	/**
 	 * Creates a strong connectedness constraint which ensures that g has exactly one strongly connected component
+	 * Filtering enforces the dominators and arc-dominators of mandatory nodes, from and to a mandatory root
 	 *
 	 * @param g a directed graph variable
 	 * @return A strong connectedness constraint which ensures that g is strongly connected
 	 */
 	default Constraint stronglyConnected(DirectedGraphVar g) {
-		return nbStronglyConnectedComponents(g, g.getModel().intVar(1));
+		return new Constraint("StronglyConnected",
+				new PropNbSCC(g, g.getModel().intVar(1)),
+				new PropStronglyConnected(g)
+		);
 	}
 
 	/**
@@ -865,7 +933,7 @@ public interface IGraphConstraintFactory {
 	 * @return a tree constraint
 	 */
 	default Constraint tree(UndirectedGraphVar g) {
-		return new Constraint("tree", new PropACyclic(g), new PropConnected(g));
+		return new Constraint("tree", new PropUndirectedACyclic(g), new PropConnected(g));
 	}
 
 	/**
@@ -875,7 +943,7 @@ public interface IGraphConstraintFactory {
 	 * @return a forest constraint
 	 */
 	default Constraint forest(UndirectedGraphVar g) {
-		return new Constraint("forest", new PropACyclic(g));
+		return new Constraint("forest", new PropUndirectedACyclic(g));
 	}
 
 	/**
@@ -1022,6 +1090,43 @@ public interface IGraphConstraintFactory {
 		return new Constraint("TSP", props);
 	}
 
+	/**
+	 * Constraint modeling the Asymmetric Traveling Salesman Problem
+	 * The cost is bounded by the assignment relaxation, whose reduced costs are used to filter arcs
+	 *
+	 * @param graphVar graph variable representing a Hamiltonian circuit
+	 * @param costVar  variable representing the cost of the circuit
+	 * @param arcCosts cost of each arc (see IArcCost.of to use a cost matrix)
+	 * @return an atsp constraint
+	 */
+	default Constraint tsp(DirectedGraphVar graphVar, IntVar costVar, IArcCost arcCosts) {
+		return tsp(graphVar, costVar, arcCosts, 0);
+	}
+
+	/**
+	 * Constraint modeling the Asymmetric Traveling Salesman Problem
+	 * The cost is bounded by the assignment relaxation, whose reduced costs are used to filter arcs
+	 *
+	 * @param graphVar graph variable representing a Hamiltonian circuit
+	 * @param costVar  variable representing the cost of the circuit
+	 * @param arcCosts cost of each arc (see IArcCost.of to use a cost matrix)
+	 * @param lagrMode use the Lagrangian relaxation of the atsp based on 1-arborescences
+	 *                 {0:no Lagrangian relaxation,
+	 *                 1:Lagrangian relaxation (since root node),
+	 *                 2:Lagrangian relaxation but wait a first solution before running it}
+	 * @return an atsp constraint
+	 */
+	default Constraint tsp(DirectedGraphVar graphVar, IntVar costVar, IArcCost arcCosts, int lagrMode) {
+		Propagator[] props = ArrayUtils.append(hamiltonianCircuit(graphVar).getPropagators(),
+				new Propagator[]{new PropCircuitCostAssignment(graphVar, costVar, arcCosts)});
+		if (lagrMode > 0) {
+			PropLagrOneArborescence hk = new PropLagrOneArborescence(graphVar, costVar, arcCosts);
+			hk.waitFirstSolution(lagrMode == 2);
+			props = ArrayUtils.append(props, new Propagator[]{hk});
+		}
+		return new Constraint("ATSP", props);
+	}
+
 	/**
 	 * Creates a degree-constrained minimum spanning tree constraint :
 	 * GRAPH is a spanning tree of cost COSTVAR and each vertex degree is constrained
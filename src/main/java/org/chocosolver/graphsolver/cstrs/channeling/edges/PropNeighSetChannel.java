@@ -30,6 +30,7 @@ package org.chocosolver.graphsolver.cstrs.channeling.edges;
 import org.chocosolver.graphsolver.variables.GraphEventType;
 import org.chocosolver.graphsolver.variables.GraphVar;
 import org.chocosolver.graphsolver.variables.IncidentSet;
+import org.chocosolver.graphsolver.variables.delta.GraphDeltaMonitor;
 import org.chocosolver.solver.constraints.Propagator;
 import org.chocosolver.solver.constraints.PropagatorPriority;
 import org.chocosolver.solver.exception.ContradictionException;
@@ -39,6 +40,9 @@ import org.chocosolver.solver.variables.delta.ISetDeltaMonitor;
 import org.chocosolver.solver.variables.events.SetEventType;
 import org.chocosolver.util.ESat;
 import org.chocosolver.util.procedure.IntProcedure;
+import org.chocosolver.util.procedure.PairProcedure;
+
+import java.util.BitSet;
 
 /**
  * @author Jean-Guillaume Fages
@@ -54,7 +58,9 @@ public class PropNeighSetChannel extends Propagator<Variable> {
 	private int vertex;
 	private IncidentSet inc;
 	private ISetDeltaMonitor sdm;
+	private GraphDeltaMonitor gdm;
 	private IntProcedure forceS, remS;
+	private PairProcedure forceG, remG;
 
 	//***********************************************************************************
 	// CONSTRUCTORS
@@ -69,6 +75,11 @@ public class PropNeighSetChannel extends Propagator<Variable> {
 		sdm = set.monitorDelta(this);
 		forceS = element -> inc.enforce(g, vertex, element, this);
 		remS = element -> inc.remove(g, vertex, element, this);
+		BitSet watched = new BitSet(g.getNbMaxNodes());
+		watched.set(vertex);
+		gdm = g.monitorDelta(this, watched);
+		forceG = (x, y) -> forceIfMandatory(x == vertex ? y : x);
+		remG = (x, y) -> removeIfNotPotential(x == vertex ? y : x);
 	}
 
 	//***********************************************************************************
@@ -101,6 +112,7 @@ public class PropNeighSetChannel extends Propagator<Variable> {
 			}
 		}
 		sdm.unfreeze();
+		gdm.unfreeze();
 	}
 
 	@Override
@@ -111,13 +123,24 @@ public class PropNeighSetChannel extends Propagator<Variable> {
 			sdm.forEach(remS, SetEventType.REMOVE_FROM_ENVELOPE);
 			sdm.unfreeze();
 		} else {
-			for (int i : set.getUB()) {
-				if (!inc.getPotSet(g, vertex).contains(i)) {
-					set.remove(i, this);
-				} else if (inc.getMandSet(g, vertex).contains(i)) {
-					set.force(i, this);
-				}
-			}
+			gdm.freeze();
+			gdm.forEachArc(forceG, GraphEventType.ADD_ARC);
+			gdm.forEachArc(remG, GraphEventType.REMOVE_ARC);
+			gdm.unfreeze();
+		}
+	}
+
+	// the arc may not be incident to vertex w.r.t. inc (e.g. a predecessor for a successor set)
+	// so the corresponding incident set is checked
+	private void forceIfMandatory(int i) throws ContradictionException {
+		if (inc.getMandSet(g, vertex).contains(i)) {
+			set.force(i, this);
+		}
+	}
+
+	private void removeIfNotPotential(int i) throws ContradictionException {
+		if (!inc.getPotSet(g, vertex).contains(i)) {
+			set.remove(i, this);
 		}
 	}
 
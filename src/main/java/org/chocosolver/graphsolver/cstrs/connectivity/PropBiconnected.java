@@ -24,20 +24,44 @@
  * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
  * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
-
 package org.chocosolver.graphsolver.cstrs.connectivity;
 
-import org.chocosolver.graphsolver.util.UGVarConnectivityHelper;
 import org.chocosolver.graphsolver.variables.GraphEventType;
 import org.chocosolver.graphsolver.variables.UndirectedGraphVar;
+import org.chocosolver.graphsolver.variables.delta.GraphDeltaMonitor;
+import org.chocosolver.memory.IStateInt;
 import org.chocosolver.solver.constraints.Propagator;
 import org.chocosolver.solver.constraints.PropagatorPriority;
 import org.chocosolver.solver.exception.ContradictionException;
+import org.chocosolver.solver.variables.events.PropagatorEventType;
 import org.chocosolver.util.ESat;
+import org.chocosolver.util.objects.setDataStructures.ISet;
+import org.chocosolver.util.objects.setDataStructures.ISetIterator;
+import org.chocosolver.util.procedure.IntProcedure;
+import org.chocosolver.util.procedure.PairProcedure;
+
+import java.util.Arrays;
+import java.util.BitSet;
 
 
 /**
  * Propagator for enforcing a graph variable to be bi-connected
+ * <p/>
+ * The final graph is included in a single block (biconnected component) of the upper bound, so
+ * - it fails if mandatory nodes are not connected or do not belong to a common block,
+ * - it removes every node which is not in the block containing all mandatory nodes,
+ * - as soon as the final graph has at least three nodes (three mandatory nodes, or two non adjacent ones),
+ * every mandatory node needs two neighbors:
+ * it fails if a mandatory node has less than two potential neighbors and enforces the edges
+ * of mandatory nodes having exactly two potential neighbors,
+ * - in such a case, removing any mandatory node a leaves the final graph connected, so
+ * articulation points and bridges of the upper bound minus a which separate mandatory nodes are enforced
+ * (e.g. two node-disjoint chains which are the only paths between two mandatory nodes).
+ * This rule runs one search per mandatory node (O(|M|.(n+m))) and only when blocks are computed again.
+ * <p/>
+ * Blocks are computed by an iterative Hopcroft-Tarjan search. When the upper bound is biconnected,
+ * the DFS tree, plus one back edge per node, is stored (trailed) as a witness:
+ * the search is performed again only when a removed node or edge belongs to the witness.
  *
  * @author Jean-Guillaume Fages
  */
@@ -48,16 +72,58 @@ public class PropBiconnected extends Propagator<UndirectedGraphVar> {
 	//***********************************************************************************
 
 	private final UndirectedGraphVar g;
-	private final UGVarConnectivityHelper helper;
+	private final int n;
+	// witness of the biconnectivity of the upper bound: tree parent (-1 if none) and back edge (-1 if none) of each node
+	private final IStateInt hasWitness;
+	private final IStateInt[] witnessParent, witnessBack;
+	private final GraphDeltaMonitor gdm;
+	private final PairProcedure arcRemoved;
+	private final IntProcedure nodeRemoved;
+	private boolean witnessBroken;
+	// depth first search
+	private final int[] parent, back, time, low, stack, nodeStack, stamp;
+	private int epoch;
+	private final ISetIterator[] cursors;
+	private int nbBlocks, nbMandReached;
+	private final BitSet inBlock, toCheck;
+	// separators of the upper bound minus a mandatory node
+	private final int[] mandBelow, sources, bridgeFrom, bridgeTo;
+	private int nbBridges;
+	private final BitSet separators;
 
 	//***********************************************************************************
 	// CONSTRUCTORS
 	//***********************************************************************************
 
 	public PropBiconnected(UndirectedGraphVar graph) {
-		super(new UndirectedGraphVar[]{graph}, PropagatorPriority.LINEAR, false);
+		super(new UndirectedGraphVar[]{graph}, PropagatorPriority.LINEAR, true);
 		this.g = graph;
-		helper = new UGVarConnectivityHelper(g);
+		this.n = g.getNbMaxNodes();
+		hasWitness = g.getEnvironment().makeInt(0);
+		witnessParent = new IStateInt[n];
+		witnessBack = new IStateInt[n];
+		for (int i = 0; i < n; i++) {
+			witnessParent[i] = g.getEnvironment().makeInt(-1);
+			witnessBack[i] = g.getEnvironment().makeInt(-1);
+		}
+		gdm = g.monitorDelta(this);
+		arcRemoved = (i, j) -> witnessBroken |= isWitnessEdge(i, j);
+		nodeRemoved = i -> witnessBroken |= witnessParent[i].get() != -1;
+		parent = new int[n];
+		back = new int[n];
+		time = new int[n];
+		low = new int[n];
+		stack = new int[n];
+		nodeStack = new int[n];
+		stamp = new int[n];
+		cursors = new ISetIterator[n];
+		inBlock = new BitSet(n);
+		toCheck = new BitSet(n);
+		mandBelow = new int[n];
+		sources = new int[n];
+		bridgeFrom = new int[n];
+		bridgeTo = new int[n];
+		separators = new BitSet(n);
 	}
 
 	//***********************************************************************************
@@ -66,11 +132,290 @@ public class PropBiconnected extends Propagator<UndirectedGraphVar> {
 
 	@Override
 	public void propagate(int evtmask) throws ContradictionException {
-		if (g.getPotentialNodes().size() == g.getMandatoryNodes().size() && !helper.isBiconnected()) {
-			fails();
+		if (PropagatorEventType.isFullPropagation(evtmask)) {
+			gdm.unfreeze();
+		}
+		ISet mNodes = g.getMandatoryNodes();
+		if (mNodes.isEmpty()) {
+			hasWitness.set(0);
+			return;
+		}
+		int root = mNodes.min();
+		findBlocks(root);
+		if (nbMandReached < mNodes.size()) {
+			fails(); // mandatory nodes are not connected
+		}
+		if (mNodes.size() >= 2) {
+			if (inBlock.isEmpty()) {
+				fails(); // no block contains every mandatory node
+			}
+			inBlock.flip(0, n);
+			if (g.removeNodes(inBlock, this)) {
+				findBlocks(root);
+			}
+		}
+		storeWitness();
+		filterSeparators();
+		filterDegrees();
+	}
+
+	@Override
+	public void propagate(int idxVarInProp, int mask) throws ContradictionException {
+		witnessBroken = hasWitness.get() == 0;
+		gdm.freeze();
+		if (!witnessBroken) {
+			gdm.forEachArc(arcRemoved, GraphEventType.REMOVE_ARC);
+			gdm.forEachNode(nodeRemoved, GraphEventType.REMOVE_NODE);
+		}
+		gdm.unfreeze();
+		if (witnessBroken) {
+			// blocks of the upper bound may have changed
+			forcePropagate(PropagatorEventType.CUSTOM_PROPAGATION);
+		} else {
+			// the upper bound is still biconnected
+			filterDegrees();
+		}
+	}
+
+	/**
+	 * @return true iff the final graph has at least three nodes, i.e. there are three mandatory nodes
+	 * or two mandatory nodes which cannot be adjacent
+	 */
+	private boolean hasThreeNodes() {
+		ISet mNodes = g.getMandatoryNodes();
+		if (mNodes.size() != 2) {
+			return mNodes.size() > 2;
+		}
+		int a = mNodes.min();
+		return !g.getPotNeighOf(a).contains(mNodes.max());
+	}
+
+	/**
+	 * Every node of a biconnected graph having at least three nodes has at least two neighbors
+	 */
+	private void filterDegrees() throws ContradictionException {
+		ISet mNodes = g.getMandatoryNodes();
+		if (!hasThreeNodes()) {
+			return;
+		}
+		toCheck.clear();
+		ISetIterator iter = mNodes.iterator();
+		while (iter.hasNext()) {
+			toCheck.set(iter.nextInt());
+		}
+		for (int i = toCheck.nextSetBit(0); i >= 0; i = toCheck.nextSetBit(0)) {
+			toCheck.clear(i);
+			ISet nei = g.getPotNeighOf(i);
+			int degree = nei.contains(i) ? nei.size() - 1 : nei.size();
+			if (degree < 2) {
+				fails();
+			}
+			if (degree == 2) {
+				ISetIterator neiIter = nei.iterator();
+				while (neiIter.hasNext()) {
+					int j = neiIter.nextInt();
+					if (j != i) {
+						if (!mNodes.contains(j)) {
+							toCheck.set(j);
+						}
+						g.enforceArc(i, j, this);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * A biconnected graph having at least three nodes remains connected when removing any node a:
+	 * for every mandatory node a, enforces articulation points and bridges of the upper bound minus a
+	 * which separate mandatory nodes
+	 */
+	private void filterSeparators() throws ContradictionException {
+		if (!hasThreeNodes()) {
+			return;
+		}
+		ISet mNodes = g.getMandatoryNodes();
+		int nb = 0;
+		ISetIterator iter = mNodes.iterator();
+		while (iter.hasNext()) {
+			sources[nb++] = iter.nextInt();
+		}
+		for (int k = 0; k < nb; k++) {
+			findSeparators(sources[k], sources[k == 0 ? 1 : 0]);
+			for (int i = separators.nextSetBit(0); i >= 0; i = separators.nextSetBit(i + 1)) {
+				g.enforceNode(i, this);
+			}
+			for (int e = 0; e < nbBridges; e++) {
+				g.enforceArc(bridgeFrom[e], bridgeTo[e], this);
+			}
+		}
+	}
+
+	/**
+	 * Iterative depth first search of the upper bound minus a, from root.
+	 * Stores in separators the articulation points separating mandatory nodes
+	 * and in bridgeFrom/bridgeTo the bridges separating mandatory nodes.
+	 *
+	 * @param a    excluded mandatory node
+	 * @param root another mandatory node
+	 */
+	private void findSeparators(int a, int root) {
+		newEpoch();
+		ISet mNodes = g.getMandatoryNodes();
+		int nbMand = mNodes.size() - 1;
+		separators.clear();
+		nbBridges = 0;
+		stamp[a] = epoch; // a is never visited
+		int timer = 0;
+		visit(root, root, timer);
+		mandBelow[root] = 1;
+		int size = 0;
+		stack[size++] = root;
+		while (size > 0) {
+			int i = stack[size - 1];
+			if (cursors[i].hasNext()) {
+				int j = cursors[i].nextInt();
+				if (stamp[j] != epoch) {
+					visit(j, i, ++timer);
+					mandBelow[j] = mNodes.contains(j) ? 1 : 0;
+					stack[size++] = j;
+				} else if (j != a && j != parent[i]) {
+					low[i] = Math.min(low[i], time[j]);
+				}
+			} else if (--size > 0) {
+				int p = stack[size - 1];
+				low[p] = Math.min(low[p], low[i]);
+				mandBelow[p] += mandBelow[i];
+				if (mandBelow[i] > 0) {
+					// mandatory nodes outside of the subtree of i, p excluded
+					int nbOutside = nbMand - mandBelow[i] - (mNodes.contains(p) ? 1 : 0);
+					if (low[i] >= time[p] && nbOutside > 0) {
+						separators.set(p);
+					}
+					if (low[i] > time[p] && nbMand > mandBelow[i]) {
+						bridgeFrom[nbBridges] = p;
+						bridgeTo[nbBridges++] = i;
+					}
+				}
+			}
 		}
 	}
 
+	//***********************************************************************************
+	// BLOCKS
+	//***********************************************************************************
+
+	/**
+	 * Iterative Hopcroft-Tarjan search of the blocks of the connected component of root in the upper bound.
+	 * Computes nbBlocks, nbMandReached and the nodes of the block containing every mandatory node (if any, and
+	 * if there are at least two mandatory nodes) in inBlock.
+	 *
+	 * @param root a mandatory node
+	 */
+	private void findBlocks(int root) {
+		newEpoch();
+		ISet mNodes = g.getMandatoryNodes();
+		int nbMand = mNodes.size();
+		inBlock.clear();
+		nbBlocks = 0;
+		nbMandReached = 1;
+		int timer = 0;
+		visit(root, root, timer);
+		int size = 0;
+		int nodeSize = 0;
+		stack[size++] = root;
+		nodeStack[nodeSize++] = root;
+		while (size > 0) {
+			int i = stack[size - 1];
+			if (cursors[i].hasNext()) {
+				int j = cursors[i].nextInt();
+				if (stamp[j] != epoch) {
+					visit(j, i, ++timer);
+					stack[size++] = j;
+					nodeStack[nodeSize++] = j;
+					if (mNodes.contains(j)) {
+						nbMandReached++;
+					}
+				} else if (j != parent[i] && j != i && time[j] < time[i]) {
+					// back edge to an ancestor
+					if (back[i] == -1 || time[j] < time[back[i]]) {
+						back[i] = j;
+					}
+					low[i] = Math.min(low[i], time[j]);
+				}
+			} else if (--size > 0) {
+				int p = stack[size - 1];
+				low[p] = Math.min(low[p], low[i]);
+				if (low[i] >= time[p]) {
+					// p separates the subtree of i: pop its block
+					nbBlocks++;
+					int nbMandInBlock = mNodes.contains(p) ? 1 : 0;
+					int first = nodeSize;
+					int y;
+					do {
+						y = nodeStack[--nodeSize];
+						if (mNodes.contains(y)) {
+							nbMandInBlock++;
+						}
+					} while (y != i);
+					if (nbMand >= 2 && nbMandInBlock == nbMand) {
+						inBlock.set(p);
+						for (int k = nodeSize; k < first; k++) {
+							inBlock.set(nodeStack[k]);
+						}
+					}
+				}
+			}
+		}
+	}
+
+	private void newEpoch() {
+		if (++epoch == Integer.MAX_VALUE) {
+			Arrays.fill(stamp, 0);
+			epoch = 1;
+		}
+	}
+
+	private void visit(int i, int p, int t) {
+		stamp[i] = epoch;
+		parent[i] = p;
+		back[i] = -1;
+		time[i] = low[i] = t;
+		if (cursors[i] == null) {
+			cursors[i] = g.getPotNeighOf(i).newIterator();
+		}
+		cursors[i].reset();
+	}
+
+	/**
+	 * Stores the last DFS as a witness if the upper bound is biconnected, i.e. if the search has reached every
+	 * potential node and found at most one block
+	 */
+	private void storeWitness() {
+		int nbReached = 0;
+		ISetIterator iter = g.getPotentialNodes().iterator();
+		while (iter.hasNext()) {
+			if (stamp[iter.nextInt()] == epoch) {
+				nbReached++;
+			}
+		}
+		if (nbBlocks <= 1 && nbReached == g.getPotentialNodes().size()) {
+			hasWitness.set(1);
+			for (int i = 0; i < n; i++) {
+				boolean reached = stamp[i] == epoch;
+				witnessParent[i].set(reached ? parent[i] : -1);
+				witnessBack[i].set(reached ? back[i] : -1);
+			}
+		} else {
+			hasWitness.set(0);
+		}
+	}
+
+	private boolean isWitnessEdge(int i, int j) {
+		return witnessParent[i].get() == j || witnessParent[j].get() == i
+				|| witnessBack[i].get() == j || witnessBack[j].get() == i;
+	}
+
 	//***********************************************************************************
 	// INFO
 	//***********************************************************************************
@@ -82,12 +427,22 @@ public class PropBiconnected extends Propagator<UndirectedGraphVar> {
 
 	@Override
 	public ESat isEntailed() {
-		if (g.getPotentialNodes().size() == g.getMandatoryNodes().size()) {
+		ISet mNodes = g.getMandatoryNodes();
+		if (mNodes.isEmpty()) {
 			return ESat.UNDEFINED;
 		}
-		if (!helper.isBiconnected()) {
+		findBlocks(mNodes.min());
+		if (nbMandReached < mNodes.size() || (mNodes.size() >= 2 && inBlock.isEmpty())) {
 			return ESat.FALSE;
 		}
+		if (hasThreeNodes()) {
+			for (int i : mNodes) {
+				ISet nei = g.getPotNeighOf(i);
+				if ((nei.contains(i) ? nei.size() - 1 : nei.size()) < 2) {
+					return ESat.FALSE;
+				}
+			}
+		}
 		if (g.isInstantiated()) {
 			return ESat.TRUE;
 		}
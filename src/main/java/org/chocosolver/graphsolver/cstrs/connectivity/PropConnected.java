@@ -31,43 +31,123 @@ import gnu.trove.list.array.TIntArrayList;
 import org.chocosolver.graphsolver.util.UGVarConnectivityHelper;
 import org.chocosolver.graphsolver.variables.GraphEventType;
 import org.chocosolver.graphsolver.variables.UndirectedGraphVar;
+import org.chocosolver.graphsolver.variables.delta.GraphDeltaMonitor;
+import org.chocosolver.memory.IStateBitSet;
+import org.chocosolver.memory.IStateInt;
 import org.chocosolver.solver.constraints.Propagator;
 import org.chocosolver.solver.constraints.PropagatorPriority;
 import org.chocosolver.solver.exception.ContradictionException;
+import org.chocosolver.solver.variables.IntVar;
+import org.chocosolver.solver.variables.Variable;
+import org.chocosolver.solver.variables.events.IntEventType;
 import org.chocosolver.util.ESat;
 import org.chocosolver.util.objects.setDataStructures.ISet;
+import org.chocosolver.util.objects.setDataStructures.ISetIterator;
+import org.chocosolver.util.procedure.PairProcedure;
 
+import java.util.Arrays;
 import java.util.BitSet;
 
 /**
  * Propagator checking that the graph is connected
  * (Allows graphs with 0 or 1 nodes)
- * Complete Filtering
+ * <p>
+ * A backtrackable spanning tree of the upper bound, rooted at a mandatory node, is maintained as a witness.
+ * Removing an edge which is not in the tree costs O(1). When a tree edge is removed,
+ * the detached node is reattached to a neighbor which is still connected to the root if possible,
+ * otherwise the graph is fully explored again (nodes that cannot be reached are removed).
+ * Articulation points and bridges linking mandatory nodes are enforced (in O(n+m))
+ * when the graph is fully explored, when new nodes become mandatory and when a removed edge
+ * lay on a simple path between two mandatory nodes. Such paths only disappear as long as no node becomes mandatory,
+ * so the nodes lying on them (the hull) are stored (trailed) at each enforcement
+ * and any other edge removal costs O(1).
+ * <p>
+ * Optionally, given an integer variable nbNodes which is the number of nodes of the graph,
+ * distances (in number of edges) from mandatory nodes are used to
+ * - raise the lower bound of nbNodes with a Steiner tree lower bound over mandatory nodes
+ * (half the minimum spanning tree of the distance network, computed from Voronoi regions as in Mehlhorn's algorithm),
+ * - remove nodes v such that a tree spanning v and two mandatory nodes a and b would have more than
+ * nbNodes.getUB() nodes, i.e. (d(a,v) + d(b,v) + d(a,b)) / 2 + 1 > nbNodes.getUB(),
+ * where a is the first mandatory node and b is the mandatory node farthest from a.
+ * This mode runs three breadth-first searches and sorts the edges between Voronoi regions (O(m.log(m))),
+ * at most twice per call.
  *
  * @author Jean-Guillaume Fages
  */
-public class PropConnected extends Propagator<UndirectedGraphVar> {
+public class PropConnected extends Propagator<Variable> {
 
 
 	//***********************************************************************************
 	// VARIABLES
 	//***********************************************************************************
 
+	// maximum number of passes of the distance based filtering per call
+	private static final int MAX_DISTANCE_PASSES = 2;
 	private final int n;
 	private final UndirectedGraphVar g;
 	private final BitSet visited;
 	private final UGVarConnectivityHelper helper;
+	private final GraphDeltaMonitor gdm;
+	private final PairProcedure arcRemoved;
+	// witness spanning tree: parent[root] = root and parent[i] = -1 if i is not in the tree
+	private final IStateInt root;
+	private final IStateInt[] parent;
+	// nodes whose edge to their parent has just been removed
+	private final int[] detached;
+	private int nbDetached;
+	// nodes lying on a simple path between two mandatory nodes, when articulation points were last enforced
+	private final IStateBitSet hull;
+	// true iff a removed edge lay on a simple path between two mandatory nodes
+	private boolean separatorsMayChange;
+	private final int[] fifo;
+	// distance based filtering (optional)
+	private final IntVar nbNodes;
+	private int[] distA, distB, distT, near, ufParent, candI, candJ;
+	private long[] candKeys;
+	private BitSet toRemove;
 
 	//***********************************************************************************
 	// CONSTRUCTORS
 	//***********************************************************************************
 
 	public PropConnected(UndirectedGraphVar graph) {
-		super(new UndirectedGraphVar[]{graph}, PropagatorPriority.LINEAR, false);
+		this(graph, null);
+	}
+
+	/**
+	 * Connectivity propagator, with an additional distance based filtering if nbNodes is not null
+	 *
+	 * @param graph   an undirected graph variable
+	 * @param nbNodes number of nodes of graph (can be null)
+	 */
+	public PropConnected(UndirectedGraphVar graph, IntVar nbNodes) {
+		super(nbNodes == null ? new Variable[]{graph} : new Variable[]{graph, nbNodes}, PropagatorPriority.LINEAR, true);
 		this.g = graph;
 		this.n = graph.getNbMaxNodes();
 		this.visited = new BitSet(n);
 		this.helper = new UGVarConnectivityHelper(g);
+		this.gdm = g.monitorDelta(this);
+		this.arcRemoved = this::onArcRemoved;
+		this.root = getModel().getEnvironment().makeInt(-1);
+		this.parent = new IStateInt[n];
+		for (int i = 0; i < n; i++) {
+			parent[i] = getModel().getEnvironment().makeInt(-1);
+		}
+		this.hull = getModel().getEnvironment().makeBitSet(n);
+		this.detached = new int[n];
+		this.fifo = new int[n];
+		this.nbNodes = nbNodes;
+		if (nbNodes != null) {
+			distA = new int[n];
+			distB = new int[n];
+			distT = new int[n];
+			near = new int[n];
+			ufParent = new int[n];
+			candI = new int[n];
+			candJ = new int[n];
+			candKeys = new long[n];
+			toRemove = new BitSet(n);
+		}
 	}
 
 	//***********************************************************************************
@@ -76,11 +156,51 @@ public class PropConnected extends Propagator<UndirectedGraphVar> {
 
 	@Override
 	public int getPropagationConditions(int vIdx) {
+		if (vIdx == 1) {
+			return IntEventType.boundAndInst();
+		}
 		return GraphEventType.REMOVE_ARC.getMask() + GraphEventType.ADD_NODE.getMask() + GraphEventType.REMOVE_NODE.getMask();
 	}
 
 	@Override
 	public void propagate(int evtmask) throws ContradictionException {
+		fullCheck();
+		filterDistances();
+		gdm.unfreeze();
+	}
+
+	@Override
+	public void propagate(int idxVarInProp, int mask) throws ContradictionException {
+		if (idxVarInProp == 1) {
+			filterDistances();
+			return;
+		}
+		gdm.freeze();
+		if (root.get() == -1) {
+			// no witness yet
+			if (g.getMandatoryNodes().size() > 0) {
+				fullCheck();
+			}
+		} else {
+			nbDetached = 0;
+			separatorsMayChange = false;
+			gdm.forEachArc(arcRemoved, GraphEventType.REMOVE_ARC);
+			if (!reattach()) {
+				fullCheck();
+			} else if ((separatorsMayChange || (mask & GraphEventType.ADD_NODE.getMask()) != 0)
+					&& g.getMandatoryNodes().size() > 1) {
+				filterArticulationPointsAndBridges();
+			}
+		}
+		gdm.unfreeze();
+		filterDistances();
+	}
+
+	/**
+	 * Explores the graph from a mandatory node, removes unreachable nodes (fails if a mandatory node is not reached),
+	 * builds the witness spanning tree and enforces articulation points and bridges
+	 */
+	private void fullCheck() throws ContradictionException {
 		// 0-node or 1-node graphs are accepted
 		if (g.getPotentialNodes().size() <= 1) {
 			setPassive();
@@ -91,35 +211,300 @@ public class PropConnected extends Propagator<UndirectedGraphVar> {
 
 			// 1 --- explore the graph from the first mandatory node and
 			// remove unreachable nodes (fail if mandatory node is not reached)
-			visited.clear();
-			int root = g.getMandatoryNodes().iterator().next();
-			helper.exploreFrom(root, visited);
-			for (int o = visited.nextClearBit(0); o < n; o = visited.nextClearBit(o + 1)) {
-				g.removeNode(o, this);
-			}
+			int r = g.getMandatoryNodes().iterator().next();
+			buildWitness(r);
+			visited.flip(0, n);
+			g.removeNodes(visited, this);
 
 			if (g.getMandatoryNodes().size() > 1) {
+				filterArticulationPointsAndBridges();
+			}
+		}
+	}
+
+	/**
+	 * Builds a BFS spanning tree of the nodes reachable from r in the upper bound
+	 *
+	 * @param r a mandatory node
+	 */
+	private void buildWitness(int r) {
+		visited.clear();
+		for (int i = 0; i < n; i++) {
+			if (parent[i].get() != -1) {
+				parent[i].set(-1);
+			}
+		}
+		root.set(r);
+		parent[r].set(r);
+		int first = 0;
+		int last = 0;
+		fifo[last++] = r;
+		visited.set(r);
+		while (first < last) {
+			int i = fifo[first++];
+			for (int j : g.getPotNeighOf(i)) {
+				if (!visited.get(j)) {
+					visited.set(j);
+					parent[j].set(i);
+					fifo[last++] = j;
+				}
+			}
+		}
+	}
+
+	private void onArcRemoved(int i, int j) {
+		if (i != j) {
+			separatorsMayChange |= hull.get(i) && hull.get(j);
+			if (parent[i].get() == j) {
+				detach(i);
+			} else if (parent[j].get() == i) {
+				detach(j);
+			}
+		}
+	}
+
+	private void detach(int i) {
+		parent[i].set(-1);
+		detached[nbDetached++] = i;
+	}
+
+	/**
+	 * Tries to reattach every detached node to a neighbor which is connected to the root
+	 *
+	 * @return true iff every detached node which is still in the upper bound has been reattached
+	 */
+	private boolean reattach() {
+		boolean progress = true;
+		while (nbDetached > 0 && progress) {
+			progress = false;
+			for (int k = nbDetached - 1; k >= 0; k--) {
+				int i = detached[k];
+				if (!g.getPotentialNodes().contains(i) || attach(i)) {
+					detached[k] = detached[--nbDetached];
+					progress = true;
+				}
+			}
+		}
+		return nbDetached == 0;
+	}
+
+	private boolean attach(int i) {
+		for (int j : g.getPotNeighOf(i)) {
+			if (j != i && isRooted(j)) {
+				parent[i].set(j);
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @param i a node
+	 * @return true iff the path of the witness from i leads to the root (does not meet any detached node)
+	 */
+	private boolean isRooted(int i) {
+		int r = root.get();
+		while (i != r) {
+			i = parent[i].get();
+			if (i == -1) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void filterArticulationPointsAndBridges() throws ContradictionException {
+		helper.findMandatoryArticulationPointsAndBridges();
+		// enforced nodes already lie in the hull, which is therefore not modified by the enforcement below
+		BitSet h = helper.getHull();
+		for (int i = hull.nextSetBit(0); i >= 0; i = hull.nextSetBit(i + 1)) {
+			if (!h.get(i)) {
+				hull.clear(i);
+			}
+		}
+		for (int i = h.nextSetBit(0); i >= 0; i = h.nextSetBit(i + 1)) {
+			hull.set(i);
+		}
+
+		// 2 --- enforce articulation points that link two mandatory nodes
+		for(int ap:helper.getArticulationPoints()){
+			g.enforceNode(ap, this);
+		}
+
+		// 3 --- enforce isthma that link two mandatory nodes
+		ISet mNodes = g.getMandatoryNodes();
+		TIntArrayList brI = helper.getBridgeFrom();
+		TIntArrayList brJ = helper.getBridgeTo();
+		for(int k=0; k<brI.size(); k++){
+			int i = brI.get(k);
+			int j = brJ.get(k);
+			if(mNodes.contains(i) && mNodes.contains(j)){
+				g.enforceArc(i, j, this);
+			}
+		}
+	}
 
-				helper.findMandatoryArticulationPointsAndBridges();
+	//***********************************************************************************
+	// DISTANCE BASED FILTERING
+	//***********************************************************************************
 
-				// 2 --- enforce articulation points that link two mandatory nodes
-				for(int ap:helper.getArticulationPoints()){
-					g.enforceNode(ap, this);
+	/**
+	 * Distance based filtering, if nbNodes has been given.
+	 * Removing nodes may make new nodes mandatory (through fullCheck), and therefore increase distances,
+	 * so a second pass is applied after a pass which removed nodes. Passes are capped at MAX_DISTANCE_PASSES
+	 * so that a call costs O(n+m.log(m)); further removals are left to the next propagation.
+	 */
+	private void filterDistances() throws ContradictionException {
+		if (nbNodes == null) {
+			return;
+		}
+		boolean removed = true;
+		for (int pass = 0; removed && pass < MAX_DISTANCE_PASSES; pass++) {
+			if (!isActive() || g.getMandatoryNodes().isEmpty()) {
+				return;
+			}
+			removed = removeFarNodes();
+		}
+	}
+
+	/**
+	 * One pass of the distance based filtering.
+	 * Removed nodes may belong to the witness, which is therefore built again in such a case.
+	 *
+	 * @return true iff some node has been removed
+	 */
+	private boolean removeFarNodes() throws ContradictionException {
+		ISet mNodes = g.getMandatoryNodes();
+		int a = mNodes.min();
+		fifo[0] = a;
+		bfs(distA, null, 1);
+		int b = a;
+		ISetIterator iter = mNodes.iterator();
+		while (iter.hasNext()) {
+			int t = iter.nextInt();
+			if (distA[t] == -1) {
+				fails(); // mandatory nodes are not connected
+			}
+			if (distA[t] > distA[b]) {
+				b = t;
+			}
+		}
+		fifo[0] = b;
+		bfs(distB, null, 1);
+		// Steiner tree lower bound
+		int nb = 0;
+		iter = mNodes.iterator();
+		while (iter.hasNext()) {
+			fifo[nb++] = iter.nextInt();
+		}
+		bfs(distT, near, nb);
+		nbNodes.updateLowerBound(Math.max(steinerLowerBound(nb), distA[b]) + 1, this);
+		// nodes too far from mandatory nodes
+		int maxNodes = nbNodes.getUB();
+		toRemove.clear();
+		iter = g.getPotentialNodes().iterator();
+		while (iter.hasNext()) {
+			int v = iter.nextInt();
+			if (distA[v] == -1 || (distA[v] + distB[v] + distA[b] + 1) / 2 + 1 > maxNodes) {
+				toRemove.set(v);
+			}
+		}
+		if (g.removeNodes(toRemove, this)) {
+			fullCheck();
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Breadth-first search in the upper bound from the nodes stored in fifo[0..nbSources-1]
+	 *
+	 * @param dist      output distances (-1 for unreachable nodes)
+	 * @param origin    output closest source of each node (can be null)
+	 * @param nbSources number of sources
+	 */
+	private void bfs(int[] dist, int[] origin, int nbSources) {
+		Arrays.fill(dist, -1);
+		for (int k = 0; k < nbSources; k++) {
+			dist[fifo[k]] = 0;
+			if (origin != null) {
+				origin[fifo[k]] = fifo[k];
+			}
+		}
+		int first = 0;
+		int last = nbSources;
+		while (first < last) {
+			int i = fifo[first++];
+			ISetIterator iter = g.getPotNeighOf(i).iterator();
+			while (iter.hasNext()) {
+				int j = iter.nextInt();
+				if (dist[j] == -1) {
+					dist[j] = dist[i] + 1;
+					if (origin != null) {
+						origin[j] = origin[i];
+					}
+					fifo[last++] = j;
 				}
+			}
+		}
+	}
 
-				// 3 --- enforce isthma that link two mandatory nodes (current version is bugged)
-				ISet mNodes = g.getMandatoryNodes();
-				TIntArrayList brI = helper.getBridgeFrom();
-				TIntArrayList brJ = helper.getBridgeTo();
-				for(int k=0; k<brI.size(); k++){
-					int i = brI.get(k);
-					int j = brJ.get(k);
-					if(mNodes.contains(i) && mNodes.contains(j)){
-						g.enforceArc(i, j, this);
+	/**
+	 * Kruskal's algorithm over the edges linking two Voronoi regions (given by near and distT)
+	 *
+	 * @param nbTerminals number of mandatory nodes
+	 * @return a lower bound on the number of edges of a tree spanning mandatory nodes
+	 */
+	private int steinerLowerBound(int nbTerminals) {
+		int size = 0;
+		ISetIterator nodes = g.getPotentialNodes().iterator();
+		while (nodes.hasNext()) {
+			int i = nodes.nextInt();
+			if (distT[i] == -1) {
+				continue;
+			}
+			ISetIterator iter = g.getPotNeighOf(i).iterator();
+			while (iter.hasNext()) {
+				int j = iter.nextInt();
+				if (i < j && near[i] != near[j]) {
+					if (size == candKeys.length) {
+						int newSize = size * 3 / 2 + 1;
+						candKeys = Arrays.copyOf(candKeys, newSize);
+						candI = Arrays.copyOf(candI, newSize);
+						candJ = Arrays.copyOf(candJ, newSize);
 					}
+					candI[size] = i;
+					candJ[size] = j;
+					candKeys[size] = ((long) (distT[i] + distT[j] + 1) << 32) | size;
+					size++;
 				}
 			}
 		}
+		Arrays.sort(candKeys, 0, size);
+		for (int k = 0; k < nbTerminals; k++) {
+			ufParent[fifo[k]] = fifo[k];
+		}
+		int weight = 0;
+		for (int k = 0; k < size && nbTerminals > 1; k++) {
+			int idx = (int) candKeys[k];
+			int ri = find(near[candI[idx]]);
+			int rj = find(near[candJ[idx]]);
+			if (ri != rj) {
+				ufParent[ri] = rj;
+				weight += (int) (candKeys[k] >>> 32);
+				nbTerminals--;
+			}
+		}
+		// the minimum spanning tree of the distance network is at most twice as large as a Steiner tree
+		return (weight + 1) / 2;
+	}
+
+	private int find(int i) {
+		while (ufParent[i] != i) {
+			ufParent[i] = ufParent[ufParent[i]];
+			i = ufParent[i];
+		}
+		return i;
 	}
 
 	@Override
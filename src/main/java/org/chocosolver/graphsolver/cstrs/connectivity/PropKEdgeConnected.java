@@ -0,0 +1,259 @@
+/**
+ * Copyright (c) 1999-2014, Ecole des Mines de Nantes
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * <p>
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the Ecole des Mines de Nantes nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE REGENTS AND CONTRIBUTORS ``AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE REGENTS AND CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.chocosolver.graphsolver.cstrs.connectivity;
+
+import org.chocosolver.graphsolver.variables.GraphEventType;
+import org.chocosolver.graphsolver.variables.UndirectedGraphVar;
+import org.chocosolver.solver.constraints.Propagator;
+import org.chocosolver.solver.constraints.PropagatorPriority;
+import org.chocosolver.solver.exception.ContradictionException;
+import org.chocosolver.util.ESat;
+import org.chocosolver.util.objects.setDataStructures.ISet;
+import org.chocosolver.util.objects.setDataStructures.ISetIterator;
+import org.chocosolver.util.objects.setDataStructures.SetFactory;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Propagator ensuring that a graph variable is k-edge-connected,
+ * i.e. that it remains connected after the removal of any k-1 edges
+ * <p/>
+ * Given a mandatory root r, the final graph is k-edge-connected iff every node v is linked to r by k edge-disjoint
+ * paths (as the max flow between u and v is at least the minimum of the max flows between u and r and between r and v).
+ * For each potential node v, a max flow from r to v, capped at k, is computed on the upper bound
+ * (unit capacities, augmenting paths), directly iterating over the neighbors of the graph variable:
+ * - if it is lower than k, v is removed (fails if v is mandatory),
+ * - if v is mandatory and the max flow is exactly k, edges of the minimum cuts closest to r and to v are enforced.
+ * <p/>
+ * Runs in O(n.k.m)
+ */
+public class PropKEdgeConnected extends Propagator<UndirectedGraphVar> {
+
+	//***********************************************************************************
+	// VARIABLES
+	//***********************************************************************************
+
+	private final UndirectedGraphVar g;
+	private final int k;
+	private final int n;
+	// flowOut[i] contains j iff one unit of flow goes from i to j
+	private final ISet[] flowOut;
+	private final BitSet touched, sinks;
+	private final int[] fifo, pred, stamp;
+	private int epoch;
+
+	//***********************************************************************************
+	// CONSTRUCTORS
+	//***********************************************************************************
+
+	public PropKEdgeConnected(UndirectedGraphVar graph, int k) {
+		super(new UndirectedGraphVar[]{graph}, PropagatorPriority.CUBIC, false);
+		this.g = graph;
+		this.k = k;
+		this.n = g.getNbMaxNodes();
+		this.flowOut = new ISet[n];
+		for (int i = 0; i < n; i++) {
+			flowOut[i] = SetFactory.makeSmallBipartiteSet();
+		}
+		this.touched = new BitSet(n);
+		this.sinks = new BitSet(n);
+		this.fifo = new int[n];
+		this.pred = new int[n];
+		this.stamp = new int[n];
+	}
+
+	//***********************************************************************************
+	// PROPAGATIONS
+	//***********************************************************************************
+
+	@Override
+	public void propagate(int evtmask) throws ContradictionException {
+		ISet mNodes = g.getMandatoryNodes();
+		if (k <= 0 || mNodes.isEmpty()) {
+			return;
+		}
+		int root = mNodes.min();
+		sinks.clear();
+		ISetIterator iter = g.getPotentialNodes().iterator();
+		while (iter.hasNext()) {
+			sinks.set(iter.nextInt());
+		}
+		sinks.clear(root);
+		for (int v = sinks.nextSetBit(0); v >= 0; v = sinks.nextSetBit(v + 1)) {
+			if (!g.getPotentialNodes().contains(v)) {
+				continue;
+			}
+			int flow = maxFlow(root, v);
+			if (flow < k) {
+				g.removeNode(v, this); // fails if v is mandatory
+			} else if (flow == k && mNodes.contains(v)) {
+				// the last (failed) search has marked the source side of the min cut closest to r
+				enforceCut(true);
+				markSinkSide(v);
+				enforceCut(false);
+			}
+		}
+	}
+
+	/**
+	 * Computes the max flow from s to t in the upper bound, capped at k + 1
+	 * (after the k first units, only checks whether one more unit can be sent)
+	 *
+	 * @return min(max flow, k+1)
+	 */
+	private int maxFlow(int s, int t) {
+		for (int i = touched.nextSetBit(0); i >= 0; i = touched.nextSetBit(i + 1)) {
+			flowOut[i].clear();
+		}
+		touched.clear();
+		int flow = 0;
+		while (flow <= k && augment(s, t)) {
+			flow++;
+		}
+		return flow;
+	}
+
+	/**
+	 * Breadth-first search of an augmenting path from s to t in the residual graph.
+	 * If none exists, nodes reachable from s are marked with the current epoch.
+	 *
+	 * @return true iff one more unit of flow has been sent from s to t
+	 */
+	private boolean augment(int s, int t) {
+		nextEpoch();
+		int first = 0;
+		int last = 0;
+		fifo[last++] = s;
+		stamp[s] = epoch;
+		while (first < last) {
+			int i = fifo[first++];
+			ISetIterator iter = g.getPotNeighOf(i).iterator();
+			while (iter.hasNext()) {
+				int j = iter.nextInt();
+				// edge (i,j) has residual capacity from i to j unless it already carries flow from i to j
+				if (stamp[j] != epoch && !flowOut[i].contains(j)) {
+					stamp[j] = epoch;
+					pred[j] = i;
+					if (j == t) {
+						for (int y = t; y != s; y = pred[y]) {
+							int x = pred[y];
+							if (flowOut[y].contains(x)) {
+								flowOut[y].remove(x);
+							} else {
+								flowOut[x].add(y);
+								touched.set(x);
+							}
+						}
+						return true;
+					}
+					fifo[last++] = j;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Marks with a new epoch the nodes which can reach t in the residual graph
+	 */
+	private void markSinkSide(int t) {
+		nextEpoch();
+		int first = 0;
+		int last = 0;
+		fifo[last++] = t;
+		stamp[t] = epoch;
+		while (first < last) {
+			int i = fifo[first++];
+			ISetIterator iter = g.getPotNeighOf(i).iterator();
+			while (iter.hasNext()) {
+				int j = iter.nextInt();
+				if (stamp[j] != epoch && !flowOut[j].contains(i)) {
+					stamp[j] = epoch;
+					fifo[last++] = j;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Enforces the edges of a minimum cut, one side of which is made of the nodes marked with the current epoch
+	 *
+	 * @param marked true iff marked nodes are the source side of the cut
+	 */
+	private void enforceCut(boolean marked) throws ContradictionException {
+		int cur = epoch;
+		ISetIterator nodes = g.getPotentialNodes().iterator();
+		while (nodes.hasNext()) {
+			int i = nodes.nextInt();
+			if ((stamp[i] == cur) == marked) {
+				ISetIterator iter = g.getPotNeighOf(i).iterator();
+				while (iter.hasNext()) {
+					int j = iter.nextInt();
+					if ((stamp[j] == cur) != marked) {
+						g.enforceArc(i, j, this);
+					}
+				}
+			}
+		}
+	}
+
+	private void nextEpoch() {
+		if (++epoch == Integer.MAX_VALUE) {
+			Arrays.fill(stamp, 0);
+			epoch = 1;
+		}
+	}
+
+	//***********************************************************************************
+	// INFO
+	//***********************************************************************************
+
+	@Override
+	public int getPropagationConditions(int vIdx) {
+		return GraphEventType.REMOVE_NODE.getMask() + GraphEventType.REMOVE_ARC.getMask() + GraphEventType.ADD_NODE.getMask();
+	}
+
+	@Override
+	public ESat isEntailed() {
+		ISet mNodes = g.getMandatoryNodes();
+		if (k <= 0 || mNodes.isEmpty()) {
+			return g.isInstantiated() ? ESat.TRUE : ESat.UNDEFINED;
+		}
+		int root = mNodes.min();
+		for (int v : mNodes) {
+			if (v != root && maxFlow(root, v) < k) {
+				return ESat.FALSE;
+			}
+		}
+		if (g.isInstantiated()) {
+			return ESat.TRUE;
+		}
+		return ESat.UNDEFINED;
+	}
+}
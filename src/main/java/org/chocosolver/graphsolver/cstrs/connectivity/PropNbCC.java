@@ -28,15 +28,20 @@
 package org.chocosolver.graphsolver.cstrs.connectivity;
 
 import gnu.trove.list.array.TIntArrayList;
+import org.chocosolver.graphsolver.util.StoredUnionFind;
 import org.chocosolver.graphsolver.util.UGVarConnectivityHelper;
+import org.chocosolver.graphsolver.variables.GraphEventType;
 import org.chocosolver.graphsolver.variables.UndirectedGraphVar;
+import org.chocosolver.graphsolver.variables.delta.GraphDeltaMonitor;
 import org.chocosolver.solver.constraints.Propagator;
 import org.chocosolver.solver.constraints.PropagatorPriority;
 import org.chocosolver.solver.exception.ContradictionException;
 import org.chocosolver.solver.variables.IntVar;
 import org.chocosolver.solver.variables.Variable;
+import org.chocosolver.solver.variables.events.PropagatorEventType;
 import org.chocosolver.util.ESat;
 import org.chocosolver.util.objects.setDataStructures.ISet;
+import org.chocosolver.util.procedure.PairProcedure;
 
 import java.util.BitSet;
 
@@ -57,21 +62,27 @@ public class PropNbCC extends Propagator<Variable> {
 	private final IntVar k;
 	private final UGVarConnectivityHelper helper;
 	private final BitSet visitedMin, visitedMax;
-	private final int[] fifo, ccOf;
+	private final int[] fifo;
+	// connected components of the lower bound, fed by the ADD_ARC delta
+	private final StoredUnionFind lbCC;
+	private final GraphDeltaMonitor gdm;
+	private final PairProcedure arcEnforced;
 
 	//***********************************************************************************
 	// CONSTRUCTORS
 	//***********************************************************************************
 
 	public PropNbCC(UndirectedGraphVar graph, IntVar k) {
-		super(new Variable[]{graph, k}, PropagatorPriority.LINEAR, false);
+		super(new Variable[]{graph, k}, PropagatorPriority.LINEAR, true);
 		this.g = graph;
 		this.k = k;
 		this.helper = new UGVarConnectivityHelper(g);
 		this.visitedMin = new BitSet(g.getNbMaxNodes());
 		this.visitedMax = new BitSet(g.getNbMaxNodes());
 		this.fifo = new int[g.getNbMaxNodes()];
-		this.ccOf = new int[g.getNbMaxNodes()];
+		this.lbCC = new StoredUnionFind(g.getNbMaxNodes(), g.getEnvironment());
+		this.gdm = g.monitorDelta(this);
+		this.arcEnforced = lbCC::union;
 	}
 
 	//***********************************************************************************
@@ -80,6 +91,15 @@ public class PropNbCC extends Propagator<Variable> {
 
 	@Override
 	public void propagate(int evtmask) throws ContradictionException {
+		if (PropagatorEventType.isFullPropagation(evtmask)) {
+			lbCC.reset();
+			for (int i : g.getMandatoryNodes()) {
+				for (int j : g.getMandNeighOf(i)) {
+					lbCC.union(i, j);
+				}
+			}
+			gdm.unfreeze();
+		}
 
 		// trivial case
 		k.updateBounds(0, g.getPotentialNodes().size(), this);
@@ -101,10 +121,8 @@ public class PropNbCC extends Propagator<Variable> {
 			if (k.getUB() == min) {
 
 				// 1 --- remove unreachable nodes
-				int n = g.getNbMaxNodes();
-				for (int o = visitedMin.nextClearBit(0); o < n; o = visitedMin.nextClearBit(o + 1)) {
-					g.removeNode(o, this);
-				}
+				visitedMin.flip(0, g.getNbMaxNodes());
+				g.removeNodes(visitedMin, this);
 
 				ISet mNodes = g.getMandatoryNodes();
 				if (mNodes.size() >= 2) {
@@ -116,14 +134,16 @@ public class PropNbCC extends Propagator<Variable> {
 						g.enforceNode(ap, this);
 					}
 
-					// 3 --- enforce isthma that link two mandatory nodes (current version is bugged)
+					// 3 --- enforce isthma that link two mandatory nodes
 					TIntArrayList brI = helper.getBridgeFrom();
 					TIntArrayList brJ = helper.getBridgeTo();
 					for (int k = 0; k < brI.size(); k++) {
 						int i = brI.get(k);
 						int j = brJ.get(k);
 						if (mNodes.contains(i) && mNodes.contains(j)) {
-							g.enforceArc(i, j, this);
+							if (g.enforceArc(i, j, this)) {
+								lbCC.union(i, j);
+							}
 						}
 					}
 				}
@@ -134,9 +154,14 @@ public class PropNbCC extends Propagator<Variable> {
 				ISet mNodes = g.getMandatoryNodes();
 				for(int i:g.getPotentialNodes()){
 					if(!mNodes.contains(i)){
-						for(int j:g.getPotNeighOf(i)){
-							g.removeArc(i,j,this);
+						// a loop does not merge CC
+						visitedMax.clear();
+						for (int j : g.getPotNeighOf(i)) {
+							if (j != i) {
+								visitedMax.set(j);
+							}
 						}
+						g.removeArcs(i, visitedMax, this);
 						g.enforceNode(i,this);
 					}
 				}
@@ -145,7 +170,7 @@ public class PropNbCC extends Propagator<Variable> {
 				// if so the edge should not be filtered
 				for(int i:g.getPotentialNodes()){
 					for(int j:g.getPotNeighOf(i)){
-						if(ccOf[i] != ccOf[j]) {
+						if(lbCC.find(i) != lbCC.find(j)) {
 							g.removeArc(i,j,this);
 						}
 					}
@@ -166,10 +191,34 @@ public class PropNbCC extends Propagator<Variable> {
 		return min;
 	}
 
+	@Override
+	public void propagate(int idxVarInProp, int mask) throws ContradictionException {
+		if (idxVarInProp == 0) {
+			gdm.freeze();
+			gdm.forEachArc(arcEnforced, GraphEventType.ADD_ARC);
+			gdm.unfreeze();
+		}
+		forcePropagate(PropagatorEventType.CUSTOM_PROPAGATION);
+	}
+
+	/**
+	 * @return the maximum number of CC, in O(1) as mandatory edges have been merged in lbCC
+	 */
 	private int maxCC() {
+		// every union merges two CC of mandatory nodes, other potential nodes may be isolated
+		return g.getPotentialNodes().size() - lbCC.getNbUnions();
+	}
+
+	/**
+	 * Computes the maximum number of CC from scratch,
+	 * so that entailment does not depend on the state of the incremental data structure
+	 *
+	 * @return the maximum number of CC
+	 */
+	private int maxCCFromScratch() {
 		int nbK = 0;
 		visitedMax.clear();
-		for(int i:g.getMandatoryNodes().toArray()) {
+		for(int i:g.getMandatoryNodes()) {
 			if(!visitedMax.get(i)) {
 				exploreLBFrom(i, visitedMax);
 				nbK++;
@@ -185,13 +234,11 @@ public class PropNbCC extends Propagator<Variable> {
 		int i = root;
 		fifo[last++] = i;
 		visited.set(i);
-		ccOf[i] = root; // mark cc of explored node
 		while (first < last) {
 			i = fifo[first++];
 			for (int j : g.getMandNeighOf(i)) { // mandatory edges only
 				if (!visited.get(j)) {
 					visited.set(j);
-					ccOf[j] = root; // mark cc of explored node
 					fifo[last++] = j;
 				}
 			}
@@ -204,7 +251,7 @@ public class PropNbCC extends Propagator<Variable> {
 
 	@Override
 	public ESat isEntailed() {
-		if (k.getUB() < minCC() || k.getLB() > maxCC()) {
+		if (k.getUB() < minCC() || k.getLB() > maxCCFromScratch()) {
 			return ESat.FALSE;
 		}
 		if (isCompletelyInstantiated()) {
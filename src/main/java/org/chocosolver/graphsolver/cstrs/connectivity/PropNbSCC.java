@@ -27,19 +27,38 @@
 
 package org.chocosolver.graphsolver.cstrs.connectivity;
 
+import org.chocosolver.graphsolver.util.StoredUnionFind;
 import org.chocosolver.graphsolver.util.StrongConnectivityFinder;
 import org.chocosolver.graphsolver.variables.DirectedGraphVar;
+import org.chocosolver.graphsolver.variables.GraphEventType;
+import org.chocosolver.graphsolver.variables.delta.GraphDeltaMonitor;
+import org.chocosolver.memory.IStateInt;
 import org.chocosolver.solver.constraints.Propagator;
 import org.chocosolver.solver.constraints.PropagatorPriority;
 import org.chocosolver.solver.exception.ContradictionException;
 import org.chocosolver.solver.variables.IntVar;
 import org.chocosolver.solver.variables.Variable;
+import org.chocosolver.solver.variables.events.PropagatorEventType;
 import org.chocosolver.util.ESat;
+import org.chocosolver.util.objects.setDataStructures.ISet;
+import org.chocosolver.util.objects.setDataStructures.ISetIterator;
+import org.chocosolver.util.procedure.PairProcedure;
+
+import java.util.Arrays;
+import java.util.BitSet;
 
 /**
  * Propagator that ensures that the final graph consists in K Strongly Connected Components (SCC)
  * <p/>
  * simple checker and a bit of pruning (runs in linear time)
+ * <p/>
+ * SCCs are maintained incrementally:
+ * - SCCs of the upper bound are labelled by one of their nodes (trailed).
+ * When arcs are removed, SCCs are only recomputed within the labels that lost an arc.
+ * - SCCs of the lower bound are stored in a trailed union-find which merges, upon arc additions,
+ * every node lying on a cycle through the new arc. Once the searches of a propagation have scanned
+ * as many nodes and arcs as the lower bound has, remaining arcs are handled by a single computation of
+ * the SCCs of the lower bound, so that a propagation never costs more than O(n+m).
  *
  * @author Jean-Guillaume Fages
  */
@@ -49,20 +68,47 @@ public class PropNbSCC extends Propagator<Variable> {
 	// VARIABLES
 	//***********************************************************************************
 
-	private DirectedGraphVar g;
-	private IntVar k;
-	private StrongConnectivityFinder envCCFinder, kerCCFinder;
+	private final DirectedGraphVar g;
+	private final IntVar k;
+	private final StrongConnectivityFinder envCCFinder, kerCCFinder;
+	private final int n;
+	// label (i.e. representative node) of the SCC of each potential node in the upper bound
+	private final IStateInt[] envSCC;
+	// SCCs of the lower bound
+	private final StoredUnionFind kerSCC;
+	private final GraphDeltaMonitor gdm;
+	private final PairProcedure arcRemoved, arcEnforced;
+	// nodes of the upper bound whose SCC must be recomputed
+	private final BitSet dirtyNodes, toRemove;
+	private final int[] fifo, mark;
+	private int epoch;
+	// nodes and arcs scanned by the searches of the current propagation, and whether they exceeded their budget
+	private int work;
+	private boolean kerOverBudget;
 
 	//***********************************************************************************
 	// CONSTRUCTORS
 	//***********************************************************************************
 
 	public PropNbSCC(DirectedGraphVar graph, IntVar k) {
-		super(new Variable[]{graph, k}, PropagatorPriority.LINEAR, false);
+		super(new Variable[]{graph, k}, PropagatorPriority.LINEAR, true);
 		this.g = graph;
 		this.k = k;
+		this.n = g.getNbMaxNodes();
 		envCCFinder = new StrongConnectivityFinder(g.getUB());
 		kerCCFinder = new StrongConnectivityFinder(g.getLB());
+		envSCC = new IStateInt[n];
+		for (int i = 0; i < n; i++) {
+			envSCC[i] = g.getEnvironment().makeInt(i);
+		}
+		kerSCC = new StoredUnionFind(n, g.getEnvironment());
+		gdm = g.monitorDelta(this);
+		arcRemoved = this::onArcRemoved;
+		arcEnforced = this::onArcEnforced;
+		dirtyNodes = new BitSet(n);
+		toRemove = new BitSet(n);
+		fifo = new int[n];
+		mark = new int[n];
 	}
 
 	//***********************************************************************************
@@ -71,6 +117,14 @@ public class PropNbSCC extends Propagator<Variable> {
 
 	@Override
 	public void propagate(int evtmask) throws ContradictionException {
+		if (PropagatorEventType.isFullPropagation(evtmask)) {
+			envCCFinder.findAllSCC();
+			labelEnvSCCs();
+			kerSCC.reset();
+			mergeKerSCCs();
+			gdm.unfreeze();
+		}
+
 		// trivial case
 		k.updateLowerBound(0, this);
 		if (g.getPotentialNodes().size() == 0) {
@@ -91,44 +145,217 @@ public class PropNbSCC extends Propagator<Variable> {
 		k.updateUpperBound(max, this);
 
 		// A bit of pruning (removes unreachable nodes)
+		// whole SCCs of the upper bound are removed, so the labelling of other SCCs remains valid
 		if (k.getUB() == min && min != max) {
-			int ccs = envCCFinder.getNbSCC();
-			boolean pot = true;
-			for (int cc = 0; cc < ccs; cc++) {
-				for (int i = envCCFinder.getSCCFirstNode(cc); i >= 0 && pot; i = envCCFinder.getNextNode(i)) {
-					if (g.getMandatoryNodes().contains(i)) {
-						pot = false;
-					}
+			// labels having a mandatory node have been marked by minCC()
+			toRemove.clear();
+			ISetIterator iter = g.getPotentialNodes().iterator();
+			while (iter.hasNext()) {
+				int i = iter.nextInt();
+				if (mark[envSCC[i].get()] != epoch) {
+					toRemove.set(i);
 				}
-				if (pot) {
-					for (int i = envCCFinder.getSCCFirstNode(cc); i >= 0; i = envCCFinder.getNextNode(i)) {
-						g.removeNode(i, this);
-					}
+			}
+			g.removeNodes(toRemove, this);
+		}
+	}
+
+	@Override
+	public void propagate(int idxVarInProp, int mask) throws ContradictionException {
+		if (idxVarInProp == 0) {
+			nextEpoch();
+			dirtyNodes.clear();
+			gdm.freeze();
+			gdm.forEachArc(arcRemoved, GraphEventType.REMOVE_ARC);
+			work = 0;
+			kerOverBudget = false;
+			gdm.forEachArc(arcEnforced, GraphEventType.ADD_ARC);
+			gdm.unfreeze();
+			if (kerOverBudget) {
+				mergeKerSCCs();
+			}
+			if (!dirtyNodes.isEmpty()) {
+				envCCFinder.findAllSCCOf(dirtyNodes);
+				labelEnvSCCs();
+			}
+		}
+		forcePropagate(PropagatorEventType.CUSTOM_PROPAGATION);
+	}
+
+	/**
+	 * Merges in kerSCC the nodes of every SCC of the lower bound, in O(n+m)
+	 */
+	private void mergeKerSCCs() {
+		kerCCFinder.findAllSCC();
+		for (int cc = 0; cc < kerCCFinder.getNbSCC(); cc++) {
+			int first = kerCCFinder.getSCCFirstNode(cc);
+			for (int i = kerCCFinder.getNextNode(first); i >= 0; i = kerCCFinder.getNextNode(i)) {
+				kerSCC.union(first, i);
+			}
+		}
+	}
+
+	/**
+	 * Relabels the SCCs found by envCCFinder.
+	 * An SCC containing the representative of its former label keeps it.
+	 */
+	private void labelEnvSCCs() {
+		for (int cc = 0; cc < envCCFinder.getNbSCC(); cc++) {
+			int rep = envCCFinder.getSCCFirstNode(cc);
+			for (int i = rep; i >= 0; i = envCCFinder.getNextNode(i)) {
+				if (envSCC[i].get() == i) {
+					rep = i;
+					break;
 				}
 			}
+			for (int i = envCCFinder.getSCCFirstNode(cc); i >= 0; i = envCCFinder.getNextNode(i)) {
+				envSCC[i].set(rep);
+			}
+		}
+	}
+
+	/**
+	 * An arc removal can only split the SCC that contained it,
+	 * whose remaining nodes are collected from the arc extremities
+	 */
+	private void onArcRemoved(int from, int to) {
+		int label = envSCC[from].get();
+		if (label == envSCC[to].get()) {
+			collectSCC(from, label);
+			collectSCC(to, label);
+		}
+	}
+
+	/**
+	 * Adds to dirtyNodes the nodes having the given label and being weakly connected to root,
+	 * every node of a split SCC being weakly connected to an extremity of a removed arc
+	 */
+	private void collectSCC(int root, int label) {
+		if (mark[root] == epoch || !g.getPotentialNodes().contains(root)) {
+			return;
+		}
+		int first = 0;
+		int last = 0;
+		fifo[last++] = root;
+		mark[root] = epoch;
+		while (first < last) {
+			int i = fifo[first++];
+			dirtyNodes.set(i);
+			last = collectNeighbors(g.getPotSuccOf(i), label, last);
+			last = collectNeighbors(g.getPotPredOf(i), label, last);
+		}
+	}
+
+	private int collectNeighbors(ISet neighbors, int label, int last) {
+		ISetIterator iter = neighbors.iterator();
+		while (iter.hasNext()) {
+			int j = iter.nextInt();
+			if (mark[j] != epoch && envSCC[j].get() == label) {
+				mark[j] = epoch;
+				fifo[last++] = j;
+			}
 		}
+		return last;
 	}
 
+	/**
+	 * A new arc (from,to) merges the SCCs of the lower bound that are both reachable from to and reaching from.
+	 * Once the budget of the propagation is exceeded, arcs are left to mergeKerSCCs().
+	 */
+	private void onArcEnforced(int from, int to) {
+		if (kerOverBudget || kerSCC.find(from) == kerSCC.find(to)) {
+			return;
+		}
+		if (work > n + g.getNbMandatoryArcs()) {
+			kerOverBudget = true;
+			return;
+		}
+		// forward search from to
+		nextEpoch();
+		int first = 0;
+		int last = 0;
+		fifo[last++] = to;
+		mark[to] = epoch;
+		while (first < last && mark[from] != epoch) {
+			ISetIterator iter = g.getMandSuccOf(fifo[first++]).iterator();
+			while (iter.hasNext()) {
+				int j = iter.nextInt();
+				work++;
+				if (mark[j] != epoch) {
+					mark[j] = epoch;
+					fifo[last++] = j;
+				}
+			}
+		}
+		if (mark[from] != epoch) {
+			return;
+		}
+		// complete the forward search, then go backward from from among forward reachable nodes
+		while (first < last) {
+			ISetIterator iter = g.getMandSuccOf(fifo[first++]).iterator();
+			while (iter.hasNext()) {
+				int j = iter.nextInt();
+				work++;
+				if (mark[j] != epoch) {
+					mark[j] = epoch;
+					fifo[last++] = j;
+				}
+			}
+		}
+		int forward = epoch;
+		nextEpoch();
+		first = 0;
+		last = 0;
+		fifo[last++] = from;
+		mark[from] = epoch;
+		while (first < last) {
+			int i = fifo[first++];
+			kerSCC.union(from, i);
+			ISetIterator iter = g.getMandPredOf(i).iterator();
+			while (iter.hasNext()) {
+				int j = iter.nextInt();
+				work++;
+				if (mark[j] == forward) {
+					mark[j] = epoch;
+					fifo[last++] = j;
+				}
+			}
+		}
+	}
+
+	private void nextEpoch() {
+		if (++epoch == Integer.MAX_VALUE) {
+			Arrays.fill(mark, 0);
+			epoch = 1;
+		}
+	}
+
+	/**
+	 * Counts the SCCs of the upper bound which contain a mandatory node, in O(n)
+	 * (their labels are marked with the current epoch)
+	 *
+	 * @return a lower bound on the number of SCCs
+	 */
 	public int minCC() {
-		envCCFinder.findAllSCC();
-		int ccs = envCCFinder.getNbSCC();
+		nextEpoch();
 		int minCC = 0;
-		for (int cc = 0; cc < ccs; cc++) {
-			for (int i = envCCFinder.getSCCFirstNode(cc); i >= 0; i = envCCFinder.getNextNode(i)) {
-				if (g.getMandatoryNodes().contains(i)) {
-					minCC++;
-					break;
-				}
+		ISetIterator iter = g.getMandatoryNodes().iterator();
+		while (iter.hasNext()) {
+			int label = envSCC[iter.nextInt()].get();
+			if (mark[label] != epoch) {
+				mark[label] = epoch;
+				minCC++;
 			}
 		}
 		return minCC;
 	}
 
+	/**
+	 * @return an upper bound on the number of SCCs, in O(1) as mandatory SCCs are merged in kerSCC
+	 */
 	public int maxCC() {
-		kerCCFinder.findAllSCC();
-		int nbK = kerCCFinder.getNbSCC();
-		int delta = g.getPotentialNodes().size() - g.getMandatoryNodes().size();
-		return nbK + delta;
+		// every union merges two SCCs of mandatory nodes, other potential nodes may be isolated
+		return g.getPotentialNodes().size() - kerSCC.getNbUnions();
 	}
 
 	//***********************************************************************************
@@ -137,7 +364,21 @@ public class PropNbSCC extends Propagator<Variable> {
 
 	@Override
 	public ESat isEntailed() {
-		if (k.getUB() < minCC() || k.getLB() > maxCC()) {
+		// computed from scratch, so that entailment does not depend on the incremental data structures
+		envCCFinder.findAllSCC();
+		int ccs = envCCFinder.getNbSCC();
+		int min = 0;
+		for (int cc = 0; cc < ccs; cc++) {
+			for (int i = envCCFinder.getSCCFirstNode(cc); i >= 0; i = envCCFinder.getNextNode(i)) {
+				if (g.getMandatoryNodes().contains(i)) {
+					min++;
+					break;
+				}
+			}
+		}
+		kerCCFinder.findAllSCC();
+		int max = kerCCFinder.getNbSCC() + g.getPotentialNodes().size() - g.getMandatoryNodes().size();
+		if (k.getUB() < min || k.getLB() > max) {
 			return ESat.FALSE;
 		}
 		if (isCompletelyInstantiated()) {
@@ -10,10 +10,7 @@ import org.chocosolver.solver.variables.IntVar;
 import org.chocosolver.solver.variables.Variable;
 import org.chocosolver.util.ESat;
 
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Set;
+import java.util.Arrays;
 
 /**
  * Propagator ensuring that the number of vertices of the largest connected is maxSizeCC
@@ -28,6 +25,10 @@ public class PropSizeMaxCC extends Propagator<Variable> {
 	private UndirectedGraphVar g;
 	private IntVar sizeMaxCC;
 	private ConnectivityFinder GLBCCFinder, GUBCCFinder;
+	// nodes of the GLB CC being processed are such that mark[i] == epoch
+	private int[] mark;
+	private int epoch;
+	private int[] buffer;
 
 	/* Constructor */
 
@@ -37,6 +38,8 @@ public class PropSizeMaxCC extends Propagator<Variable> {
 		this.sizeMaxCC = sizeMaxCC;
 		this.GLBCCFinder = new ConnectivityFinder(g.getLB());
 		this.GUBCCFinder = new ConnectivityFinder(g.getUB());
+		this.mark = new int[g.getNbMaxNodes()];
+		this.buffer = new int[g.getNbMaxNodes()];
 	}
 
 	/* Methods */
@@ -81,9 +84,16 @@ public class PropSizeMaxCC extends Propagator<Variable> {
 			boolean recomputeMaxNCC_UB = false;
 			// a.
 			if (sizeMaxCC.getUB() == 1) {
+				// loops do not increase the size of CCs
 				for (int i : g.getPotentialNodes()) {
+					int size = 0;
 					for (int j : g.getPotNeighOf(i)) {
-						g.removeArc(i, j, this);
+						if (j != i) {
+							buffer[size++] = j;
+						}
+					}
+					for (int k = 0; k < size; k++) {
+						g.removeArc(i, buffer[k], this);
 					}
 				}
 			}
@@ -97,25 +107,12 @@ public class PropSizeMaxCC extends Propagator<Variable> {
 				int[] sizeCC = GLBCCFinder.getSizeCC();
 				// c.
 				if (sizeCC[cc] == sizeMaxCC.getUB()) {
-					Map<Integer, Set<Integer>> ccPotentialNeighbors = getGLBCCPotentialNeighbors(cc);
-					for (int i : ccPotentialNeighbors.keySet()) {
-						for (int j : ccPotentialNeighbors.get(i)) {
-							g.removeArc(i, j, this);
-						}
-					}
+					removeOutEdges(cc, -1);
 				} else {
 					// d.
 					for (int cc2 = cc + 1; cc2 < nbCC_GLB; cc2++) {
 						if (sizeCC[cc] + sizeCC[cc2] > sizeMaxCC.getUB()) {
-							Map<Integer, Set<Integer>> ccPotentialNeighbors = getGLBCCPotentialNeighbors(cc);
-							for (int i : ccPotentialNeighbors.keySet()) {
-								for (int j : ccPotentialNeighbors.get(i)) {
-									if (getGLBCCNodes(cc2).contains(j)) {
-										recomputeMaxNCC_UB = true;
-										g.removeArc(i, j, this);
-									}
-								}
-							}
+							recomputeMaxNCC_UB |= removeOutEdges(cc, cc2);
 						}
 					}
 				}
@@ -158,49 +155,42 @@ public class PropSizeMaxCC extends Propagator<Variable> {
 	}
 
 	/**
-	 * Retrieve the nodes of a GLB CC.
+	 * Marks the nodes of a GLB CC with a new epoch.
 	 *
 	 * @param cc The GLB CC index.
-	 * @return The set of nodes of the GLB CC cc.
 	 */
-	private Set<Integer> getGLBCCNodes(int cc) {
-		Set<Integer> ccNodes = new HashSet<>();
+	private void markGLBCC(int cc) {
+		if (++epoch == Integer.MAX_VALUE) {
+			Arrays.fill(mark, 0);
+			epoch = 1;
+		}
 		for (int i = GLBCCFinder.getCCFirstNode()[cc]; i >= 0; i = GLBCCFinder.getCCNextNode()[i]) {
-			ccNodes.add(i);
+			mark[i] = epoch;
 		}
-		return ccNodes;
 	}
 
 	/**
-	 * Retrieve the potential CC neighbors (i.e. not in the CC) of a GLB CC.
+	 * Removes the potential edges linking a GLB CC to nodes outside of it.
 	 *
-	 * @param cc The GLB CC index.
-	 * @return A map with frontier nodes of the CC as keys (Integer), and their potential neighbors that are
-	 * outside the CC (Set<Integer>). Only the frontier nodes that have at least one potential neighbor outside the
-	 * CC are stored in the map.
-	 * {
-	 * frontierNode1: {out-CC potential neighbors},
-	 * frontierNode3: {...},
-	 * ...
-	 * }
+	 * @param cc     The GLB CC index.
+	 * @param target The GLB CC index of the other endpoints of removed edges, or -1 to remove every outgoing edge.
+	 * @return true iff at least one edge has been removed.
 	 */
-	private Map<Integer, Set<Integer>> getGLBCCPotentialNeighbors(int cc) {
-		Map<Integer, Set<Integer>> ccPotentialNeighbors = new HashMap<>();
-		// Retrieve all nodes of CC
-		Set<Integer> ccNodes = getGLBCCNodes(cc);
-		// Retrieve neighbors of the nodes of CC that are outside the CC
-		for (int i : ccNodes) {
-			Set<Integer> outNeighbors = new HashSet<>();
+	private boolean removeOutEdges(int cc, int target) throws ContradictionException {
+		markGLBCC(cc);
+		boolean removed = false;
+		for (int i = GLBCCFinder.getCCFirstNode()[cc]; i >= 0; i = GLBCCFinder.getCCNextNode()[i]) {
+			int size = 0;
 			for (int j : g.getPotNeighOf(i)) {
-				if (!ccNodes.contains(j)) {
-					outNeighbors.add(j);
+				if (mark[j] != epoch && (target == -1 || (g.getMandatoryNodes().contains(j) && GLBCCFinder.getNodeCC()[j] == target))) {
+					buffer[size++] = j;
 				}
 			}
-			if (outNeighbors.size() > 0) {
-				ccPotentialNeighbors.put(i, outNeighbors);
+			for (int k = 0; k < size; k++) {
+				removed |= g.removeArc(i, buffer[k], this);
 			}
 		}
-		return ccPotentialNeighbors;
+		return removed;
 	}
 
 
@@ -10,10 +10,8 @@ import org.chocosolver.solver.variables.IntVar;
 import org.chocosolver.solver.variables.Variable;
 import org.chocosolver.util.ESat;
 
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Set;
+import java.util.Arrays;
+import java.util.BitSet;
 
 /**
  * Propagator ensuring that the number of vertices of the smallest connected is equal to sizeMinCC
@@ -28,6 +26,12 @@ public class PropSizeMinCC extends Propagator<Variable> {
 	private UndirectedGraphVar g;
 	private IntVar sizeMinCC;
 	private ConnectivityFinder GLBCCFinder, GUBCCFinder;
+	// GUB CCs containing at least one node in GLB
+	private BitSet mandatoryCCs;
+	// nodes of the GLB CC being processed are such that mark[i] == epoch
+	private int[] mark;
+	private int epoch;
+	private int[] buffer;
 
 	/* Constructor */
 
@@ -37,6 +41,9 @@ public class PropSizeMinCC extends Propagator<Variable> {
 		this.sizeMinCC = sizeMinCC;
 		this.GLBCCFinder = new ConnectivityFinder(g.getLB());
 		this.GUBCCFinder = new ConnectivityFinder(g.getUB());
+		this.mandatoryCCs = new BitSet(g.getNbMaxNodes());
+		this.mark = new int[g.getNbMaxNodes()];
+		this.buffer = new int[g.getNbMaxNodes()];
 	}
 
 	/* Methods */
@@ -67,11 +74,15 @@ public class PropSizeMinCC extends Propagator<Variable> {
 	/**
 	 * @param nbNodesT The number of T-vertices.
 	 * @return The upper bound of the graph variable MIN_NCC property.
-	 * Beware that this.GUBCCFinder.findAllCC() and this.GUBCCFinder.findCCSizes() must be called before.
+	 * Beware that this.GUBCCFinder.findAllCC() and this.findGUBMandatoryCCs() must be called before.
 	 */
 	private int getUBMinNCC(int nbNodesT) {
 		if (nbNodesT > 0) {
-			return getGUBMandatoryCCs().stream().mapToInt(cc -> GUBCCFinder.getSizeCC()[cc]).min().getAsInt();
+			int min = Integer.MAX_VALUE;
+			for (int cc = mandatoryCCs.nextSetBit(0); cc >= 0; cc = mandatoryCCs.nextSetBit(cc + 1)) {
+				min = Math.min(min, GUBCCFinder.getSizeCC()[cc]);
+			}
+			return min;
 		} else {
 			return this.GUBCCFinder.getSizeMaxCC();
 		}
@@ -82,6 +93,7 @@ public class PropSizeMinCC extends Propagator<Variable> {
 		// Find CCs and their sizes
 		this.GLBCCFinder.findAllCC();
 		this.GUBCCFinder.findAllCC();
+		findGUBMandatoryCCs();
 		// Compute |V_T|, |V_U| and |V_TU|
 		int nbNodesT = g.getMandatoryNodes().size();
 		int nbNodesTU = g.getPotentialNodes().size();
@@ -111,7 +123,7 @@ public class PropSizeMinCC extends Propagator<Variable> {
 			sizeMinCC.updateUpperBound(minNCC_UB, this);
 		}
 		// 7.
-		for (int cc : getGUBOptionalCCs()) {
+		for (int cc = mandatoryCCs.nextClearBit(0); cc < GUBCCFinder.getNBCC(); cc = mandatoryCCs.nextClearBit(cc + 1)) {
 			if (GUBCCFinder.getSizeCC()[cc] < sizeMinCC.getLB()) {
 				int i = GUBCCFinder.getCCFirstNode()[cc];
 				while (i != -1) {
@@ -122,10 +134,9 @@ public class PropSizeMinCC extends Propagator<Variable> {
 		}
 		// 8.
 		boolean recomputeMinNCC_LB = false;
-		Set<Integer> GUBMandatoryCCs = getGUBMandatoryCCs();
 		if (minNCC_LB < sizeMinCC.getLB()) {
 			// a
-			for (int cc : GUBMandatoryCCs) {
+			for (int cc = mandatoryCCs.nextSetBit(0); cc >= 0; cc = mandatoryCCs.nextSetBit(cc + 1)) {
 				if (GUBCCFinder.getSizeCC()[cc] == sizeMinCC.getLB()) {
 					int i = GUBCCFinder.getCCFirstNode()[cc];
 					while (i != -1) {
@@ -138,27 +149,35 @@ public class PropSizeMinCC extends Propagator<Variable> {
 			// b.
 			for (int cc = 0; cc < GLBCCFinder.getNBCC(); cc++) {
 				if (GLBCCFinder.getSizeCC()[cc] < sizeMinCC.getLB()) {
-					Map<Integer, Set<Integer>> ccPotentialNeighbors = getGLBCCPotentialNeighbors(cc);
-					if (ccPotentialNeighbors.size() == 1) {
-						int i = ccPotentialNeighbors.keySet().iterator().next();
-						Set<Integer> outNeighbors = ccPotentialNeighbors.get(i);
-						if (outNeighbors.size() == 1) {
-							int j = outNeighbors.iterator().next();
-							g.enforceNode(j, this);
-							g.enforceArc(i, j, this);
-							recomputeMinNCC_LB = true;
+					// frontier nodes of cc are nodes having potential neighbors outside cc
+					markGLBCC(cc);
+					int nbFrontierNodes = 0;
+					int frontierNode = -1;
+					int outNeighbor = -1;
+					boolean singleOutNeighbor = true;
+					for (int i = GLBCCFinder.getCCFirstNode()[cc]; i >= 0; i = GLBCCFinder.getCCNextNode()[i]) {
+						boolean frontier = false;
+						for (int j : g.getPotNeighOf(i)) {
+							if (mark[j] != epoch) {
+								frontier = true;
+								if (outNeighbor == -1) {
+									outNeighbor = j;
+								} else if (outNeighbor != j) {
+									singleOutNeighbor = false;
+								}
+							}
 						}
-					}
-					if (ccPotentialNeighbors.size() > 1) {
-						Set<Integer> outNeighbors = new HashSet<>();
-						for (Set<Integer> i : ccPotentialNeighbors.values()) {
-							outNeighbors.addAll(i);
+						if (frontier) {
+							nbFrontierNodes++;
+							frontierNode = i;
 						}
-						if (outNeighbors.size() == 1) {
-							int j = outNeighbors.iterator().next();
-							g.enforceNode(j, this);
-							recomputeMinNCC_LB = true;
+					}
+					if (nbFrontierNodes > 0 && singleOutNeighbor) {
+						g.enforceNode(outNeighbor, this);
+						if (nbFrontierNodes == 1) {
+							g.enforceArc(frontierNode, outNeighbor, this);
 						}
+						recomputeMinNCC_LB = true;
 					}
 				}
 			}
@@ -224,110 +243,59 @@ public class PropSizeMinCC extends Propagator<Variable> {
 		}
 		// 11.
 		if (nbCandidates == 1 && nbNodesU == 0) {
-			Map<Integer, Set<Integer>> ccNeighbors = getGLBCCPotentialNeighbors(candidate1);
-			for (int i : ccNeighbors.keySet()) {
-				for (int j : ccNeighbors.get(i)) {
-					g.removeArc(i, j, this);
-				}
-			}
+			removeOutEdges(candidate1, -1);
 		}
 		// 12.
 		if (nbCandidates == 2 && nbNodesU == 0 && (s1 + s2 > sizeMinCC.getUB())) {
-			Map<Integer, Set<Integer>> cc1Neighbors = getGLBCCPotentialNeighbors(candidate1);
-			for (int i : cc1Neighbors.keySet()) {
-				for (int j : cc1Neighbors.get(i)) {
-					if (GLBCCFinder.getNodeCC()[j] == candidate2) {
-						g.removeArc(i, j, this);
-					}
-				}
-			}
+			removeOutEdges(candidate1, candidate2);
 		}
 	}
 
 	/**
-	 * @return The indices of the mandatory GUB CCs (i.e. containing at least one node in GLB).
+	 * Computes the mandatory GUB CCs (i.e. containing at least one node in GLB).
+	 * The other GUB CCs are optional.
 	 */
-	private Set<Integer> getGUBMandatoryCCs() {
-		Set<Integer> mandatoryCCs = new HashSet<>();
-		for (int cc = 0; cc < this.GUBCCFinder.getNBCC(); cc++) {
-			int i = GUBCCFinder.getCCFirstNode()[cc];
-			while (i != -1) {
-				if (g.getLB().getNodes().contains(i)) {
-					mandatoryCCs.add(cc);
-					break;
-				}
-				i = GUBCCFinder.getCCNextNode()[i];
-			}
+	private void findGUBMandatoryCCs() {
+		mandatoryCCs.clear();
+		for (int i : g.getMandatoryNodes()) {
+			mandatoryCCs.set(GUBCCFinder.getNodeCC()[i]);
 		}
-		return mandatoryCCs;
 	}
 
 	/**
-	 * @return The indices of the optional GUB CCs (i.e. not containing any node in GLB).
-	 */
-	private Set<Integer> getGUBOptionalCCs() {
-		Set<Integer> optionalCCs = new HashSet<>();
-		for (int cc = 0; cc < this.GUBCCFinder.getNBCC(); cc++) {
-			int currentNode = GUBCCFinder.getCCFirstNode()[cc];
-			boolean addCC = true;
-			while (currentNode != -1) {
-				if (g.getLB().getNodes().contains(currentNode)) {
-					addCC = false;
-					break;
-				}
-				currentNode = GUBCCFinder.getCCNextNode()[currentNode];
-			}
-			if (addCC) {
-				optionalCCs.add(cc);
-			}
-		}
-		return optionalCCs;
-	}
-
-	/**
-	 * Retrieve the nodes of a GLB CC.
+	 * Marks the nodes of a GLB CC with a new epoch.
 	 *
 	 * @param cc The GLB CC index.
-	 * @return The set of nodes of the GLB CC cc.
 	 */
-	private Set<Integer> getGLBCCNodes(int cc) {
-		Set<Integer> ccNodes = new HashSet<>();
+	private void markGLBCC(int cc) {
+		if (++epoch == Integer.MAX_VALUE) {
+			Arrays.fill(mark, 0);
+			epoch = 1;
+		}
 		for (int i = GLBCCFinder.getCCFirstNode()[cc]; i >= 0; i = GLBCCFinder.getCCNextNode()[i]) {
-			ccNodes.add(i);
+			mark[i] = epoch;
 		}
-		return ccNodes;
 	}
 
 	/**
-	 * Retrieve the potential CC neighbors (i.e. in GUB and not in the CC) of a GLB CC.
+	 * Removes the potential edges linking a GLB CC to nodes outside of it.
 	 *
-	 * @param cc The GLB CC index.
-	 * @return A map with frontier nodes of the CC as keys (Integer), and their potential neighbors that are
-	 * outside the CC (Set<Integer>). Only the frontier nodes that have at least one potential neighbor outside the
-	 * CC are stored in the map.
-	 * {
-	 * frontierNode1: {out-CC potential neighbors},
-	 * frontierNode3: {...},
-	 * ...
-	 * }
+	 * @param cc     The GLB CC index.
+	 * @param target The GLB CC index of the other endpoints of removed edges, or -1 to remove every outgoing edge.
 	 */
-	private Map<Integer, Set<Integer>> getGLBCCPotentialNeighbors(int cc) {
-		Map<Integer, Set<Integer>> ccPotentialNeighbors = new HashMap<>();
-		// Retrieve all nodes of CC
-		Set<Integer> ccNodes = getGLBCCNodes(cc);
-		// Retrieve neighbors of the nodes of CC that are outside the CC
-		for (int i : ccNodes) {
-			Set<Integer> outNeighbors = new HashSet<>();
+	private void removeOutEdges(int cc, int target) throws ContradictionException {
+		markGLBCC(cc);
+		for (int i = GLBCCFinder.getCCFirstNode()[cc]; i >= 0; i = GLBCCFinder.getCCNextNode()[i]) {
+			int size = 0;
 			for (int j : g.getPotNeighOf(i)) {
-				if (!ccNodes.contains(j)) {
-					outNeighbors.add(j);
+				if (mark[j] != epoch && (target == -1 || (g.getMandatoryNodes().contains(j) && GLBCCFinder.getNodeCC()[j] == target))) {
+					buffer[size++] = j;
 				}
 			}
-			if (outNeighbors.size() > 0) {
-				ccPotentialNeighbors.put(i, outNeighbors);
+			for (int k = 0; k < size; k++) {
+				g.removeArc(i, buffer[k], this);
 			}
 		}
-		return ccPotentialNeighbors;
 	}
 
 	@Override
@@ -335,6 +303,7 @@ public class PropSizeMinCC extends Propagator<Variable> {
 		// Find CCs and their sizes
 		this.GLBCCFinder.findAllCC();
 		this.GUBCCFinder.findAllCC();
+		findGUBMandatoryCCs();
 		// Compute |V_T|, |V_U| and |V_TU|
 		int nbNodesT = g.getMandatoryNodes().size();
 		int nbNodesTU = g.getPotentialNodes().size();
@@ -0,0 +1,242 @@
+/**
+ * Copyright (c) 1999-2014, Ecole des Mines de Nantes
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * <p>
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the Ecole des Mines de Nantes nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE REGENTS AND CONTRIBUTORS ``AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE REGENTS AND CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.chocosolver.graphsolver.cstrs.connectivity;
+
+import org.chocosolver.graphsolver.variables.DirectedGraphVar;
+import org.chocosolver.graphsolver.variables.GraphEventType;
+import org.chocosolver.solver.constraints.Propagator;
+import org.chocosolver.solver.constraints.PropagatorPriority;
+import org.chocosolver.solver.exception.ContradictionException;
+import org.chocosolver.util.ESat;
+import org.chocosolver.util.graphOperations.dominance.AbstractLengauerTarjanDominatorsFinder;
+import org.chocosolver.util.graphOperations.dominance.AlphaDominatorsFinder;
+import org.chocosolver.util.objects.graphs.DirectedGraph;
+import org.chocosolver.util.objects.setDataStructures.ISet;
+import org.chocosolver.util.objects.setDataStructures.SetType;
+
+import java.util.BitSet;
+
+/**
+ * Propagator ensuring that the mandatory nodes of a directed graph variable are strongly connected, based on dominators
+ * <p/>
+ * Given a mandatory root r, every mandatory node must be reachable from r and must reach r:
+ * - potential nodes which are not reachable from r or which cannot reach r are removed,
+ * - dominators of mandatory nodes (from r in the upper bound, and from r in its reverse graph) are enforced,
+ * - arc-dominators of mandatory nodes, i.e. arcs used by every path from r (resp. to r), are enforced.
+ * <p/>
+ * Nothing is done until a mandatory node exists, so that it is meant to be used together with PropNbSCC
+ */
+public class PropStronglyConnected extends Propagator<DirectedGraphVar> {
+
+	//***********************************************************************************
+	// VARIABLES
+	//***********************************************************************************
+
+	private final DirectedGraphVar g;
+	private final int n;
+	// flow graph over n+1 nodes, node n being linked to the root and to non-potential nodes (in both directions)
+	private final DirectedGraph connectedGraph;
+	private final AbstractLengauerTarjanDominatorsFinder domFinder;
+	private final BitSet forward, backward, mandVert;
+	private final int[] fifo;
+
+	//***********************************************************************************
+	// CONSTRUCTORS
+	//***********************************************************************************
+
+	public PropStronglyConnected(DirectedGraphVar graph) {
+		super(new DirectedGraphVar[]{graph}, PropagatorPriority.QUADRATIC, false);
+		this.g = graph;
+		this.n = g.getNbMaxNodes();
+		this.connectedGraph = new DirectedGraph(n + 1, SetType.BITSET, true);
+		this.domFinder = new AlphaDominatorsFinder(n, connectedGraph);
+		this.forward = new BitSet(n);
+		this.backward = new BitSet(n);
+		this.mandVert = new BitSet(n);
+		this.fifo = new int[n];
+	}
+
+	//***********************************************************************************
+	// PROPAGATIONS
+	//***********************************************************************************
+
+	@Override
+	public void propagate(int evtmask) throws ContradictionException {
+		if (g.getMandatoryNodes().isEmpty()) {
+			return;
+		}
+		int root = g.getMandatoryNodes().min();
+		// remove nodes that cannot be in the SCC of the root
+		explore(root, false, true, forward);
+		explore(root, false, false, backward);
+		forward.and(backward);
+		mandVert.clear();
+		for (int i : g.getPotentialNodes()) {
+			if (!forward.get(i)) {
+				mandVert.set(i);
+			}
+		}
+		g.removeNodes(mandVert, this);
+		// dominators from the root, then to the root
+		reset(root);
+		if (!domFinder.findDominators()) {
+			fails();
+		}
+		enforceDominators(false);
+		reset(root);
+		if (!domFinder.findPostDominators()) {
+			fails();
+		}
+		enforceDominators(true);
+	}
+
+	private void reset(int root) {
+		for (int i = 0; i < n + 1; i++) {
+			connectedGraph.getSuccOf(i).clear();
+			connectedGraph.getPredOf(i).clear();
+		}
+		ISet nodes = g.getPotentialNodes();
+		for (int i = 0; i < n; i++) {
+			if (nodes.contains(i)) {
+				for (int j : g.getPotSuccOf(i)) {
+					connectedGraph.addArc(i, j);
+				}
+			} else {
+				connectedGraph.addArc(n, i);
+				connectedGraph.addArc(i, n);
+			}
+		}
+		connectedGraph.addArc(n, root);
+		connectedGraph.addArc(root, n);
+	}
+
+	/**
+	 * Enforces the dominators and arc-dominators of mandatory nodes
+	 *
+	 * @param reverse true iff the dominators have been computed on the reverse graph
+	 */
+	private void enforceDominators(boolean reverse) throws ContradictionException {
+		mandVert.clear();
+		for (int x : g.getMandatoryNodes()) {
+			mandVert.set(x);
+		}
+		for (int j = mandVert.nextSetBit(0); j >= 0; j = mandVert.nextSetBit(0)) {
+			mandVert.clear(j);
+			int i = domFinder.getImmediateDominatorsOf(j);
+			if (i != n) {
+				// DOMINATOR enforcing
+				if (g.enforceNode(i, this)) {
+					mandVert.set(i);
+				}
+				// ARC-DOMINATOR enforcing: every path from the root enters j through i
+				ISet pred = reverse ? g.getPotSuccOf(j) : g.getPotPredOf(j);
+				if (pred.contains(i)) {
+					boolean arcDom = true;
+					for (int p : pred) {
+						if (p != i && p != j && !domFinder.isDomminatedBy(p, j)) {
+							arcDom = false;
+							break;
+						}
+					}
+					if (arcDom) {
+						if (reverse) {
+							g.enforceArc(j, i, this);
+						} else {
+							g.enforceArc(i, j, this);
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Breadth-first search from root
+	 *
+	 * @param root    a node
+	 * @param lb      true to explore the lower bound graph, false for the upper bound graph
+	 * @param succ    true to follow successors, false to follow predecessors
+	 * @param visited output set of visited nodes
+	 */
+	private void explore(int root, boolean lb, boolean succ, BitSet visited) {
+		visited.clear();
+		int first = 0;
+		int last = 0;
+		fifo[last++] = root;
+		visited.set(root);
+		while (first < last) {
+			int i = fifo[first++];
+			ISet next = lb ? (succ ? g.getMandSuccOf(i) : g.getMandPredOf(i)) : (succ ? g.getPotSuccOf(i) : g.getPotPredOf(i));
+			for (int j : next) {
+				if (!visited.get(j)) {
+					visited.set(j);
+					fifo[last++] = j;
+				}
+			}
+		}
+	}
+
+	//***********************************************************************************
+	// INFO
+	//***********************************************************************************
+
+	@Override
+	public int getPropagationConditions(int vIdx) {
+		return GraphEventType.REMOVE_NODE.getMask() + GraphEventType.REMOVE_ARC.getMask() + GraphEventType.ADD_NODE.getMask();
+	}
+
+	@Override
+	public ESat isEntailed() {
+		if (g.getMandatoryNodes().isEmpty()) {
+			return ESat.UNDEFINED;
+		}
+		if (!isStronglyConnected(false)) {
+			return ESat.FALSE;
+		}
+		if (isCompletelyInstantiated() && isStronglyConnected(true)) {
+			return ESat.TRUE;
+		}
+		return ESat.UNDEFINED;
+	}
+
+	/**
+	 * @param lb true to consider the lower bound graph, false for the upper bound graph
+	 * @return true iff every mandatory node reaches and is reachable from the first mandatory node
+	 */
+	private boolean isStronglyConnected(boolean lb) {
+		int root = g.getMandatoryNodes().min();
+		explore(root, lb, true, forward);
+		explore(root, lb, false, backward);
+		for (int i : g.getMandatoryNodes()) {
+			if (!forward.get(i) || !backward.get(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
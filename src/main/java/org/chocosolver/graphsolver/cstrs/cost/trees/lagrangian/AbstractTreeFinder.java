@@ -29,10 +29,16 @@ package org.chocosolver.graphsolver.cstrs.cost.trees.lagrangian;
 
 import org.chocosolver.graphsolver.cstrs.cost.GraphLagrangianRelaxation;
 import org.chocosolver.solver.exception.ContradictionException;
+import org.chocosolver.util.objects.graphs.IGraph;
 import org.chocosolver.util.objects.graphs.UndirectedGraph;
 import org.chocosolver.util.objects.setDataStructures.SetType;
 
-public abstract class AbstractTreeFinder {
+/**
+ * Computes a tree-like relaxation (spanning tree, 1-tree, 1-arborescence...) of a graph
+ *
+ * @param <G> type of graph in which the tree is searched
+ */
+public abstract class AbstractTreeFinder<G extends IGraph> {
 
 	//***********************************************************************************
 	// VARIABLES
@@ -40,10 +46,10 @@ public abstract class AbstractTreeFinder {
 
 	protected final static boolean FILTER = false;
 	// INPUT
-	protected UndirectedGraph g;    // graph
+	protected G g;                  // graph
 	protected int n;                // number of nodes
 	// OUTPUT
-	protected UndirectedGraph Tree;
+	protected G Tree;
 	protected double treeCost;
 	// PROPAGATOR
 	protected GraphLagrangianRelaxation propHK;
@@ -52,17 +58,24 @@ public abstract class AbstractTreeFinder {
 	// CONSTRUCTORS
 	//***********************************************************************************
 
-	public AbstractTreeFinder(int nbNodes, GraphLagrangianRelaxation propagator) {
+	public AbstractTreeFinder(int nbNodes, GraphLagrangianRelaxation propagator, G tree) {
 		n = nbNodes;
-		Tree = new UndirectedGraph(n, SetType.LINKED_LIST, false);
+		Tree = tree;
 		propHK = propagator;
 	}
 
+	/**
+	 * @return an empty undirected graph of n nodes, in which a tree can be stored
+	 */
+	protected static UndirectedGraph makeUndirectedTree(int n) {
+		return new UndirectedGraph(n, SetType.LINKED_LIST, false);
+	}
+
 	//***********************************************************************************
 	// METHODS
 	//***********************************************************************************
 
-	public abstract void computeMST(double[][] costMatrix, UndirectedGraph graph) throws ContradictionException;
+	public abstract void computeMST(double[][] costMatrix, G graph) throws ContradictionException;
 
 	public abstract void performPruning(double UB) throws ContradictionException;
 
@@ -70,7 +83,7 @@ public abstract class AbstractTreeFinder {
 	// ACCESSORS
 	//***********************************************************************************
 
-	public UndirectedGraph getMST() {
+	public G getMST() {
 		return Tree;
 	}
 
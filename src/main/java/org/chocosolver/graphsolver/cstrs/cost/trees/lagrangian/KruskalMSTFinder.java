@@ -40,7 +40,7 @@ import org.chocosolver.util.sort.IntComparator;
 
 import java.util.BitSet;
 
-public class KruskalMSTFinder extends AbstractTreeFinder {
+public class KruskalMSTFinder extends AbstractTreeFinder<UndirectedGraph> {
 
 	//***********************************************************************************
 	// VARIABLES
@@ -74,7 +74,7 @@ public class KruskalMSTFinder extends AbstractTreeFinder {
 	//***********************************************************************************
 
 	public KruskalMSTFinder(int nbNodes, GraphLagrangianRelaxation propagator) {
-		super(nbNodes, propagator);
+		super(nbNodes, propagator, makeUndirectedTree(nbNodes));
 		activeArcs = new BitSet(n * n);
 		rank = new int[n];
 		costs = new double[n * n];
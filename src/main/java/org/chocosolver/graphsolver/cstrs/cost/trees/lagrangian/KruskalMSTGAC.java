@@ -40,7 +40,7 @@ import org.chocosolver.util.sort.IntComparator;
 
 import java.util.BitSet;
 
-public class KruskalMSTGAC extends AbstractTreeFinder {
+public class KruskalMSTGAC extends AbstractTreeFinder<UndirectedGraph> {
 
 	//***********************************************************************************
 	// VARIABLES
@@ -75,7 +75,7 @@ public class KruskalMSTGAC extends AbstractTreeFinder {
 	//***********************************************************************************
 
 	public KruskalMSTGAC(int nbNodes, GraphLagrangianRelaxation propagator) {
-		super(nbNodes, propagator);
+		super(nbNodes, propagator, makeUndirectedTree(nbNodes));
 		activeArcs = new BitSet(n * n);
 		rank = new int[n];
 		costs = new double[n * n];
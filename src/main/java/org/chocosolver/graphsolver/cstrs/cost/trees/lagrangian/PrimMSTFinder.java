@@ -36,7 +36,7 @@ import org.chocosolver.util.objects.setDataStructures.ISet;
 
 import java.util.BitSet;
 
-public class PrimMSTFinder extends AbstractTreeFinder {
+public class PrimMSTFinder extends AbstractTreeFinder<UndirectedGraph> {
 
 	//***********************************************************************************
 	// VARIABLES
@@ -55,7 +55,7 @@ public class PrimMSTFinder extends AbstractTreeFinder {
 	//***********************************************************************************
 
 	public PrimMSTFinder(int nbNodes, GraphLagrangianRelaxation propagator) {
-		super(nbNodes, propagator);
+		super(nbNodes, propagator, makeUndirectedTree(nbNodes));
 		heap = new FastSimpleHeap(nbNodes);
 //		heap = new FastArrayHeap(nbNodes);
 		inTree = new BitSet(n);
@@ -56,7 +56,7 @@ public class PropGenericLagrDCMST extends Propagator<Variable> implements GraphL
 	private final double[][] costs;
 	private UndirectedGraph mst;
 	private final TIntArrayList mandatoryArcsList;
-	private final AbstractTreeFinder HKfilter, HK;
+	private final AbstractTreeFinder<UndirectedGraph> HKfilter, HK;
 	private boolean waitFirstSol;
 	private int nbSprints;
 	private final IntVar[] D;
@@ -60,7 +60,7 @@ public class PropLagrDCMST extends Propagator<Variable> implements GraphLagrangi
 	private double totalPenalities;
 	private UndirectedGraph mst;
 	private final TIntArrayList mandatoryArcsList;
-	private final AbstractTreeFinder HKfilter, HK;
+	private final AbstractTreeFinder<UndirectedGraph> HKfilter, HK;
 	private boolean waitFirstSol;
 	private int nbSprints;
 	private final int[] maxDegree;
@@ -0,0 +1,335 @@
+/**
+ * Copyright (c) 1999-2014, Ecole des Mines de Nantes
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * <p>
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the Ecole des Mines de Nantes nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE REGENTS AND CONTRIBUTORS ``AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE REGENTS AND CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.graphsolver.cstrs.cost.tsp;
+
+import org.chocosolver.graphsolver.cstrs.cost.IArcCost;
+import org.chocosolver.graphsolver.variables.DirectedGraphVar;
+import org.chocosolver.graphsolver.variables.GraphEventType;
+import org.chocosolver.solver.constraints.Propagator;
+import org.chocosolver.solver.constraints.PropagatorPriority;
+import org.chocosolver.solver.exception.ContradictionException;
+import org.chocosolver.solver.variables.IntVar;
+import org.chocosolver.solver.variables.Variable;
+import org.chocosolver.solver.variables.events.IntEventType;
+import org.chocosolver.util.ESat;
+import org.chocosolver.util.objects.setDataStructures.ISet;
+import org.chocosolver.util.objects.setDataStructures.ISetIterator;
+
+import java.util.Arrays;
+
+/**
+ * Lower bound of the cost of a circuit, given by the assignment relaxation
+ * (every node has exactly one successor, subtours are allowed)
+ * - For minimization problem
+ * <p/>
+ * A node which is not mandatory may be assigned to itself at no cost, meaning that it does not belong to the circuit,
+ * so the relaxation also holds for subcircuits.
+ * <p/>
+ * The optimal assignment and the dual values of the Hungarian algorithm are kept from one call to another
+ * (they are not restored upon backtrack): rows whose assigned arc disappeared, or whose dual value is no longer
+ * feasible, are unassigned and then repaired with one shortest augmenting path each, in O(n²).
+ * Arcs whose reduced cost exceeds the gap between the upper bound of the objective and the assignment cost are removed.
+ */
+public class PropCircuitCostAssignment extends Propagator<Variable> {
+
+	//***********************************************************************************
+	// VARIABLES
+	//***********************************************************************************
+
+	private static final long INF = Long.MAX_VALUE / 4;
+
+	private final DirectedGraphVar g;
+	private final IntVar obj;
+	private final IArcCost costs;
+	private final int n;
+	// assignment: column assigned to each row, row assigned to each column (p[n] is the row being inserted)
+	private final int[] succ, p;
+	// dual values of rows and columns
+	private final long[] u, v;
+	// mandatory successor and predecessor of each node (-1 if none)
+	private final int[] forcedSucc, forcedPred;
+	// shortest augmenting paths
+	private final long[] minv;
+	private final int[] way;
+	private final boolean[] used;
+	private final int[] toRemove;
+	private long assignmentCost;
+
+	//***********************************************************************************
+	// CONSTRUCTORS
+	//***********************************************************************************
+
+	/**
+	 * @param graph a directed graph variable
+	 * @param obj   the cost of the circuit formed by graph
+	 * @param costs cost of each arc
+	 */
+	public PropCircuitCostAssignment(DirectedGraphVar graph, IntVar obj, IArcCost costs) {
+		super(new Variable[]{graph, obj}, PropagatorPriority.CUBIC, false);
+		this.g = graph;
+		this.obj = obj;
+		this.costs = costs;
+		this.n = g.getNbMaxNodes();
+		this.succ = new int[n];
+		this.p = new int[n + 1];
+		this.u = new long[n];
+		this.v = new long[n + 1];
+		this.forcedSucc = new int[n];
+		this.forcedPred = new int[n];
+		this.minv = new long[n + 1];
+		this.way = new int[n + 1];
+		this.used = new boolean[n + 1];
+		this.toRemove = new int[n];
+		Arrays.fill(succ, -1);
+		Arrays.fill(p, -1);
+	}
+
+	//***********************************************************************************
+	// METHODS
+	//***********************************************************************************
+
+	@Override
+	public int getPropagationConditions(int vIdx) {
+		if (vIdx == 0) {
+			return GraphEventType.REMOVE_ARC.getMask() + GraphEventType.ADD_ARC.getMask()
+					+ GraphEventType.ADD_NODE.getMask() + GraphEventType.REMOVE_NODE.getMask();
+		} else {
+			return IntEventType.boundAndInst();
+		}
+	}
+
+	@Override
+	public void propagate(int evtmask) throws ContradictionException {
+		computeForcedArcs();
+		repair();
+		for (int i = 0; i < n; i++) {
+			if (succ[i] == -1) {
+				augment(i);
+			}
+		}
+		assignmentCost = 0;
+		for (int i = 0; i < n; i++) {
+			if (succ[i] != i) {
+				assignmentCost += costs.getCost(i, succ[i]);
+			}
+		}
+		obj.updateLowerBound((int) Math.min(assignmentCost, Integer.MAX_VALUE), this);
+		if (g.isInstantiated()) {
+			obj.updateUpperBound((int) Math.min(assignmentCost, Integer.MAX_VALUE), this);
+		}
+		filter(obj.getUB() - assignmentCost);
+	}
+
+	private void computeForcedArcs() throws ContradictionException {
+		Arrays.fill(forcedPred, -1);
+		for (int i = 0; i < n; i++) {
+			ISet mandSucc = g.getMandSuccOf(i);
+			if (mandSucc.size() > 1) {
+				fails();
+			}
+			forcedSucc[i] = mandSucc.isEmpty() ? -1 : mandSucc.min();
+			if (forcedSucc[i] != -1) {
+				if (forcedPred[forcedSucc[i]] != -1) {
+					fails();
+				}
+				forcedPred[forcedSucc[i]] = i;
+			}
+		}
+	}
+
+	/**
+	 * @return true iff node i may be assigned to node j in the relaxation
+	 */
+	private boolean isAllowed(int i, int j) {
+		if (i == j) {
+			return !g.getMandatoryNodes().contains(i);
+		}
+		return g.getPotSuccOf(i).contains(j)
+				&& (forcedSucc[i] == -1 || forcedSucc[i] == j)
+				&& (forcedPred[j] == -1 || forcedPred[j] == i);
+	}
+
+	/**
+	 * Restores dual feasibility and complementary slackness by unassigning rows
+	 */
+	private void repair() throws ContradictionException {
+		for (int i = 0; i < n; i++) {
+			if (succ[i] != -1 && !isAllowed(i, succ[i])) {
+				unassign(i);
+			}
+			long minRc = INF;
+			if (isAllowed(i, i)) {
+				minRc = reducedCost(i, i);
+			}
+			if (forcedSucc[i] != -1) {
+				if (isAllowed(i, forcedSucc[i])) {
+					minRc = Math.min(minRc, reducedCost(i, forcedSucc[i]));
+				}
+			} else {
+				ISetIterator iter = g.getPotSuccOf(i).iterator();
+				while (iter.hasNext()) {
+					int j = iter.nextInt();
+					if (j != i && forcedPred[j] == -1) {
+						minRc = Math.min(minRc, reducedCost(i, j));
+					}
+				}
+			}
+			if (minRc == INF) {
+				fails(); // no successor
+			}
+			if (minRc < 0) {
+				u[i] += minRc;
+				if (succ[i] != -1) {
+					unassign(i);
+				}
+			}
+		}
+	}
+
+	private void unassign(int i) {
+		p[succ[i]] = -1;
+		succ[i] = -1;
+	}
+
+	private long reducedCost(int i, int j) {
+		long c = (i == j) ? 0 : costs.getCost(i, j);
+		return c - u[i] - v[j];
+	}
+
+	/**
+	 * Assigns the free row i through a shortest augmenting path in reduced costs (Hungarian algorithm)
+	 */
+	private void augment(int i) throws ContradictionException {
+		p[n] = i;
+		int j0 = n;
+		Arrays.fill(minv, INF);
+		Arrays.fill(used, false);
+		do {
+			used[j0] = true;
+			int i0 = p[j0];
+			if (forcedSucc[i0] != -1) {
+				relax(i0, forcedSucc[i0], j0);
+			} else {
+				if (isAllowed(i0, i0)) {
+					relax(i0, i0, j0);
+				}
+				ISetIterator iter = g.getPotSuccOf(i0).iterator();
+				while (iter.hasNext()) {
+					int j = iter.nextInt();
+					if (j != i0 && forcedPred[j] == -1) {
+						relax(i0, j, j0);
+					}
+				}
+			}
+			long delta = INF;
+			int j1 = -1;
+			for (int j = 0; j < n; j++) {
+				if (!used[j] && minv[j] < delta) {
+					delta = minv[j];
+					j1 = j;
+				}
+			}
+			if (j1 == -1) {
+				fails(); // no perfect assignment
+			}
+			for (int j = 0; j <= n; j++) {
+				if (used[j]) {
+					u[p[j]] += delta;
+					v[j] -= delta;
+				} else if (minv[j] != INF) {
+					minv[j] -= delta;
+				}
+			}
+			j0 = j1;
+		} while (p[j0] != -1);
+		// flip the augmenting path
+		do {
+			int j1 = way[j0];
+			p[j0] = p[j1];
+			succ[p[j0]] = j0;
+			j0 = j1;
+		} while (j0 != n);
+		p[n] = -1;
+	}
+
+	private void relax(int i0, int j, int j0) {
+		if (!used[j]) {
+			long cur = reducedCost(i0, j);
+			if (cur < minv[j]) {
+				minv[j] = cur;
+				way[j] = j0;
+			}
+		}
+	}
+
+	/**
+	 * Removes arcs whose reduced cost is greater than the gap,
+	 * and enforces nodes whose self assignment has a reduced cost greater than the gap
+	 */
+	private void filter(long gap) throws ContradictionException {
+		for (int i = 0; i < n; i++) {
+			if (succ[i] != i && isAllowed(i, i) && reducedCost(i, i) > gap) {
+				g.enforceNode(i, this);
+			}
+			if (forcedSucc[i] != -1) {
+				continue;
+			}
+			int nb = 0;
+			ISetIterator iter = g.getPotSuccOf(i).iterator();
+			while (iter.hasNext()) {
+				int j = iter.nextInt();
+				if (j != succ[i] && j != i && forcedPred[j] == -1 && reducedCost(i, j) > gap) {
+					toRemove[nb++] = j;
+				}
+			}
+			for (int k = 0; k < nb; k++) {
+				g.removeArc(i, toRemove[k], this);
+			}
+		}
+	}
+
+	@Override
+	public ESat isEntailed() {
+		if (!g.isInstantiated()) {
+			return ESat.UNDEFINED;
+		}
+		long cost = 0;
+		for (int i = 0; i < n; i++) {
+			ISetIterator iter = g.getMandSuccOf(i).iterator();
+			while (iter.hasNext()) {
+				cost += costs.getCost(i, iter.nextInt());
+			}
+		}
+		if (cost < obj.getLB() || cost > obj.getUB()) {
+			return ESat.FALSE;
+		}
+		if (obj.isInstantiated()) {
+			return ESat.TRUE;
+		}
+		return ESat.UNDEFINED;
+	}
+}
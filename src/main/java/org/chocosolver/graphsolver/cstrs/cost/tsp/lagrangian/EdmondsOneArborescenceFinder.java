@@ -0,0 +1,358 @@
+/**
+ * Copyright (c) 1999-2014, Ecole des Mines de Nantes
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * <p>
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the Ecole des Mines de Nantes nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE REGENTS AND CONTRIBUTORS ``AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE REGENTS AND CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.graphsolver.cstrs.cost.tsp.lagrangian;
+
+import gnu.trove.list.array.TIntArrayList;
+import org.chocosolver.graphsolver.cstrs.cost.GraphLagrangianRelaxation;
+import org.chocosolver.graphsolver.cstrs.cost.trees.lagrangian.AbstractTreeFinder;
+import org.chocosolver.solver.exception.ContradictionException;
+import org.chocosolver.util.objects.graphs.DirectedGraph;
+import org.chocosolver.util.objects.setDataStructures.ISetIterator;
+import org.chocosolver.util.objects.setDataStructures.SetType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Minimum cost 1-arborescence: a spanning arborescence rooted at node 0 (Chu-Liu/Edmonds algorithm)
+ * plus the cheapest arc entering node 0. Every node thus has exactly one predecessor.
+ * <p/>
+ * Edmonds' algorithm also provides the optimal dual solution of the arborescence LP,
+ * hence a reduced cost rc(i,j) >= 0 for every arc: any arborescence containing (i,j) costs at least
+ * the minimum arborescence plus rc(i,j). Reduced costs are used as marginal costs for the filtering.
+ * Runs in O(n.m)
+ */
+public class EdmondsOneArborescenceFinder extends AbstractTreeFinder<DirectedGraph> {
+
+	//***********************************************************************************
+	// VARIABLES
+	//***********************************************************************************
+
+	private static final double INF = Double.MAX_VALUE;
+
+	private double[][] distMatrix;
+	// reduced costs
+	private final double[][] rc;
+	// mandatory successor and predecessor of each node (-1 if none)
+	private final int[] forcedSucc, forcedPred;
+	// arcs of the current level: original arc (i*n+j), endpoints at the current level and reduced cost
+	private final int[] arcs, arcFrom, arcTo;
+	private final double[] arcCost;
+	private int nbArcs;
+	// contraction levels: level node of each original node, chosen entering arc and upper node of each level node
+	private final List<int[]> levelOf, inArcs, ups;
+	private final List<boolean[]> isCycle;
+	private final double[] inCost;
+	private final int[] visit, sel, newSel;
+	private int min1;
+
+	//***********************************************************************************
+	// CONSTRUCTORS
+	//***********************************************************************************
+
+	public EdmondsOneArborescenceFinder(int nbNodes, GraphLagrangianRelaxation propagator) {
+		super(nbNodes, propagator, new DirectedGraph(nbNodes, SetType.LINKED_LIST, false));
+		rc = new double[n][n];
+		forcedSucc = new int[n];
+		forcedPred = new int[n];
+		arcs = new int[n * n];
+		arcFrom = new int[n * n];
+		arcTo = new int[n * n];
+		arcCost = new double[n * n];
+		levelOf = new ArrayList<>();
+		inArcs = new ArrayList<>();
+		ups = new ArrayList<>();
+		isCycle = new ArrayList<>();
+		inCost = new double[n];
+		visit = new int[n];
+		sel = new int[n];
+		newSel = new int[n];
+	}
+
+	//***********************************************************************************
+	// METHODS
+	//***********************************************************************************
+
+	@Override
+	public void computeMST(double[][] costs, DirectedGraph graph) throws ContradictionException {
+		g = graph;
+		distMatrix = costs;
+		for (int i = 0; i < n; i++) {
+			Tree.getSuccOf(i).clear();
+			Tree.getPredOf(i).clear();
+			Tree.addNode(i);
+		}
+		computeForcedArcs();
+		collectArcs();
+		int nbLevels = contract();
+		expand(nbLevels);
+		addRootArc();
+		treeCost = 0;
+		for (int j = 0; j < n; j++) {
+			int i = Tree.getPredOf(j).min();
+			treeCost += distMatrix[i][j];
+		}
+	}
+
+	private void computeForcedArcs() throws ContradictionException {
+		Arrays.fill(forcedSucc, -1);
+		Arrays.fill(forcedPred, -1);
+		TIntArrayList ma = propHK.getMandatoryArcsList();
+		for (int k = ma.size() - 1; k >= 0; k--) {
+			int i = ma.get(k) / n;
+			int j = ma.get(k) % n;
+			if (forcedSucc[i] != -1 || forcedPred[j] != -1) {
+				propHK.contradiction();
+			}
+			forcedSucc[i] = j;
+			forcedPred[j] = i;
+		}
+	}
+
+	/**
+	 * @return true iff (i,j) may belong to a circuit satisfying mandatory arcs
+	 */
+	private boolean isAllowed(int i, int j) {
+		return i != j && (forcedSucc[i] == -1 || forcedSucc[i] == j) && (forcedPred[j] == -1 || forcedPred[j] == i);
+	}
+
+	private void collectArcs() {
+		nbArcs = 0;
+		for (int i = 0; i < n; i++) {
+			ISetIterator iter = g.getSuccOf(i).iterator();
+			while (iter.hasNext()) {
+				int j = iter.nextInt();
+				if (j != 0 && isAllowed(i, j)) {
+					arcs[nbArcs] = i * n + j;
+					arcFrom[nbArcs] = i;
+					arcTo[nbArcs] = j;
+					arcCost[nbArcs] = distMatrix[i][j];
+					nbArcs++;
+				}
+			}
+		}
+	}
+
+	private int[] level(List<int[]> list, int l) {
+		while (list.size() <= l) {
+			list.add(new int[n]);
+		}
+		return list.get(l);
+	}
+
+	/**
+	 * Selects the cheapest entering arc of every node and contracts the cycles they form, until there is none
+	 *
+	 * @return the index of the last level
+	 */
+	private int contract() throws ContradictionException {
+		int[] of = level(levelOf, 0);
+		for (int i = 0; i < n; i++) {
+			of[i] = i;
+		}
+		int nbNodes = n;
+		int root = 0;
+		int l = 0;
+		while (true) {
+			int[] in = level(inArcs, l);
+			int[] up = level(ups, l);
+			Arrays.fill(inCost, 0, nbNodes, INF);
+			for (int k = 0; k < nbArcs; k++) {
+				int v = arcTo[k];
+				if (arcCost[k] < inCost[v]) {
+					inCost[v] = arcCost[k];
+					in[v] = k;
+				}
+			}
+			for (int v = 0; v < nbNodes; v++) {
+				if (v != root && inCost[v] == INF) {
+					propHK.contradiction(); // v cannot be reached from the root
+				}
+			}
+			// dual values: reduce costs of entering arcs, translate selected arcs into original arcs
+			for (int k = 0; k < nbArcs; k++) {
+				arcCost[k] -= inCost[arcTo[k]];
+				rc[arcs[k] / n][arcs[k] % n] = arcCost[k];
+			}
+			for (int v = 0; v < nbNodes; v++) {
+				if (v != root) {
+					in[v] = arcs[in[v]];
+				}
+			}
+			// cycle detection
+			int nbUp = 0;
+			Arrays.fill(up, 0, nbNodes, -1);
+			Arrays.fill(visit, 0, nbNodes, -1);
+			while (isCycle.size() <= l + 1) {
+				isCycle.add(new boolean[n]);
+			}
+			boolean[] cycle = isCycle.get(l + 1);
+			Arrays.fill(cycle, false);
+			up[root] = nbUp++;
+			for (int x = 0; x < nbNodes; x++) {
+				int v = x;
+				while (v != root && up[v] == -1 && visit[v] != x) {
+					visit[v] = x;
+					v = of[in[v] / n];
+				}
+				if (v != root && up[v] == -1) {
+					// v is on a new cycle
+					cycle[nbUp] = true;
+					int w = v;
+					do {
+						up[w] = nbUp;
+						w = of[in[w] / n];
+					} while (w != v);
+					nbUp++;
+				}
+			}
+			if (nbUp == 1) {
+				return l;
+			}
+			for (int v = 0; v < nbNodes; v++) {
+				if (up[v] == -1) {
+					up[v] = nbUp++;
+				}
+			}
+			// next level
+			int[] nextOf = level(levelOf, l + 1);
+			for (int i = 0; i < n; i++) {
+				nextOf[i] = up[of[i]];
+			}
+			int nb = 0;
+			for (int k = 0; k < nbArcs; k++) {
+				int u = up[arcFrom[k]];
+				int v = up[arcTo[k]];
+				if (u != v) {
+					arcs[nb] = arcs[k];
+					arcFrom[nb] = u;
+					arcTo[nb] = v;
+					arcCost[nb] = arcCost[k];
+					nb++;
+				}
+			}
+			nbArcs = nb;
+			nbNodes = nbUp;
+			root = up[root];
+			of = nextOf;
+			l++;
+		}
+	}
+
+	/**
+	 * Expands contracted cycles: the arc entering a cycle replaces the cycle arc entering the same node
+	 */
+	private void expand(int last) {
+		System.arraycopy(inArcs.get(last), 0, sel, 0, n);
+		for (int l = last - 1; l >= 0; l--) {
+			int[] lOf = levelOf.get(l);
+			int[] up = ups.get(l);
+			int[] in = inArcs.get(l);
+			boolean[] cycle = isCycle.get(l + 1);
+			int lRoot = lOf[0];
+			Arrays.fill(newSel, -1);
+			for (int i = 0; i < n; i++) {
+				int y = lOf[i];
+				if (y == lRoot || newSel[y] != -1) {
+					continue;
+				}
+				int x = up[y];
+				int s = sel[x];
+				if (cycle[x] && lOf[s % n] != y) {
+					newSel[y] = in[y];
+				} else {
+					newSel[y] = s;
+				}
+			}
+			System.arraycopy(newSel, 0, sel, 0, n);
+		}
+		for (int j = 1; j < n; j++) {
+			Tree.addArc(sel[j] / n, j);
+		}
+	}
+
+	private void addRootArc() throws ContradictionException {
+		min1 = -1;
+		ISetIterator iter = g.getPredOf(0).iterator();
+		while (iter.hasNext()) {
+			int i = iter.nextInt();
+			if (isAllowed(i, 0) && (min1 == -1 || distMatrix[i][0] < distMatrix[min1][0])) {
+				min1 = i;
+			}
+		}
+		if (min1 == -1) {
+			propHK.contradiction();
+		}
+		Tree.addArc(min1, 0);
+	}
+
+	/**
+	 * Removes arcs whose marginal cost exceeds UB - treeCost,
+	 * and enforces tree arcs whose every alternative exceeds it
+	 *
+	 * @param UB upper bound of the (penalized) cost
+	 */
+	@Override
+	public void performPruning(double UB) throws ContradictionException {
+		double delta = UB - treeCost;
+		if (delta < 0) {
+			throw new UnsupportedOperationException("mst>ub");
+		}
+		for (int j = 0; j < n; j++) {
+			int p = Tree.getPredOf(j).min();
+			double minMarginal = INF;
+			int nb = 0;
+			ISetIterator iter = g.getPredOf(j).iterator();
+			while (iter.hasNext()) {
+				int i = iter.nextInt();
+				if (i != p && isAllowed(i, j)) {
+					double marginal = getRepCost(i, j);
+					if (marginal > delta) {
+						visit[nb++] = i;
+					} else {
+						minMarginal = Math.min(minMarginal, marginal);
+					}
+				}
+			}
+			for (int k = 0; k < nb; k++) {
+				propHK.remove(visit[k], j);
+			}
+			if (minMarginal > delta) {
+				propHK.enforce(p, j);
+			}
+		}
+	}
+
+	@Override
+	public double getRepCost(int from, int to) {
+		if (to == 0) {
+			return distMatrix[from][0] - distMatrix[min1][0];
+		}
+		return rc[from][to];
+	}
+}
@@ -0,0 +1,271 @@
+/**
+ * Copyright (c) 1999-2014, Ecole des Mines de Nantes
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * <p>
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the Ecole des Mines de Nantes nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE REGENTS AND CONTRIBUTORS ``AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE REGENTS AND CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.graphsolver.cstrs.cost.tsp.lagrangian;
+
+import gnu.trove.list.array.TIntArrayList;
+import org.chocosolver.graphsolver.cstrs.cost.GraphLagrangianRelaxation;
+import org.chocosolver.graphsolver.cstrs.cost.IArcCost;
+import org.chocosolver.graphsolver.cstrs.cost.trees.lagrangian.AbstractTreeFinder;
+import org.chocosolver.graphsolver.variables.DirectedGraphVar;
+import org.chocosolver.graphsolver.variables.GraphEventType;
+import org.chocosolver.solver.constraints.Propagator;
+import org.chocosolver.solver.constraints.PropagatorPriority;
+import org.chocosolver.solver.exception.ContradictionException;
+import org.chocosolver.solver.variables.IntVar;
+import org.chocosolver.solver.variables.Variable;
+import org.chocosolver.solver.variables.events.IntEventType;
+import org.chocosolver.util.ESat;
+import org.chocosolver.util.objects.graphs.DirectedGraph;
+import org.chocosolver.util.objects.setDataStructures.ISetIterator;
+
+/**
+ * ATSP Lagrangian relaxation, directed counterpart of PropLagrOneTree
+ * <p/>
+ * The relaxation is a minimum cost 1-arborescence rooted at node 0, in which every node has exactly one predecessor.
+ * Out-degree constraints are dualized and their multipliers are optimized by subgradient.
+ * In-degree multipliers are useless, since in-degree constraints are satisfied by any 1-arborescence.
+ */
+public class PropLagrOneArborescence extends Propagator<Variable> implements GraphLagrangianRelaxation {
+
+	//***********************************************************************************
+	// VARIABLES
+	//***********************************************************************************
+
+	protected DirectedGraph g;
+	protected IntVar obj;
+	protected int n;
+	protected final double[][] costs;
+	protected final TIntArrayList mandatoryArcsList;
+	protected boolean waitFirstSol;
+	private DirectedGraphVar gV;
+	private final IArcCost originalCosts;
+	private final double[] penalities;
+	private double totalPenalities;
+	private DirectedGraph mst;
+	private double step;
+	private final AbstractTreeFinder<DirectedGraph> HK;
+	private int nbSprints;
+
+	//***********************************************************************************
+	// CONSTRUCTORS
+	//***********************************************************************************
+
+	public PropLagrOneArborescence(DirectedGraphVar graph, IntVar cost, IArcCost arcCosts) {
+		super(new Variable[]{graph, cost}, PropagatorPriority.CUBIC, false);
+		g = graph.getUB();
+		gV = graph;
+		obj = cost;
+		originalCosts = arcCosts;
+		n = graph.getNbMaxNodes();
+		costs = new double[n][n];
+		totalPenalities = 0;
+		penalities = new double[n];
+		mandatoryArcsList = new TIntArrayList();
+		nbSprints = 30;
+		HK = new EdmondsOneArborescenceFinder(n, this);
+	}
+
+	//***********************************************************************************
+	// HK Algorithm(s)
+	//***********************************************************************************
+
+	public void propagate(int evtmask) throws ContradictionException {
+		if (waitFirstSol && getModel().getSolver().getSolutionCount() == 0) {
+			return;//the UB does not allow to prune
+		}
+		// initialisation
+		rebuild();
+		updateCostMatrix();
+		int lb;
+		do {
+			lb = obj.getLB();
+			lagrangianRelaxation();
+		} while (lb < obj.getLB());
+	}
+
+	private void lagrangianRelaxation() throws ContradictionException {
+		double alpha = 2;
+		double beta = 0.5;
+		double hkb = computeBound();
+		HK.performPruning((double) (obj.getUB()) + totalPenalities + 0.001);
+		for (int iter = 5; iter > 0; iter--) {
+			for (int i = nbSprints; i > 0; i--) {
+				hkb = computeBound();
+				updateStep(hkb, alpha);
+				penalitiesHK();
+				updateCostMatrix();
+			}
+			hkb = computeBound();
+			HK.performPruning((double) (obj.getUB()) + totalPenalities + 0.001);
+			updateStep(hkb, alpha);
+			penalitiesHK();
+			updateCostMatrix();
+			alpha *= beta;
+			beta /= 2;
+		}
+	}
+
+	/**
+	 * Computes a 1-arborescence with the current penalties and updates the lower bound of the objective
+	 *
+	 * @return the Lagrangian bound
+	 */
+	private double computeBound() throws ContradictionException {
+		HK.computeMST(costs, g);
+		double hkb = HK.getBound() - totalPenalities;
+		mst = HK.getMST();
+		if (hkb - Math.floor(hkb) < 0.001) {
+			hkb = Math.floor(hkb);
+		}
+		obj.updateLowerBound((int) Math.ceil(hkb), this);
+		return hkb;
+	}
+
+	//***********************************************************************************
+	// DETAILS
+	//***********************************************************************************
+
+	protected void rebuild() {
+		mandatoryArcsList.clear();
+		for (int i = 0; i < n; i++) {
+			ISetIterator iter = gV.getMandSuccOf(i).iterator();
+			while (iter.hasNext()) {
+				mandatoryArcsList.add(i * n + iter.nextInt());
+			}
+		}
+	}
+
+	private void updateStep(double hkb, double alpha) {
+		double nb2viol = 0;
+		double target = obj.getUB();
+		if (target - hkb < 0) {
+			target = hkb + 0.1;
+		}
+		int deg;
+		for (int i = 0; i < n; i++) {
+			deg = mst.getSuccOf(i).size();
+			nb2viol += (1 - deg) * (1 - deg);
+		}
+		if (nb2viol == 0) {
+			step = 0;
+		} else {
+			step = alpha * (target - hkb) / nb2viol;
+		}
+	}
+
+	private void penalitiesHK() {
+		if (step == 0) {
+			return;
+		}
+		double sumPenalities = 0;
+		int deg;
+		for (int i = 0; i < n; i++) {
+			deg = mst.getSuccOf(i).size();
+			penalities[i] += (deg - 1) * step;
+			assert !(penalities[i] > Double.MAX_VALUE / (n - 1) || penalities[i] < -Double.MAX_VALUE / (n - 1)) :
+					"Extreme-value lagrangian multipliers. Numerical issue may happen";
+			sumPenalities += penalities[i];
+		}
+		this.totalPenalities = sumPenalities;
+	}
+
+	private void updateCostMatrix() {
+		for (int i = 0; i < n; i++) {
+			ISetIterator iter = g.getSuccOf(i).iterator();
+			while (iter.hasNext()) {
+				int j = iter.nextInt();
+				costs[i][j] = originalCosts.getCost(i, j) + penalities[i];
+			}
+		}
+	}
+
+	//***********************************************************************************
+	// INFERENCE
+	//***********************************************************************************
+
+	public void remove(int from, int to) throws ContradictionException {
+		gV.removeArc(from, to, this);
+	}
+
+	public void enforce(int from, int to) throws ContradictionException {
+		gV.enforceArc(from, to, this);
+	}
+
+	public void contradiction() throws ContradictionException {
+		fails();
+	}
+
+	//***********************************************************************************
+	// PROP METHODS
+	//***********************************************************************************
+
+	@Override
+	public int getPropagationConditions(int vIdx) {
+		if (vIdx == 0) {
+			return GraphEventType.REMOVE_ARC.getMask() + GraphEventType.ADD_ARC.getMask();
+		} else {
+			return IntEventType.boundAndInst();
+		}
+	}
+
+	@Override
+	public ESat isEntailed() {
+		return ESat.TRUE;// it is just implied filtering
+	}
+
+	public double getMinArcVal() {
+		return -(((double) obj.getUB()) + totalPenalities);
+	}
+
+	public TIntArrayList getMandatoryArcsList() {
+		return mandatoryArcsList;
+	}
+
+	public boolean isMandatory(int i, int j) {
+		return gV.getMandSuccOf(i).contains(j);
+	}
+
+	public void waitFirstSolution(boolean b) {
+		waitFirstSol = b;
+	}
+
+	public boolean contains(int i, int j) {
+		return mst == null || mst.arcExists(i, j);
+	}
+
+	public DirectedGraph getSupport() {
+		return mst;
+	}
+
+	public double getReplacementCost(int from, int to) {
+		return HK.getRepCost(from, to);
+	}
+
+	public double getMarginalCost(int from, int to) {
+		return HK.getRepCost(from, to);
+	}
+}
@@ -67,7 +67,7 @@ public class PropLagrOneTree extends Propagator<Variable> implements GraphLagran
 	private double totalPenalities;
 	private UndirectedGraph mst;
 	private double step;
-	private final AbstractTreeFinder HKfilter, HK;
+	private final AbstractTreeFinder<UndirectedGraph> HKfilter, HK;
 	private int nbSprints;
 
 	//***********************************************************************************
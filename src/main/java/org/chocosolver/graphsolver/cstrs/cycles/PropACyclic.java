@@ -143,14 +143,15 @@ public class PropACyclic extends Propagator<GraphVar> {
 			}
 		}
 		// filter arcs that would create a circuit
-		for (int i : g.getPotentialNodes()) {
-			if (rfTo.get(i)) {
-				ISet nei = g.getPotSuccOrNeighOf(i);
-				for (int j : nei) {
-					if (rfFrom.get(j) && (i != from || j != to) && (i != to || j != from)) {
-						g.removeArc(i, j, this);
-					}
-				}
+		// (from is not in rfTo unless from == to, so only (to,from) has to be preserved)
+		for (int i = rfTo.nextSetBit(0); i >= 0; i = rfTo.nextSetBit(i + 1)) {
+			boolean keep = i == to && rfFrom.get(from);
+			if (keep) {
+				rfFrom.clear(from);
+			}
+			g.removeArcs(i, rfFrom, this);
+			if (keep) {
+				rfFrom.set(from);
 			}
 		}
 	}
@@ -0,0 +1,204 @@
+/**
+ * Copyright (c) 1999-2014, Ecole des Mines de Nantes
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * <p>
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the Ecole des Mines de Nantes nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE REGENTS AND CONTRIBUTORS ``AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE REGENTS AND CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.graphsolver.cstrs.cycles;
+
+import org.chocosolver.graphsolver.variables.DirectedGraphVar;
+import org.chocosolver.graphsolver.variables.GraphEventType;
+import org.chocosolver.graphsolver.variables.delta.GraphDeltaMonitor;
+import org.chocosolver.memory.IEnvironment;
+import org.chocosolver.memory.IStateInt;
+import org.chocosolver.solver.constraints.Propagator;
+import org.chocosolver.solver.constraints.PropagatorPriority;
+import org.chocosolver.solver.exception.ContradictionException;
+import org.chocosolver.util.ESat;
+import org.chocosolver.util.objects.setDataStructures.ISet;
+import org.chocosolver.util.objects.setDataStructures.ISetIterator;
+import org.chocosolver.util.procedure.PairProcedure;
+
+/**
+ * NoSubtour of Caseau-Laburthe on directed graphs (loops are forbidden)
+ * <p/>
+ * Mandatory arcs form disjoint paths, whose ends are maintained in a backtrackable way:
+ * end[s] is the last node of the path starting at s and origin[e] is the first node of the path ending at e.
+ * The arc closing a path is removed as long as the path does not contain every mandatory node.
+ * Once a circuit is formed, every other node is removed.
+ * <p/>
+ * Degrees are not filtered here, see PropNodeDegreeAtLeastIncr and PropNodeDegreeAtMostIncr
+ */
+public class PropCircuit extends Propagator<DirectedGraphVar> {
+
+	//***********************************************************************************
+	// VARIABLES
+	//***********************************************************************************
+
+	private final DirectedGraphVar g;
+	private final GraphDeltaMonitor gdm;
+	private final PairProcedure arcEnforced;
+	private final int n;
+	private final IStateInt[] origin, end, size;
+
+	//***********************************************************************************
+	// CONSTRUCTORS
+	//***********************************************************************************
+
+	public PropCircuit(DirectedGraphVar graph) {
+		super(new DirectedGraphVar[]{graph}, PropagatorPriority.LINEAR, true);
+		this.g = graph;
+		this.gdm = g.monitorDelta(this);
+		this.arcEnforced = this::enforce;
+		this.n = g.getNbMaxNodes();
+		this.origin = new IStateInt[n];
+		this.end = new IStateInt[n];
+		this.size = new IStateInt[n];
+		IEnvironment environment = graph.getEnvironment();
+		for (int i = 0; i < n; i++) {
+			origin[i] = environment.makeInt(i);
+			end[i] = environment.makeInt(i);
+			size[i] = environment.makeInt(1);
+		}
+	}
+
+	//***********************************************************************************
+	// METHODS
+	//***********************************************************************************
+
+	@Override
+	public int getPropagationConditions(int vIdx) {
+		return GraphEventType.ADD_ARC.getMask() + GraphEventType.ADD_NODE.getMask();
+	}
+
+	@Override
+	public void propagate(int evtmask) throws ContradictionException {
+		for (int i = 0; i < n; i++) {
+			origin[i].set(i);
+			end[i].set(i);
+			size[i].set(1);
+			g.removeArc(i, i, this);
+		}
+		for (int i = 0; i < n; i++) {
+			ISetIterator iter = g.getMandSuccOf(i).iterator();
+			while (iter.hasNext()) {
+				enforce(i, iter.nextInt());
+			}
+		}
+		removeClosingArcs();
+		gdm.unfreeze();
+	}
+
+	@Override
+	public void propagate(int idxVarInProp, int mask) throws ContradictionException {
+		gdm.freeze();
+		gdm.forEachArc(arcEnforced, GraphEventType.ADD_ARC);
+		gdm.unfreeze();
+		if ((mask & GraphEventType.ADD_NODE.getMask()) != 0) {
+			removeClosingArcs();
+		}
+	}
+
+	private void enforce(int i, int j) throws ContradictionException {
+		int s = origin[i].get();
+		int e = end[j].get();
+		if (end[s].get() != i || origin[e].get() != j) {
+			fails(); // i has two successors or j has two predecessors
+		}
+		if (s == j) {
+			closeCircuit(j);
+			return;
+		}
+		end[s].set(e);
+		origin[e].set(s);
+		size[s].add(size[j].get());
+		int nbMand = g.getMandatoryNodes().size();
+		if (size[s].get() < nbMand) {
+			g.removeArc(e, s, this);
+		} else if (nbMand == g.getPotentialNodes().size()) {
+			g.enforceArc(e, s, this);
+		}
+	}
+
+	/**
+	 * The path starting at s has been closed: other nodes are removed
+	 */
+	private void closeCircuit(int s) throws ContradictionException {
+		if (size[s].get() < g.getMandatoryNodes().size()) {
+			fails();
+		}
+		if (size[s].get() < g.getPotentialNodes().size()) {
+			// nodes of the circuit are the ones having a mandatory successor
+			for (int i = 0; i < n; i++) {
+				if (g.getPotentialNodes().contains(i) && g.getMandSuccOf(i).isEmpty()) {
+					g.removeNode(i, this);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Removes the arcs closing paths which do not contain every mandatory node
+	 */
+	private void removeClosingArcs() throws ContradictionException {
+		int nbMand = g.getMandatoryNodes().size();
+		for (int s = 0; s < n; s++) {
+			int e = end[s].get();
+			if (e != s && origin[e].get() == s && size[s].get() < nbMand) {
+				g.removeArc(e, s, this);
+			}
+		}
+	}
+
+	@Override
+	public ESat isEntailed() {
+		ISet nodes = g.getMandatoryNodes();
+		int nbMand = nodes.size();
+		for (int i : nodes) {
+			if (g.getMandSuccOf(i).size() > 1 || g.getMandPredOf(i).size() > 1
+					|| g.getPotSuccOf(i).isEmpty() || g.getPotPredOf(i).isEmpty()
+					|| g.getMandSuccOf(i).contains(i)) {
+				return ESat.FALSE;
+			}
+		}
+		// a circuit of mandatory arcs must contain every mandatory node
+		for (int i : nodes) {
+			int length = 1;
+			int j = i;
+			while (g.getMandSuccOf(j).size() == 1 && length <= nbMand) {
+				j = g.getMandSuccOf(j).min();
+				if (j == i) {
+					if (length < nbMand) {
+						return ESat.FALSE;
+					}
+					break;
+				}
+				length++;
+			}
+		}
+		if (g.isInstantiated()) {
+			return ESat.TRUE;
+		}
+		return ESat.UNDEFINED;
+	}
+}
@@ -0,0 +1,320 @@
+/**
+ * Copyright (c) 1999-2014, Ecole des Mines de Nantes
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * <p>
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the Ecole des Mines de Nantes nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE REGENTS AND CONTRIBUTORS ``AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE REGENTS AND CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.chocosolver.graphsolver.cstrs.cycles;
+
+import org.chocosolver.graphsolver.variables.DirectedGraphVar;
+import org.chocosolver.graphsolver.variables.GraphEventType;
+import org.chocosolver.graphsolver.variables.delta.GraphDeltaMonitor;
+import org.chocosolver.memory.IStateInt;
+import org.chocosolver.solver.constraints.Propagator;
+import org.chocosolver.solver.constraints.PropagatorPriority;
+import org.chocosolver.solver.exception.ContradictionException;
+import org.chocosolver.util.ESat;
+import org.chocosolver.util.objects.setDataStructures.ISet;
+import org.chocosolver.util.objects.setDataStructures.ISetIterator;
+import org.chocosolver.util.procedure.PairProcedure;
+
+import java.util.Arrays;
+
+/**
+ * Propagator for the no-circuit constraint on directed graphs (loops are forbidden)
+ * <p/>
+ * A backtrackable topological order of the lower bound is maintained with the dynamic algorithm of Pearce and Kelly:
+ * when an arc (u,v) such that ord(v) < ord(u) is enforced, only the nodes whose order lies between ord(v) and
+ * ord(u), and which are reachable from v or reach u, are reordered (a circuit is detected if v reaches u).
+ * <p/>
+ * An arc (x,y) closes a circuit iff y reaches x in the lower bound, which requires ord(y) < ord(x):
+ * other arcs are skipped in O(1). When (u,v) is enforced, arcs from nodes reachable from v to nodes reaching u
+ * are removed, by scanning the potential arcs of the smallest of both sets.
+ */
+public class PropDirectedACyclic extends Propagator<DirectedGraphVar> {
+
+	//***********************************************************************************
+	// VARIABLES
+	//***********************************************************************************
+
+	private final DirectedGraphVar g;
+	private final int n;
+	// topological order of the lower bound
+	private final IStateInt[] ord;
+	private final GraphDeltaMonitor gdm;
+	private final PairProcedure arcEnforced;
+	// nodes reachable from v (forward) and reaching u (backward), marked with epochs
+	private final int[] forward, backward, toRemove;
+	private int nbForward, nbBackward;
+	private final int[] markF, markB;
+	private int epoch;
+	// reordering
+	private final long[] keys;
+	private final int[] pool;
+
+	//***********************************************************************************
+	// CONSTRUCTORS
+	//***********************************************************************************
+
+	public PropDirectedACyclic(DirectedGraphVar g) {
+		super(new DirectedGraphVar[]{g}, PropagatorPriority.LINEAR, true);
+		this.g = g;
+		this.n = g.getNbMaxNodes();
+		this.ord = new IStateInt[n];
+		for (int i = 0; i < n; i++) {
+			ord[i] = g.getEnvironment().makeInt(i);
+		}
+		this.gdm = g.monitorDelta(this);
+		this.arcEnforced = this::onArcEnforced;
+		this.forward = new int[n];
+		this.backward = new int[n];
+		this.toRemove = new int[n];
+		this.markF = new int[n];
+		this.markB = new int[n];
+		this.keys = new long[n];
+		this.pool = new int[n];
+	}
+
+	//***********************************************************************************
+	// PROPAGATIONS
+	//***********************************************************************************
+
+	@Override
+	public int getPropagationConditions(int idx) {
+		return GraphEventType.ADD_ARC.getMask();
+	}
+
+	@Override
+	public void propagate(int evtmask) throws ContradictionException {
+		for (int i = 0; i < n; i++) {
+			g.removeArc(i, i, this);
+		}
+		if (!topologicalSort(true)) {
+			fails();
+		}
+		// remove arcs (x,y) such that y reaches x, i.e. (x,y) goes backward and x is reachable from y
+		for (int x = 0; x < n; x++) {
+			int ox = ord[x].get();
+			int nb = 0;
+			ISetIterator iter = g.getPotSuccOf(x).iterator();
+			while (iter.hasNext()) {
+				int y = iter.nextInt();
+				if (ord[y].get() < ox) {
+					toRemove[nb++] = y;
+				}
+			}
+			for (int k = 0; k < nb; k++) {
+				int y = toRemove[k];
+				exploreForward(y, ox);
+				if (markF[x] == epoch) {
+					g.removeArc(x, y, this);
+				}
+			}
+		}
+		gdm.unfreeze();
+	}
+
+	@Override
+	public void propagate(int idx, int mask) throws ContradictionException {
+		gdm.freeze();
+		gdm.forEachArc(arcEnforced, GraphEventType.ADD_ARC);
+		gdm.unfreeze();
+	}
+
+	private void onArcEnforced(int u, int v) throws ContradictionException {
+		int lb = ord[v].get();
+		int ub = ord[u].get();
+		// arcs violating the order have not been inserted yet, so they are ignored by searches
+		exploreForward(v, ub);
+		if (lb < ub) {
+			if (markF[u] == epoch) {
+				fails(); // v reaches u
+			}
+			exploreBackward(u, lb);
+			reorder();
+		}
+		// forward and backward sets are computed again without bounds, for filtering
+		exploreForward(v, n);
+		exploreBackward(u, -1);
+		removeClosingArcs();
+	}
+
+	/**
+	 * Collects the nodes reachable from v (following arcs that respect the order) whose order is at most ub
+	 */
+	private void exploreForward(int v, int ub) {
+		nextEpoch();
+		nbForward = 0;
+		forward[nbForward++] = v;
+		markF[v] = epoch;
+		for (int k = 0; k < nbForward; k++) {
+			int i = forward[k];
+			int oi = ord[i].get();
+			ISetIterator iter = g.getMandSuccOf(i).iterator();
+			while (iter.hasNext()) {
+				int j = iter.nextInt();
+				int oj = ord[j].get();
+				if (markF[j] != epoch && oj > oi && oj <= ub) {
+					markF[j] = epoch;
+					forward[nbForward++] = j;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Collects the nodes reaching u (following arcs that respect the order) whose order is greater than lb
+	 */
+	private void exploreBackward(int u, int lb) {
+		nbBackward = 0;
+		backward[nbBackward++] = u;
+		markB[u] = epoch;
+		for (int k = 0; k < nbBackward; k++) {
+			int i = backward[k];
+			int oi = ord[i].get();
+			ISetIterator iter = g.getMandPredOf(i).iterator();
+			while (iter.hasNext()) {
+				int j = iter.nextInt();
+				int oj = ord[j].get();
+				if (markB[j] != epoch && oj < oi && oj > lb) {
+					markB[j] = epoch;
+					backward[nbBackward++] = j;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Pearce-Kelly reordering: the nodes reaching u are placed before the nodes reachable from v,
+	 * using the same set of positions, and keeping their relative order
+	 */
+	private void reorder() {
+		int size = 0;
+		for (int k = 0; k < nbBackward; k++) {
+			keys[size++] = ((long) ord[backward[k]].get() << 32) | backward[k];
+		}
+		Arrays.sort(keys, 0, size);
+		for (int k = 0; k < nbForward; k++) {
+			keys[size++] = ((long) ord[forward[k]].get() << 32) | forward[k];
+		}
+		Arrays.sort(keys, nbBackward, size);
+		for (int k = 0; k < size; k++) {
+			pool[k] = (int) (keys[k] >>> 32);
+		}
+		Arrays.sort(pool, 0, size);
+		for (int k = 0; k < size; k++) {
+			ord[(int) keys[k]].set(pool[k]);
+		}
+	}
+
+	/**
+	 * Removes the arcs from a node reachable from v to a node reaching u
+	 */
+	private void removeClosingArcs() throws ContradictionException {
+		int out = 0;
+		for (int k = 0; k < nbForward; k++) {
+			out += g.getPotSuccOf(forward[k]).size();
+		}
+		int in = 0;
+		for (int k = 0; k < nbBackward; k++) {
+			in += g.getPotPredOf(backward[k]).size();
+		}
+		boolean fromForward = out <= in;
+		int nbNodes = fromForward ? nbForward : nbBackward;
+		for (int k = 0; k < nbNodes; k++) {
+			int i = fromForward ? forward[k] : backward[k];
+			ISet nei = fromForward ? g.getPotSuccOf(i) : g.getPotPredOf(i);
+			int[] mark = fromForward ? markB : markF;
+			int nb = 0;
+			ISetIterator iter = nei.iterator();
+			while (iter.hasNext()) {
+				int j = iter.nextInt();
+				if (mark[j] == epoch) {
+					toRemove[nb++] = j;
+				}
+			}
+			for (int p = 0; p < nb; p++) {
+				if (fromForward) {
+					g.removeArc(i, toRemove[p], this);
+				} else {
+					g.removeArc(toRemove[p], i, this);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Kahn's algorithm over the lower bound
+	 *
+	 * @param store true iff the order should be stored in ord
+	 * @return false iff the lower bound contains a circuit
+	 */
+	private boolean topologicalSort(boolean store) {
+		int[] inDegree = pool;
+		int last = 0;
+		for (int i = 0; i < n; i++) {
+			inDegree[i] = g.getMandPredOf(i).size();
+			if (inDegree[i] == 0) {
+				forward[last++] = i;
+			}
+		}
+		for (int first = 0; first < last; first++) {
+			int i = forward[first];
+			if (store) {
+				ord[i].set(first);
+			}
+			ISetIterator iter = g.getMandSuccOf(i).iterator();
+			while (iter.hasNext()) {
+				int j = iter.nextInt();
+				if (--inDegree[j] == 0) {
+					forward[last++] = j;
+				}
+			}
+		}
+		return last == n;
+	}
+
+	private void nextEpoch() {
+		if (++epoch == Integer.MAX_VALUE) {
+			Arrays.fill(markF, 0);
+			Arrays.fill(markB, 0);
+			epoch = 1;
+		}
+	}
+
+	//***********************************************************************************
+	// INFO
+	//***********************************************************************************
+
+	@Override
+	public ESat isEntailed() {
+		if (!topologicalSort(false)) {
+			return ESat.FALSE;
+		}
+		if (isCompletelyInstantiated()) {
+			return ESat.TRUE;
+		}
+		return ESat.UNDEFINED;
+	}
+}
@@ -0,0 +1,205 @@
+/**
+ * Copyright (c) 1999-2014, Ecole des Mines de Nantes
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * <p>
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the Ecole des Mines de Nantes nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE REGENTS AND CONTRIBUTORS ``AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE REGENTS AND CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.graphsolver.cstrs.cycles;
+
+import org.chocosolver.graphsolver.variables.GraphEventType;
+import org.chocosolver.graphsolver.variables.UndirectedGraphVar;
+import org.chocosolver.graphsolver.variables.delta.GraphDeltaMonitor;
+import org.chocosolver.memory.IEnvironment;
+import org.chocosolver.memory.IStateInt;
+import org.chocosolver.solver.constraints.Propagator;
+import org.chocosolver.solver.constraints.PropagatorPriority;
+import org.chocosolver.solver.exception.ContradictionException;
+import org.chocosolver.util.ESat;
+import org.chocosolver.util.objects.setDataStructures.ISetIterator;
+import org.chocosolver.util.procedure.PairProcedure;
+
+/**
+ * Propagator for the no-cycle constraint on undirected graphs (loops are forbidden)
+ * <p/>
+ * The graph is a forest iff no edge lies inside a connected component of the lower bound.
+ * Components are stored in a backtrackable union-find where every node points directly to its representative
+ * and every component is a circular list of its members. When an edge is enforced, the members of the smallest
+ * component are relabeled and appended to the largest one, after removing the potential edges
+ * joining both components. Each node is thus relabeled O(log(n)) times along a branch.
+ */
+public class PropUndirectedACyclic extends Propagator<UndirectedGraphVar> {
+
+	//***********************************************************************************
+	// VARIABLES
+	//***********************************************************************************
+
+	private final UndirectedGraphVar g;
+	private final int n;
+	// representative of the component of each node
+	private final IStateInt[] rep;
+	// next member in the circular list of the component
+	private final IStateInt[] next;
+	// number of members of each component (only meaningful for representatives)
+	private final IStateInt[] size;
+	private final GraphDeltaMonitor gdm;
+	private final PairProcedure edgeEnforced;
+	private final int[] toRemove;
+	// union-find used by the entailment check
+	private final int[] ufParent;
+
+	//***********************************************************************************
+	// CONSTRUCTORS
+	//***********************************************************************************
+
+	public PropUndirectedACyclic(UndirectedGraphVar g) {
+		super(new UndirectedGraphVar[]{g}, PropagatorPriority.LINEAR, true);
+		this.g = g;
+		this.n = g.getNbMaxNodes();
+		this.rep = new IStateInt[n];
+		this.next = new IStateInt[n];
+		this.size = new IStateInt[n];
+		IEnvironment environment = g.getEnvironment();
+		for (int i = 0; i < n; i++) {
+			rep[i] = environment.makeInt(i);
+			next[i] = environment.makeInt(i);
+			size[i] = environment.makeInt(1);
+		}
+		this.gdm = g.monitorDelta(this);
+		this.edgeEnforced = this::onEdgeEnforced;
+		this.toRemove = new int[n];
+		this.ufParent = new int[n];
+	}
+
+	//***********************************************************************************
+	// PROPAGATIONS
+	//***********************************************************************************
+
+	@Override
+	public int getPropagationConditions(int idx) {
+		return GraphEventType.ADD_ARC.getMask();
+	}
+
+	@Override
+	public void propagate(int evtmask) throws ContradictionException {
+		for (int i = 0; i < n; i++) {
+			g.removeArc(i, i, this);
+			rep[i].set(i);
+			next[i].set(i);
+			size[i].set(1);
+		}
+		for (int i = 0; i < n; i++) {
+			ISetIterator iter = g.getMandNeighOf(i).iterator();
+			while (iter.hasNext()) {
+				int j = iter.nextInt();
+				if (i < j) {
+					onEdgeEnforced(i, j);
+				}
+			}
+		}
+		gdm.unfreeze();
+	}
+
+	@Override
+	public void propagate(int idx, int mask) throws ContradictionException {
+		gdm.freeze();
+		gdm.forEachArc(edgeEnforced, GraphEventType.ADD_ARC);
+		gdm.unfreeze();
+	}
+
+	private void onEdgeEnforced(int u, int v) throws ContradictionException {
+		int ru = rep[u].get();
+		int rv = rep[v].get();
+		if (ru == rv) {
+			fails(); // (u,v) closes a cycle
+		}
+		int small = ru, large = rv;
+		if (size[ru].get() > size[rv].get()) {
+			small = rv;
+			large = ru;
+		}
+		// remove potential edges between both components (other mandatory ones lead to a failure)
+		int i = small;
+		do {
+			int nb = 0;
+			ISetIterator iter = g.getPotNeighOf(i).iterator();
+			while (iter.hasNext()) {
+				int j = iter.nextInt();
+				if (rep[j].get() == large && !((i == u && j == v) || (i == v && j == u))) {
+					toRemove[nb++] = j;
+				}
+			}
+			for (int k = 0; k < nb; k++) {
+				g.removeArc(i, toRemove[k], this);
+			}
+			i = next[i].get();
+		} while (i != small);
+		// merge the member list of the smallest component into the largest one
+		i = small;
+		do {
+			rep[i].set(large);
+			i = next[i].get();
+		} while (i != small);
+		int nextSmall = next[small].get();
+		next[small].set(next[large].get());
+		next[large].set(nextSmall);
+		size[large].add(size[small].get());
+	}
+
+	//***********************************************************************************
+	// INFO
+	//***********************************************************************************
+
+	@Override
+	public ESat isEntailed() {
+		// union-find from scratch over the lower bound
+		for (int i = 0; i < n; i++) {
+			ufParent[i] = i;
+		}
+		for (int i = 0; i < n; i++) {
+			ISetIterator iter = g.getMandNeighOf(i).iterator();
+			while (iter.hasNext()) {
+				int j = iter.nextInt();
+				if (i <= j) {
+					int ri = find(i);
+					int rj = find(j);
+					if (ri == rj) {
+						return ESat.FALSE;
+					}
+					ufParent[ri] = rj;
+				}
+			}
+		}
+		if (isCompletelyInstantiated()) {
+			return ESat.TRUE;
+		}
+		return ESat.UNDEFINED;
+	}
+
+	private int find(int i) {
+		while (ufParent[i] != i) {
+			ufParent[i] = ufParent[ufParent[i]];
+			i = ufParent[i];
+		}
+		return i;
+	}
+}
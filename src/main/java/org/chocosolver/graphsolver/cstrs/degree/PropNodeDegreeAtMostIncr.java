@@ -37,6 +37,8 @@ import org.chocosolver.util.objects.graphs.Orientation;
 import org.chocosolver.util.objects.setDataStructures.ISet;
 import org.chocosolver.util.procedure.PairProcedure;
 
+import java.util.BitSet;
+
 /**
  * Propagator that ensures that a node has at most N successors/predecessors/neighbors
  *
@@ -65,7 +67,7 @@ public class PropNodeDegreeAtMostIncr extends Propagator<GraphVar> {
 	public PropNodeDegreeAtMostIncr(DirectedGraphVar graph, Orientation setType, int[] degrees) {
 		super(new DirectedGraphVar[]{graph}, PropagatorPriority.BINARY, true);
 		g = graph;
-		gdm = g.monitorDelta(this);
+		gdm = monitorConstrainedNodes(g, degrees);
 		this.degrees = degrees;
 		switch (setType) {
 			case SUCCESSORS:
@@ -89,7 +91,7 @@ public class PropNodeDegreeAtMostIncr extends Propagator<GraphVar> {
 		super(new UndirectedGraphVar[]{graph}, PropagatorPriority.BINARY, true);
 		target = new IncidentSet.SuccOrNeighSet();
 		g = graph;
-		gdm = g.monitorDelta(this);
+		gdm = monitorConstrainedNodes(g, degrees);
 		this.degrees = degrees;
 		enf_proc = (i, j) -> {
 			checkAtMost(i);
@@ -97,6 +99,23 @@ public class PropNodeDegreeAtMostIncr extends Propagator<GraphVar> {
 		};
 	}
 
+	/**
+	 * Only nodes whose maximum degree may be reached are watched
+	 */
+	private GraphDeltaMonitor monitorConstrainedNodes(GraphVar g, int[] degrees) {
+		int n = g.getNbMaxNodes();
+		BitSet watched = new BitSet(n);
+		for (int i = 0; i < n; i++) {
+			if (degrees[i] < n) {
+				watched.set(i);
+			}
+		}
+		if (watched.cardinality() == n) {
+			return g.monitorDelta(this);
+		}
+		return g.monitorDelta(this, watched);
+	}
+
 	private static int[] buildArray(int degree, int n) {
 		int[] degrees = new int[n];
 		for (int i = 0; i < n; i++) {
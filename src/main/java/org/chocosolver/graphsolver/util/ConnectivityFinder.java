@@ -31,6 +31,8 @@ package org.chocosolver.graphsolver.util;
 import org.chocosolver.util.objects.graphs.IGraph;
 import org.chocosolver.util.objects.setDataStructures.ISet;
 
+import java.util.Arrays;
+
 /**
  * Class containing algorithms to find all connected components by performing one dfs
  * it uses Tarjan algorithm in a non recursive way and can be performed in O(M+N) time c.f. Gondrand Minoux
@@ -47,8 +49,11 @@ public class ConnectivityFinder {
 
 	private int n;
 	private IGraph graph;
-	private int[] CCFirstNode, CCNextNode, nodeCC, p, fifo, sizeCC;
+	private int[] CCFirstNode, CCNextNode, nodeCC, fifo, sizeCC;
 	private int nbCC, sizeMinCC, sizeMaxCC;
+	// a node is visited by the current search iff stamp[node] == epoch, so that nothing has to be reset
+	private int[] stamp;
+	private int epoch;
 
 	/**
 	 * Create an object that can compute Connected Components (CC) of a graph g
@@ -59,7 +64,7 @@ public class ConnectivityFinder {
 	public ConnectivityFinder(IGraph g) {
 		graph = g;
 		n = g.getNbMaxNodes();
-		p = new int[n];
+		stamp = new int[n];
 		fifo = new int[n];
 	}
 
@@ -92,7 +97,7 @@ public class ConnectivityFinder {
 	}
 
 	/**
-	 * @return The size of the CCs as an int array.
+	 * @return The size of the CCs as an int array (only the first getNBCC() entries are relevant).
 	 */
 	public int[] getSizeCC() {
 		return sizeCC;
@@ -112,7 +117,8 @@ public class ConnectivityFinder {
 
 	/**
 	 * Find all connected components of graph by performing one dfs
-	 * Complexity : O(M+N) light and fast in practice
+	 * Complexity : O(M+N) light and fast in practice, where N is the number of nodes of the graph
+	 * (entries of nodes which are not in the graph are neither reset nor read)
 	 */
 	public void findAllCC() {
 		if (nodeCC == null) {
@@ -123,17 +129,14 @@ public class ConnectivityFinder {
 		}
 		sizeMinCC = 0;
 		sizeMaxCC = 0;
-		ISet act = graph.getNodes();
-		for (int i : act) {
-			p[i] = -1;
-		}
-		for (int i = 0; i < CCFirstNode.length; i++) {
-			CCFirstNode[i] = -1;
-			sizeCC[i] = -1;
+		if (++epoch == Integer.MAX_VALUE) {
+			Arrays.fill(stamp, 0);
+			epoch = 1;
 		}
+		ISet act = graph.getNodes();
 		int cc = 0;
 		for (int i : act) {
-			if (p[i] == -1) {
+			if (stamp[i] != epoch) {
 				findCC(i, cc);
 				if (sizeMinCC == 0 || sizeMinCC > sizeCC[cc]) {
 					sizeMinCC = sizeCC[cc];
@@ -151,14 +154,15 @@ public class ConnectivityFinder {
 		int first = 0;
 		int last = 0;
 		int size = 1;
+		CCFirstNode[cc] = -1;
 		fifo[last++] = start;
-		p[start] = start;
+		stamp[start] = epoch;
 		add(start, cc);
 		while (first < last) {
 			int i = fifo[first++];
 			for (int j : graph.getSuccOrNeighOf(i)) {
-				if (p[j] == -1) {
-					p[j] = i;
+				if (stamp[j] != epoch) {
+					stamp[j] = epoch;
 					add(j, cc);
 					size++;
 					fifo[last++] = j;
@@ -166,8 +170,8 @@ public class ConnectivityFinder {
 			}
 			if (graph.isDirected()) {
 				for (int j : graph.getPredOrNeighOf(i)) {
-					if (p[j] == -1) {
-						p[j] = i;
+					if (stamp[j] != epoch) {
+						stamp[j] = epoch;
 						add(j, cc);
 						size++;
 						fifo[last++] = j;
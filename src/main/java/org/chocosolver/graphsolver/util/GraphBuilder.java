@@ -0,0 +1,283 @@
+/**
+ * Copyright (c) 1999-2014, Ecole des Mines de Nantes
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * <p>
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the Ecole des Mines de Nantes nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE REGENTS AND CONTRIBUTORS ``AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE REGENTS AND CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.graphsolver.util;
+
+import org.chocosolver.solver.Model;
+import org.chocosolver.util.objects.graphs.DirectedGraph;
+import org.chocosolver.util.objects.graphs.IGraph;
+import org.chocosolver.util.objects.graphs.UndirectedGraph;
+import org.chocosolver.util.objects.setDataStructures.ISet;
+import org.chocosolver.util.objects.setDataStructures.SetType;
+
+/**
+ * Bulk construction of backtrackable graphs, typically used as upper bounds of graph variables.
+ * <p>
+ * Graphs are built in a single pass over adjacency arrays, given either in CSR form
+ * (the neighbors of node i are targets[offsets[i]], ..., targets[offsets[i+1]-1])
+ * or as packed arcs (from << 32 | to). Neighborhoods are filled directly,
+ * without the consistency checks of addEdge/addArc. Nodes are all added to the graph.
+ */
+public class GraphBuilder {
+
+	//***********************************************************************************
+	// UNDIRECTED GRAPHS
+	//***********************************************************************************
+
+	/**
+	 * Creates a backtrackable undirected graph from CSR adjacency arrays.
+	 * An edge may be given in one direction or both.
+	 *
+	 * @param model    model providing the backtracking environment
+	 * @param n        max number of nodes
+	 * @param type     data structure storing node neighbors
+	 * @param allNodes true iff all nodes will always remain in the graph
+	 * @param offsets  n+1 offsets in targets
+	 * @param targets  neighbors of every node
+	 * @return an undirected graph containing every given edge
+	 */
+	public static UndirectedGraph makeUndirectedGraph(Model model, int n, SetType type, boolean allNodes, int[] offsets, int[] targets) {
+		UndirectedGraph g = makeNodes(new UndirectedGraph(model, n, type, allNodes), allNodes);
+		for (int i = 0; i < n; i++) {
+			ISet nei = g.getNeighOf(i);
+			for (int k = offsets[i]; k < offsets[i + 1]; k++) {
+				int j = targets[k];
+				nei.add(j);
+				g.getNeighOf(j).add(i);
+			}
+		}
+		return g;
+	}
+
+	/**
+	 * Creates a backtrackable undirected graph from a list of packed edges (from << 32 | to)
+	 *
+	 * @param model    model providing the backtracking environment
+	 * @param n        max number of nodes
+	 * @param type     data structure storing node neighbors
+	 * @param allNodes true iff all nodes will always remain in the graph
+	 * @param edges    packed edges
+	 * @return an undirected graph containing every given edge
+	 */
+	public static UndirectedGraph makeUndirectedGraph(Model model, int n, SetType type, boolean allNodes, long[] edges) {
+		UndirectedGraph g = makeNodes(new UndirectedGraph(model, n, type, allNodes), allNodes);
+		for (long e : edges) {
+			int i = tail(e);
+			int j = head(e);
+			g.getNeighOf(i).add(j);
+			g.getNeighOf(j).add(i);
+		}
+		return g;
+	}
+
+	/**
+	 * Creates a backtrackable complete undirected graph
+	 *
+	 * @param model    model providing the backtracking environment
+	 * @param n        max number of nodes
+	 * @param type     data structure storing node neighbors
+	 * @param allNodes true iff all nodes will always remain in the graph
+	 * @param loops    true iff loops (i,i) should be added
+	 * @return the complete undirected graph of n nodes
+	 */
+	public static UndirectedGraph makeCompleteUndirectedGraph(Model model, int n, SetType type, boolean allNodes, boolean loops) {
+		UndirectedGraph g = makeNodes(new UndirectedGraph(model, n, type, allNodes), allNodes);
+		for (int i = 0; i < n; i++) {
+			ISet nei = g.getNeighOf(i);
+			for (int j = 0; j < n; j++) {
+				if (loops || i != j) {
+					nei.add(j);
+				}
+			}
+		}
+		return g;
+	}
+
+	//***********************************************************************************
+	// DIRECTED GRAPHS
+	//***********************************************************************************
+
+	/**
+	 * Creates a backtrackable directed graph from CSR adjacency arrays
+	 *
+	 * @param model    model providing the backtracking environment
+	 * @param n        max number of nodes
+	 * @param type     data structure storing node successors and predecessors
+	 * @param allNodes true iff all nodes will always remain in the graph
+	 * @param offsets  n+1 offsets in targets
+	 * @param targets  successors of every node
+	 * @return a directed graph containing every given arc
+	 */
+	public static DirectedGraph makeDirectedGraph(Model model, int n, SetType type, boolean allNodes, int[] offsets, int[] targets) {
+		DirectedGraph g = makeNodes(new DirectedGraph(model, n, type, allNodes), allNodes);
+		for (int i = 0; i < n; i++) {
+			ISet succ = g.getSuccOf(i);
+			for (int k = offsets[i]; k < offsets[i + 1]; k++) {
+				int j = targets[k];
+				succ.add(j);
+				g.getPredOf(j).add(i);
+			}
+		}
+		return g;
+	}
+
+	/**
+	 * Creates a backtrackable directed graph from a list of packed arcs (from << 32 | to)
+	 *
+	 * @param model    model providing the backtracking environment
+	 * @param n        max number of nodes
+	 * @param type     data structure storing node successors and predecessors
+	 * @param allNodes true iff all nodes will always remain in the graph
+	 * @param arcs     packed arcs
+	 * @return a directed graph containing every given arc
+	 */
+	public static DirectedGraph makeDirectedGraph(Model model, int n, SetType type, boolean allNodes, long[] arcs) {
+		DirectedGraph g = makeNodes(new DirectedGraph(model, n, type, allNodes), allNodes);
+		for (long a : arcs) {
+			int i = tail(a);
+			int j = head(a);
+			g.getSuccOf(i).add(j);
+			g.getPredOf(j).add(i);
+		}
+		return g;
+	}
+
+	/**
+	 * Creates a backtrackable complete directed graph
+	 *
+	 * @param model    model providing the backtracking environment
+	 * @param n        max number of nodes
+	 * @param type     data structure storing node successors and predecessors
+	 * @param allNodes true iff all nodes will always remain in the graph
+	 * @param loops    true iff loops (i,i) should be added
+	 * @return the complete directed graph of n nodes
+	 */
+	public static DirectedGraph makeCompleteDirectedGraph(Model model, int n, SetType type, boolean allNodes, boolean loops) {
+		DirectedGraph g = makeNodes(new DirectedGraph(model, n, type, allNodes), allNodes);
+		for (int i = 0; i < n; i++) {
+			ISet succ = g.getSuccOf(i);
+			ISet pred = g.getPredOf(i);
+			for (int j = 0; j < n; j++) {
+				if (loops || i != j) {
+					succ.add(j);
+					pred.add(j);
+				}
+			}
+		}
+		return g;
+	}
+
+	//***********************************************************************************
+	// DEGREES
+	//***********************************************************************************
+
+	/**
+	 * @param n       number of nodes
+	 * @param offsets n+1 offsets of CSR adjacency arrays
+	 * @param targets targets of CSR adjacency arrays
+	 * @param heads   true iff heads should be counted as well as tails (undirected graphs)
+	 * @return the maximum number of occurrences of a node in the given arcs
+	 * (an upper bound of the maximum degree, if edges are given in both directions)
+	 */
+	public static int maxDegree(int n, int[] offsets, int[] targets, boolean heads) {
+		if (!heads) {
+			int max = 0;
+			for (int i = 0; i < n; i++) {
+				max = Math.max(max, offsets[i + 1] - offsets[i]);
+			}
+			return max;
+		}
+		int[] degrees = new int[n];
+		int max = 0;
+		for (int i = 0; i < n; i++) {
+			degrees[i] += offsets[i + 1] - offsets[i];
+			max = Math.max(max, degrees[i]);
+			for (int k = offsets[i]; k < offsets[i + 1]; k++) {
+				max = Math.max(max, ++degrees[targets[k]]);
+			}
+		}
+		return max;
+	}
+
+	/**
+	 * @param n     number of nodes
+	 * @param arcs  packed arcs (from << 32 | to)
+	 * @param heads true iff heads should be counted as well as tails (undirected graphs)
+	 * @return the maximum number of occurrences of a node in the given arcs
+	 * (an upper bound of the maximum degree, if edges are given in both directions)
+	 */
+	public static int maxDegree(int n, long[] arcs, boolean heads) {
+		int[] degrees = new int[n];
+		int max = 0;
+		for (long a : arcs) {
+			max = Math.max(max, ++degrees[tail(a)]);
+			if (heads) {
+				max = Math.max(max, ++degrees[head(a)]);
+			}
+		}
+		return max;
+	}
+
+	//***********************************************************************************
+	// ARC ENCODING
+	//***********************************************************************************
+
+	/**
+	 * Packed arc encoding, shared by bulk graph construction and graph deltas
+	 *
+	 * @param from tail of the arc
+	 * @param to   head of the arc
+	 * @return the arc (from,to) packed as (from << 32 | to)
+	 */
+	public static long pack(int from, int to) {
+		return ((long) from << 32) | (to & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * @param arc a packed arc
+	 * @return the tail of arc
+	 */
+	public static int tail(long arc) {
+		return (int) (arc >>> 32);
+	}
+
+	/**
+	 * @param arc a packed arc
+	 * @return the head of arc
+	 */
+	public static int head(long arc) {
+		return (int) arc;
+	}
+
+	private static <G extends IGraph> G makeNodes(G g, boolean allNodes) {
+		if (!allNodes) {
+			for (int i = 0; i < g.getNbMaxNodes(); i++) {
+				g.addNode(i);
+			}
+		}
+		return g;
+	}
+}
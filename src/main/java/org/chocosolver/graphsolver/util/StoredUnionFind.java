@@ -0,0 +1,127 @@
+/**
+ * Copyright (c) 1999-2014, Ecole des Mines de Nantes
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * <p>
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the Ecole des Mines de Nantes nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE REGENTS AND CONTRIBUTORS ``AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE REGENTS AND CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.graphsolver.util;
+
+import org.chocosolver.memory.IEnvironment;
+import org.chocosolver.memory.IStateInt;
+
+/**
+ * Backtrackable union-find over integers in [0,n-1].
+ * It relies on union by rank without path compression, so that every modification is trailed
+ * and undone upon backtrack. Both find and union run in O(log(n)).
+ */
+public class StoredUnionFind {
+
+	//***********************************************************************************
+	// VARIABLES
+	//***********************************************************************************
+
+	private final IStateInt[] parent, rank;
+	private final IStateInt nbUnions;
+
+	//***********************************************************************************
+	// CONSTRUCTORS
+	//***********************************************************************************
+
+	/**
+	 * Creates n singletons
+	 *
+	 * @param n           number of elements
+	 * @param environment backtracking environment
+	 */
+	public StoredUnionFind(int n, IEnvironment environment) {
+		this.parent = new IStateInt[n];
+		this.rank = new IStateInt[n];
+		for (int i = 0; i < n; i++) {
+			parent[i] = environment.makeInt(i);
+			rank[i] = environment.makeInt(0);
+		}
+		this.nbUnions = environment.makeInt(0);
+	}
+
+	//***********************************************************************************
+	// METHODS
+	//***********************************************************************************
+
+	/**
+	 * Makes every element a singleton again
+	 */
+	public void reset() {
+		for (int i = 0; i < parent.length; i++) {
+			parent[i].set(i);
+			rank[i].set(0);
+		}
+		nbUnions.set(0);
+	}
+
+	/**
+	 * @param i an element
+	 * @return the representative of the set containing i
+	 */
+	public int find(int i) {
+		int p = parent[i].get();
+		while (p != i) {
+			i = p;
+			p = parent[i].get();
+		}
+		return i;
+	}
+
+	/**
+	 * Merges the sets containing i and j
+	 *
+	 * @param i an element
+	 * @param j an element
+	 * @return true iff i and j were in different sets
+	 */
+	public boolean union(int i, int j) {
+		int ri = find(i);
+		int rj = find(j);
+		if (ri == rj) {
+			return false;
+		}
+		int rankI = rank[ri].get();
+		int rankJ = rank[rj].get();
+		if (rankI < rankJ) {
+			parent[ri].set(rj);
+		} else {
+			parent[rj].set(ri);
+			if (rankI == rankJ) {
+				rank[ri].set(rankI + 1);
+			}
+		}
+		nbUnions.add(1);
+		return true;
+	}
+
+	/**
+	 * @return the number of successful unions, i.e. n minus the number of sets
+	 */
+	public int getNbUnions() {
+		return nbUnions.get();
+	}
+}
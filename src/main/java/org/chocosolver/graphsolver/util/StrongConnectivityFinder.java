@@ -45,156 +45,180 @@
 package org.chocosolver.graphsolver.util;
 
 import org.chocosolver.util.objects.graphs.DirectedGraph;
-import org.chocosolver.util.objects.setDataStructures.ISet;
+import org.chocosolver.util.objects.setDataStructures.ISetIterator;
 
+import java.util.Arrays;
 import java.util.BitSet;
-import java.util.Iterator;
 
+/**
+ * Computes the strongly connected components of a directed graph (possibly restricted to a subset of its nodes).
+ * <p>
+ * Iterative version of Tarjan's algorithm, running in O(n+m) without any allocation once the
+ * internal arrays have reached their final size. Successors of the restricted nodes are first
+ * copied into a compact array, so that the DFS only moves integer cursors.
+ * Outputs are only meaningful for the nodes of the last restriction.
+ */
 public class StrongConnectivityFinder {
 
+	//***********************************************************************************
+	// VARIABLES
+	//***********************************************************************************
+
 	// input
-	private DirectedGraph graph;
-	private BitSet restriction;
-	private int n;
+	private final DirectedGraph graph;
+	private final BitSet restriction;
+	private final int n;
 	// output
-	private int[] sccFirstNode, nextNode, nodeSCC;
+	private final int[] sccFirstNode, nextNode, nodeSCC;
 	private int nbSCC;
 
-	// util
-	private int[] stack, p, inf, nodeOfDfsNum, dfsNumOfNode;
-	private Iterator<Integer>[] iterator;
-	private BitSet inStack;
+	// successors of i within the restriction are succ[succStart[i]], ..., succ[succEnd[i]-1]
+	private final int[] succStart, succEnd;
+	private int[] succ;
+	// dfs
+	private final int[] cursor, dfsNum, low, callStack, sccStack;
+	private final int[] stamp;
+	private int epoch;
+	private final ISetIterator[] succIter;
+	private ISetIterator nodeIter;
+
+	//***********************************************************************************
+	// CONSTRUCTORS
+	//***********************************************************************************
 
 	public StrongConnectivityFinder(DirectedGraph graph) {
 		this.graph = graph;
 		this.n = graph.getNbMaxNodes();
-		//
-		stack = new int[n];
-		p = new int[n];
-		inf = new int[n];
-		nodeOfDfsNum = new int[n];
-		dfsNumOfNode = new int[n];
-		inStack = new BitSet(n);
 		restriction = new BitSet(n);
 		sccFirstNode = new int[n];
 		nextNode = new int[n];
 		nodeSCC = new int[n];
+		succStart = new int[n];
+		succEnd = new int[n];
+		succ = new int[n];
+		cursor = new int[n];
+		dfsNum = new int[n];
+		low = new int[n];
+		callStack = new int[n];
+		sccStack = new int[n];
+		stamp = new int[n];
+		succIter = new ISetIterator[n];
 		nbSCC = 0;
-		iterator = new Iterator[n];
 	}
 
+	//***********************************************************************************
+	// ALGORITHM
+	//***********************************************************************************
+
+	/**
+	 * Computes the SCCs of the whole graph
+	 */
 	public void findAllSCC() {
-		ISet nodes = graph.getNodes();
-		for (int i = 0; i < n; i++) {
-			restriction.set(i, nodes.contains(i));
+		if (nodeIter == null) {
+			nodeIter = graph.getNodes().newIterator();
+		}
+		restriction.clear();
+		nodeIter.reset();
+		while (nodeIter.hasNext()) {
+			restriction.set(nodeIter.nextInt());
 		}
 		findAllSCCOf(restriction);
 	}
 
+	/**
+	 * Computes the SCCs of the subgraph induced by the given nodes
+	 *
+	 * @param restriction a subset of the nodes of the graph (not modified)
+	 */
 	public void findAllSCCOf(BitSet restriction) {
-		inStack.clear();
-		for (int i = 0; i < n; i++) {
-			dfsNumOfNode[i] = 0;
-			inf[i] = n + 2;
-			nextNode[i] = -1;
-			sccFirstNode[i] = -1;
-			nodeSCC[i] = -1;
-		}
 		nbSCC = 0;
-		findSingletons(restriction);
-		int first = restriction.nextSetBit(0);
-		while (first >= 0) {
-			findSCC(first, restriction, stack, p, inf, nodeOfDfsNum, dfsNumOfNode, inStack);
-			first = restriction.nextSetBit(first);
+		if (++epoch == Integer.MAX_VALUE) {
+			Arrays.fill(stamp, 0);
+			epoch = 1;
 		}
-	}
-
-	private void findSingletons(BitSet restriction) {
-		ISet nodes = graph.getNodes();
+		copySuccessors(restriction);
+		int time = 0;
 		for (int i = restriction.nextSetBit(0); i >= 0; i = restriction.nextSetBit(i + 1)) {
-			if (nodes.contains(i) && graph.getPredOf(i).size() * graph.getSuccOf(i).size() == 0) {
-				nodeSCC[i] = nbSCC;
-				sccFirstNode[nbSCC++] = i;
-				restriction.clear(i);
+			if (stamp[i] != epoch) {
+				time = findSCC(i, time);
 			}
 		}
 	}
 
-	private void findSCC(int start, BitSet restriction, int[] stack, int[] p, int[] inf, int[] nodeOfDfsNum, int[] dfsNumOfNode, BitSet inStack) {
-		int nb = restriction.cardinality();
-		// trivial case
-		if (nb == 1) {
-			nodeSCC[start] = nbSCC;
-			sccFirstNode[nbSCC++] = start;
-			restriction.clear(start);
-			return;
-		}
-		//initialization
-		int stackIdx = 0;
-		int k = 0;
-		int i = k;
-		dfsNumOfNode[start] = k;
-		nodeOfDfsNum[k] = start;
-		stack[stackIdx++] = i;
-		inStack.set(i);
-		p[k] = k;
-		iterator[k] = graph.getSuccOf(start).iterator();
-		int j;
-		// algo
-		while (true) {
-			if (iterator[i].hasNext()) {
-				j = iterator[i].next();
+	private void copySuccessors(BitSet restriction) {
+		int size = 0;
+		for (int i = restriction.nextSetBit(0); i >= 0; i = restriction.nextSetBit(i + 1)) {
+			succStart[i] = size;
+			ISetIterator it = succIter[i];
+			if (it == null) {
+				it = succIter[i] = graph.getSuccOf(i).newIterator();
+			}
+			it.reset();
+			while (it.hasNext()) {
+				int j = it.nextInt();
 				if (restriction.get(j)) {
-					if (dfsNumOfNode[j] == 0 && j != start) {
-						k++;
-						nodeOfDfsNum[k] = j;
-						dfsNumOfNode[j] = k;
-						p[k] = i;
-						i = k;
-						iterator[i] = graph.getSuccOf(j).iterator();
-						stack[stackIdx++] = i;
-						inStack.set(i);
-						inf[i] = i;
-					} else if (inStack.get(dfsNumOfNode[j])) {
-						inf[i] = Math.min(inf[i], dfsNumOfNode[j]);
+					if (size == succ.length) {
+						succ = Arrays.copyOf(succ, size * 3 / 2 + 1);
 					}
+					succ[size++] = j;
 				}
-			} else {
-				if (i == 0) {
-					break;
+			}
+			succEnd[i] = size;
+		}
+	}
+
+	private int findSCC(int start, int time) {
+		int top = 0;
+		int sccTop = 0;
+		time = visit(start, time);
+		callStack[top++] = start;
+		sccStack[sccTop++] = start;
+		while (top > 0) {
+			int i = callStack[top - 1];
+			if (cursor[i] < succEnd[i]) {
+				int j = succ[cursor[i]++];
+				if (stamp[j] != epoch) {
+					time = visit(j, time);
+					callStack[top++] = j;
+					sccStack[sccTop++] = j;
+				} else if (nodeSCC[j] == -1) {
+					// j is visited but not assigned yet, so it is still in the SCC stack
+					low[i] = Math.min(low[i], dfsNum[j]);
 				}
-				if (inf[i] >= i) {
-					int y, z;
+			} else {
+				top--;
+				if (low[i] == dfsNum[i]) {
+					sccFirstNode[nbSCC] = -1;
+					int y;
 					do {
-						z = stack[--stackIdx];
-						inStack.clear(z);
-						y = nodeOfDfsNum[z];
-						restriction.clear(y);
-						sccAdd(y);
-					} while (z != i);
+						y = sccStack[--sccTop];
+						nodeSCC[y] = nbSCC;
+						nextNode[y] = sccFirstNode[nbSCC];
+						sccFirstNode[nbSCC] = y;
+					} while (y != i);
 					nbSCC++;
 				}
-				inf[p[i]] = Math.min(inf[p[i]], inf[i]);
-				i = p[i];
+				if (top > 0) {
+					int p = callStack[top - 1];
+					low[p] = Math.min(low[p], low[i]);
+				}
 			}
 		}
-		if (inStack.cardinality() > 0) {
-			int y;
-			do {
-				y = nodeOfDfsNum[stack[--stackIdx]];
-				restriction.clear(y);
-				sccAdd(y);
-			} while (y != start);
-			nbSCC++;
-		}
+		return time;
 	}
 
-	private void sccAdd(int y) {
-		nodeSCC[y] = nbSCC;
-		nextNode[y] = sccFirstNode[nbSCC];
-		sccFirstNode[nbSCC] = y;
+	private int visit(int i, int time) {
+		stamp[i] = epoch;
+		dfsNum[i] = low[i] = time;
+		cursor[i] = succStart[i];
+		nodeSCC[i] = -1;
+		return time + 1;
 	}
 
+	//***********************************************************************************
+	// ACCESSORS
+	//***********************************************************************************
+
 	public int getNbSCC() {
 		return nbSCC;
 	}
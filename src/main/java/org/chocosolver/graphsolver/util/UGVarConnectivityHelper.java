@@ -3,6 +3,7 @@ package org.chocosolver.graphsolver.util;
 import gnu.trove.list.array.TIntArrayList;
 import org.chocosolver.graphsolver.variables.UndirectedGraphVar;
 import org.chocosolver.util.objects.setDataStructures.ISet;
+import org.chocosolver.util.objects.setDataStructures.ISetIterator;
 import org.chocosolver.util.objects.setDataStructures.SetFactory;
 
 import java.util.BitSet;
@@ -24,8 +25,14 @@ public class UGVarConnectivityHelper {
 	private TIntArrayList bridgeFrom, bridgeTo;
 	private BitSet hasMandInSubtree, visited;
 	private ISet articulationPoints;
-	private int[] parent, time, minT;
-	private int[] timer = new int[1];
+	private int[] parent, time, minT, nbMandChilds, stack;
+	// nodes lying on a simple path between two mandatory nodes, computed from blocks: DFS order and first node of each block
+	private BitSet hull, startsBlock;
+	private int[] order, blockStart;
+	private int nbVisited;
+	// neighbor cursors of the iterative DFS, created once per node and reused
+	private ISetIterator[] cursors;
+	private ISetIterator rootIter;
 
 	public UGVarConnectivityHelper(UndirectedGraphVar g){
 		this.g = g;
@@ -70,6 +77,19 @@ public class UGVarConnectivityHelper {
 		return bridgeTo;
 	}
 
+	/**
+	 * @return the nodes lying on a simple path between two mandatory nodes of the upper bound,
+	 * as computed by the last call to findMandatoryArticulationPointsAndBridges (which must have been
+	 * made with a connected upper bound). An edge lies on such a path iff both its endpoints do.
+	 */
+	public BitSet getHull() {
+		return hull;
+	}
+
+	/**
+	 * Finds non-mandatory articulation points and non-mandatory bridges which separate mandatory nodes,
+	 * through an iterative depth-first search (constant stack depth, no allocation once initialized)
+	 */
 	public void findMandatoryArticulationPointsAndBridges() {
 		if(articulationPoints == null){
 			articulationPoints = SetFactory.makeBipartiteSet(0);
@@ -80,77 +100,128 @@ public class UGVarConnectivityHelper {
 			parent = new int[n];
 			time = new int[n];
 			minT = new int[n];
+			nbMandChilds = new int[n];
+			stack = new int[n];
+			hull = new BitSet(n);
+			startsBlock = new BitSet(n);
+			order = new int[n];
+			blockStart = new int[n];
+			cursors = new ISetIterator[n];
+			rootIter = g.getMandatoryNodes().newIterator();
 		}
 		articulationPoints.clear();
 		bridgeFrom.clear();
 		bridgeTo.clear();
 		ISet mNodes = g.getMandatoryNodes();
+		hull.clear();
 		if(mNodes.size()>=2) {
 			visited.clear();
 			hasMandInSubtree.clear();
-			for(int root : mNodes.toArray()) { // uses to array because default iterator may be used within the algorithm
+			startsBlock.clear();
+			nbVisited = 0;
+			rootIter.reset();
+			while (rootIter.hasNext()) {
+				int root = rootIter.nextInt();
 				if(!visited.get(root)) {
-					// root node init
-					visited.set(root);
-					parent[root] = root;
-					timer[0] = 0;
-					// DFS from root
 					findMAPBFrom(root);
 				}
 			}
+			findHull();
 		}
 	}
 
-	private void findMAPBFrom(int i){
-		int nbMandChilds = 0;
-		for (int j : g.getPotNeighOf(i)) {
-			if (!visited.get(j)) {
-				visited.set(j);
-				parent[j] = i;
-				timer[0]++;
-				minT[j] = time[j] = timer[0];
-				if(g.getMandatoryNodes().contains(j)) hasMandInSubtree.set(j);
-				findMAPBFrom(j);
-
-				// j sub-tree has been fully explored
-				// propagates to i if subtrees of j have links to ancestors of i
-				minT[i] = Math.min(minT[i], minT[j]);
-				// propagates to i if subtrees of j include mandatory nodes
-				if(hasMandInSubtree.get(j)) hasMandInSubtree.set(i);
-
-				if(hasMandInSubtree.get(j)){
-					nbMandChilds ++;
+	/**
+	 * A block lies on the path of the block-cut tree between the (mandatory) root and a mandatory node
+	 * iff the DFS subtree of its first node has a mandatory node.
+	 * Each non-root node belongs to the block of the edge to its DFS parent.
+	 */
+	private void findHull() {
+		for (int k = 0; k < nbVisited; k++) {
+			int v = order[k];
+			if (parent[v] == v) {
+				hull.set(v);
+			} else {
+				blockStart[v] = startsBlock.get(v) ? v : blockStart[parent[v]];
+				if (hasMandInSubtree.get(blockStart[v])) {
+					hull.set(v);
 				}
+			}
+		}
+	}
 
-				// If the lowest vertex reachable from subtree under j is below i in DFS tree,
-				// then (i,j) is a bridge
-				if (minT[j] > time[i] && !g.getMandNeighOf(i).contains(j)){
-					bridgeFrom.add(i);
-					bridgeTo.add(j);
+	private void findMAPBFrom(int root){
+		ISet mNodes = g.getMandatoryNodes();
+		// root node init
+		int timer = 0;
+		visit(root, root, timer);
+		int size = 0;
+		stack[size++] = root;
+		while (size > 0) {
+			int i = stack[size - 1];
+			ISetIterator cursor = cursors[i];
+			if (cursor.hasNext()) {
+				int j = cursor.nextInt();
+				if (!visited.get(j)) {
+					visit(j, i, ++timer);
+					stack[size++] = j;
+				} else if (j != parent[i]) { // i can reach j (which might be above i)
+					minT[i] = Math.min(minT[i], time[j]);
 				}
-
-				// root node ?
-				if(parent[i] == i){
-					// root has >1 child with mandatory nodes in their subtrees
-					if(nbMandChilds>1 && !g.getMandatoryNodes().contains(i))
-						articulationPoints.add(i);
-
-				}else{
-					// j sub-tree has been explored and cannot go above i
-					if(minT[j] >= time[i] && hasMandInSubtree.get(j) && !g.getMandatoryNodes().contains(i))
-						articulationPoints.add(i);
+			} else if (--size > 0) {
+				// i sub-tree has been fully explored
+				int p = stack[size - 1];
+				// propagates to p if subtrees of i have links to ancestors of p
+				minT[p] = Math.min(minT[p], minT[i]);
+				// propagates to p if subtrees of i include mandatory nodes
+				if (hasMandInSubtree.get(i)) {
+					hasMandInSubtree.set(p);
+					nbMandChilds[p]++;
+				}
+				// i is the first node of a block iff its subtree cannot go above p
+				if (minT[i] >= time[p]) {
+					startsBlock.set(i);
+				}
+				// If the lowest vertex reachable from subtree under i is below p in DFS tree,
+				// then (p,i) is a bridge
+				if (minT[i] > time[p] && !g.getMandNeighOf(p).contains(i)) {
+					bridgeFrom.add(p);
+					bridgeTo.add(i);
+				}
+				if (!mNodes.contains(p)) {
+					if (parent[p] == p) {
+						// root has >1 child with mandatory nodes in their subtrees
+						if (nbMandChilds[p] > 1) {
+							articulationPoints.add(p);
+						}
+					} else if (minT[i] >= time[p] && hasMandInSubtree.get(i)) {
+						// i sub-tree has been explored and cannot go above p
+						articulationPoints.add(p);
+					}
 				}
 			}
-			if(j != parent[i]){ // i can reach j (which might be above i)
-				minT[i] = Math.min(minT[i], time[j]);
-			}
 		}
 	}
 
+	private void visit(int i, int p, int t) {
+		visited.set(i);
+		order[nbVisited++] = i;
+		parent[i] = p;
+		minT[i] = time[i] = t;
+		nbMandChilds[i] = 0;
+		if (g.getMandatoryNodes().contains(i)) {
+			hasMandInSubtree.set(i);
+		}
+		if (cursors[i] == null) {
+			cursors[i] = g.getPotNeighOf(i).newIterator();
+		}
+		cursors[i].reset();
+	}
+
 	public boolean isBiconnected() {
 		// connected ?
 		int root = g.getPotentialNodes().iterator().next();
 		if(visited==null)visited = new BitSet(n);
+		visited.clear();
 		exploreFrom(root,visited);
 		if(visited.cardinality()<g.getPotentialNodes().size()) {
 			return false;
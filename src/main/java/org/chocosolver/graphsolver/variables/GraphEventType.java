@@ -40,7 +40,8 @@ public enum GraphEventType implements IEventType {
 	REMOVE_NODE(1),
 	ADD_NODE(2),
 	REMOVE_ARC(4),
-	ADD_ARC(8);
+	ADD_ARC(8),
+	REMOVE_NODE_AND_ARCS(1 | 4); // node removal together with its incident arcs
 
 	//***********************************************************************************
 	// VARIABLES
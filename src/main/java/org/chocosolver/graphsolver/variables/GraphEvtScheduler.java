@@ -46,30 +46,65 @@ package org.chocosolver.graphsolver.variables;
 
 import org.chocosolver.util.iterators.EvtScheduler;
 
+/**
+ * Event scheduler of graph variables.
+ * Propagators are stored in five buckets, depending on their propagation conditions:
+ * <ul>
+ * <li>0: ADD_ARC only</li>
+ * <li>1: ADD_ARC and REMOVE_ARC</li>
+ * <li>2: REMOVE_ARC only</li>
+ * <li>3: node events only (ADD_NODE and/or REMOVE_NODE)</li>
+ * <li>4: any other combination</li>
+ * </ul>
+ * so that an event only reaches the buckets of propagators which may react to it
+ * (five is the maximum number of buckets of a variable).
+ */
 public class GraphEvtScheduler implements EvtScheduler<GraphEventType> {
 
-	private boolean done = true;
+	private static final int ARCS = GraphEventType.ADD_ARC.getMask() | GraphEventType.REMOVE_ARC.getMask();
+	private static final int NODES = GraphEventType.ADD_NODE.getMask() | GraphEventType.REMOVE_NODE.getMask();
+
+	// bucket ranges to visit, by pairs [from,to), for each event
+	private static final int[] DIS = new int[]{
+			-1, // VOID
+			3, 5, -1, // REMOVE_NODE
+			3, 5, -1, // ADD_NODE
+			1, 3, 4, 5, -1, // REMOVE_ARC
+			0, 2, 4, 5, -1, // ADD_ARC
+			1, 5, -1, // REMOVE_NODE_AND_ARCS
+	};
+	private static final int[] IDX = new int[]{0, 1, 4, 7, 12, 17};
+	private int i = 0;
 
 	@Override
 	public void init(GraphEventType type) {
-		done = false;
+		i = IDX[type.ordinal()];
 	}
 
 	@Override
 	public int select(int mask) {
-		return 0;
+		mask &= ARCS | NODES;
+		if (mask == GraphEventType.ADD_ARC.getMask()) {
+			return 0;
+		} else if (mask == GraphEventType.REMOVE_ARC.getMask()) {
+			return 2;
+		} else if ((mask & ~ARCS) == 0) {
+			return 1;
+		} else if ((mask & ~NODES) == 0) {
+			return 3;
+		} else {
+			return 4;
+		}
 	}
 
 	@Override
 	public boolean hasNext() {
-		return !done;
+		return DIS[i] > -1;
 	}
 
 	@Override
 	public int next() {
-		if (done) return 1;
-		done = true;
-		return 0;
+		return DIS[i++];
 	}
 
 	@Override
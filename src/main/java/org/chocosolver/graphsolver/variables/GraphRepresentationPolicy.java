@@ -0,0 +1,88 @@
+/**
+ * Copyright (c) 1999-2011, Ecole des Mines de Nantes
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * <p>
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the Ecole des Mines de Nantes nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE REGENTS AND CONTRIBUTORS ``AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE REGENTS AND CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.chocosolver.graphsolver.variables;
+
+import org.chocosolver.util.objects.setDataStructures.SetType;
+
+/**
+ * Policy to select the data structures storing the neighborhoods of the bounds of a graph variable.
+ * <p>
+ * BITSET neighborhoods have O(1) operations but their iteration scans n/64 words whatever their size,
+ * whereas BIPARTITESET neighborhoods iterate in O(size). The lower bound of a graph variable is usually sparse,
+ * as are the upper bounds of sparse graphs (e.g. k-nearest-neighbor graphs).
+ */
+public enum GraphRepresentationPolicy {
+
+	/**
+	 * BITSET for both bounds
+	 */
+	DENSE,
+	/**
+	 * BIPARTITESET for both bounds
+	 */
+	SPARSE,
+	/**
+	 * BIPARTITESET for the lower bound, and for the upper bound unless it is dense
+	 */
+	ADAPTIVE;
+
+	// a neighborhood is dense when it holds at least one element per 32 potential elements
+	private static final int DENSITY_RATIO = 32;
+
+	/**
+	 * @return the set type of the neighborhoods of the lower bound
+	 */
+	public SetType getLBSetType() {
+		return this == DENSE ? SetType.BITSET : SetType.BIPARTITESET;
+	}
+
+	/**
+	 * @param n         maximum number of nodes
+	 * @param maxDegree expected maximum degree of the upper bound
+	 * @return the set type of the neighborhoods of the upper bound
+	 */
+	public SetType getUBSetType(int n, int maxDegree) {
+		switch (this) {
+			case DENSE:
+				return SetType.BITSET;
+			case SPARSE:
+				return SetType.BIPARTITESET;
+			default:
+				return isDense(n, maxDegree) ? SetType.BITSET : SetType.BIPARTITESET;
+		}
+	}
+
+	/**
+	 * @param n      maximum number of nodes
+	 * @param degree a number of neighbors
+	 * @return true iff a neighborhood of the given size should be stored as a BITSET
+	 */
+	public static boolean isDense(int n, int degree) {
+		return (long) degree * DENSITY_RATIO >= n;
+	}
+}
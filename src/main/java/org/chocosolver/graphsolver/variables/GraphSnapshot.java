@@ -0,0 +1,173 @@
+/**
+ * Copyright (c) 1999-2014, Ecole des Mines de Nantes
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * <p>
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the Ecole des Mines de Nantes nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE REGENTS AND CONTRIBUTORS ``AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE REGENTS AND CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.graphsolver.variables;
+
+import org.chocosolver.solver.ICause;
+import org.chocosolver.solver.exception.ContradictionException;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Compact value of a graph variable, typically used to store solutions.
+ * <p>
+ * The value is made of a set of nodes and, for each node i, the sorted array of its successors
+ * (or neighbors, in which case each edge is stored in both directions).
+ * Arrays are reused from one recording to another,
+ * so that the memory is proportional to the size of the recorded graph, not to n².
+ */
+public class GraphSnapshot {
+
+	//***********************************************************************************
+	// VARIABLES
+	//***********************************************************************************
+
+	private final int n;
+	private final BitSet nodes;
+	// successors of i are targets[offsets[i]], ..., targets[offsets[i+1]-1]
+	private final int[] offsets;
+	private int[] targets;
+
+	//***********************************************************************************
+	// CONSTRUCTORS
+	//***********************************************************************************
+
+	/**
+	 * Creates an empty value
+	 *
+	 * @param n maximum number of nodes
+	 */
+	public GraphSnapshot(int n) {
+		this.n = n;
+		this.nodes = new BitSet(n);
+		this.offsets = new int[n + 1];
+		this.targets = new int[n];
+	}
+
+	/**
+	 * Creates a value storing the lower bound of g
+	 *
+	 * @param g a graph variable
+	 */
+	public GraphSnapshot(GraphVar g) {
+		this(g.getNbMaxNodes());
+		record(g);
+	}
+
+	//***********************************************************************************
+	// METHODS
+	//***********************************************************************************
+
+	/**
+	 * Stores the lower bound of g (i.e. its value when g is instantiated) in O(n+m)
+	 *
+	 * @param g a graph variable having the same maximum number of nodes as this
+	 * @return this object
+	 */
+	public GraphSnapshot record(GraphVar g) {
+		assert g.getNbMaxNodes() == n;
+		nodes.clear();
+		int size = 0;
+		for (int i = 0; i < n; i++) {
+			offsets[i] = size;
+			if (g.getMandatoryNodes().contains(i)) {
+				nodes.set(i);
+				int first = size;
+				for (int j : g.getMandSuccOrNeighOf(i)) {
+					if (size == targets.length) {
+						targets = Arrays.copyOf(targets, size * 3 / 2 + 1);
+					}
+					targets[size++] = j;
+				}
+				Arrays.sort(targets, first, size);
+			}
+		}
+		offsets[n] = size;
+		return this;
+	}
+
+	/**
+	 * Instantiates g to this value in O(n+m), where m is the number of potential arcs of g
+	 *
+	 * @param g     a graph variable having the same maximum number of nodes as this
+	 * @param cause algorithm which is related to the modification
+	 * @throws ContradictionException if this value is not in the domain of g
+	 */
+	public void restore(GraphVar g, ICause cause) throws ContradictionException {
+		g.instantiateTo(this, cause);
+	}
+
+	/**
+	 * @return the maximum number of nodes
+	 */
+	public int getNbMaxNodes() {
+		return n;
+	}
+
+	/**
+	 * @return the set of nodes of this value (should not be modified)
+	 */
+	public BitSet getNodes() {
+		return nodes;
+	}
+
+	/**
+	 * @param i a node
+	 * @return the number of successors (or neighbors) of i
+	 */
+	public int getNbSuccOrNeighOf(int i) {
+		return offsets[i + 1] - offsets[i];
+	}
+
+	/**
+	 * @param i a node
+	 * @param k an index lower than getNbSuccOrNeighOf(i)
+	 * @return the k-th smallest successor (or neighbor) of i
+	 */
+	public int getSuccOrNeighOf(int i, int k) {
+		return targets[offsets[i] + k];
+	}
+
+	/**
+	 * @param from tail of the arc
+	 * @param to   head of the arc
+	 * @return true iff (from,to) is an arc (or edge) of this value
+	 */
+	public boolean arcExists(int from, int to) {
+		return Arrays.binarySearch(targets, offsets[from], offsets[from + 1], to) >= 0;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("nodes : ").append(nodes).append("\n");
+		for (int i = nodes.nextSetBit(0); i >= 0; i = nodes.nextSetBit(i + 1)) {
+			sb.append(i).append(" : ").append(Arrays.toString(Arrays.copyOfRange(targets, offsets[i], offsets[i + 1]))).append("\n");
+		}
+		return sb.toString();
+	}
+}
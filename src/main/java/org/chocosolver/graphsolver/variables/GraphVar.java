@@ -29,16 +29,19 @@ package org.chocosolver.graphsolver.variables;
 
 import org.chocosolver.graphsolver.variables.delta.GraphDelta;
 import org.chocosolver.graphsolver.variables.delta.GraphDeltaMonitor;
+import org.chocosolver.memory.IStateInt;
 import org.chocosolver.solver.ICause;
 import org.chocosolver.solver.Model;
 import org.chocosolver.solver.exception.ContradictionException;
 import org.chocosolver.solver.variables.Variable;
 import org.chocosolver.solver.variables.events.IEventType;
 import org.chocosolver.solver.variables.impl.AbstractVariable;
+import org.chocosolver.solver.variables.view.IView;
 import org.chocosolver.util.objects.graphs.IGraph;
 import org.chocosolver.util.objects.setDataStructures.ISet;
 
 import java.lang.reflect.Field;
+import java.util.BitSet;
 
 public abstract class GraphVar<E extends IGraph> extends AbstractVariable implements Variable {
 
@@ -52,6 +55,13 @@ public abstract class GraphVar<E extends IGraph> extends AbstractVariable implem
 	protected E UB, LB;
 	protected GraphDelta delta;
 	protected int n;
+	// number of arcs (or edges) in UB and LB, maintained incrementally (null for views)
+	protected IStateInt nbPotArcs, nbMandArcs;
+	// views of this variable, and nodes touched by the modification being notified to them (-1 stands for any node)
+	private IView[] subscribedViews = new IView[0];
+	private int touchedX = -1, touchedY = -1;
+	// temporary storage for set-at-a-time operations
+	protected int[] buffer;
 	///////////// Attributes related to Variable ////////////
 	protected boolean reactOnModification;
 
@@ -70,10 +80,17 @@ public abstract class GraphVar<E extends IGraph> extends AbstractVariable implem
 		this.UB = UB;
 		this.n = UB.getNbMaxNodes();
 		assert n == LB.getNbMaxNodes();
+		if (!(this instanceof IView)) {
+			// views read the bounds of another variable, so that they cannot maintain counters from their own modifications
+			this.nbPotArcs = getEnvironment().makeInt(countArcs(UB));
+			this.nbMandArcs = getEnvironment().makeInt(countArcs(LB));
+		}
+		this.buffer = new int[n];
 		Field f = null; //NoSuchFieldException
 		try {
 			AbstractVariable me = this;
-			f = me.getClass().getSuperclass().getSuperclass().getDeclaredField("scheduler");
+			// the field is looked up in AbstractVariable so that subclasses (e.g. views) are supported
+			f = AbstractVariable.class.getDeclaredField("scheduler");
 			f.setAccessible(true);
 			f.set(me, new GraphEvtScheduler());
 		} catch (NoSuchFieldException | IllegalAccessException e) {
@@ -85,24 +102,93 @@ public abstract class GraphVar<E extends IGraph> extends AbstractVariable implem
 	// METHODS
 	//***********************************************************************************
 
+	/**
+	 * Counts arcs of g (each edge is counted once if g is undirected)
+	 *
+	 * @param g a graph
+	 * @return the number of arcs (or edges) in g
+	 */
+	private static int countArcs(IGraph g) {
+		int nb = 0;
+		int n = g.getNbMaxNodes();
+		for (int i = 0; i < n; i++) {
+			if (g.isDirected()) {
+				nb += g.getSuccOrNeighOf(i).size();
+			} else {
+				for (int j : g.getSuccOrNeighOf(i)) {
+					if (j >= i) {
+						nb++;
+					}
+				}
+			}
+		}
+		return nb;
+	}
+
 	@Override
 	public boolean isInstantiated() {
-		if (getPotentialNodes().size() != getMandatoryNodes().size()) {
-			return false;
+		return getPotentialNodes().size() == getMandatoryNodes().size()
+				&& getNbPotentialArcs() == getNbMandatoryArcs();
+	}
+
+	/**
+	 * Notifies propagators and views of a modification which only touches nodes x and y
+	 * so that graph views can ignore modifications outside of their nodes
+	 *
+	 * @param e     event type
+	 * @param x     touched node, or -1 if several nodes are touched
+	 * @param y     other touched node, or -1 for a node event or if several nodes are touched
+	 * @param cause algorithm which is related to the modification
+	 */
+	protected void notifyPropagators(IEventType e, int x, int y, ICause cause) throws ContradictionException {
+		touchedX = x;
+		touchedY = y;
+		try {
+			notifyPropagators(e, cause);
+		} finally {
+			touchedX = -1;
+			touchedY = -1;
 		}
-		ISet suc;
-		for (int i : getUB().getNodes()) {
-			suc = UB.getSuccOrNeighOf(i);
-			if (suc.size() != getLB().getSuccOrNeighOf(i).size()) {
-				return false;
+	}
+
+	/**
+	 * Called when the variable observed by this graph view is modified.
+	 * By default, the event is forwarded whatever the touched nodes.
+	 *
+	 * @param event event of the observed variable
+	 * @param x     touched node, or -1 if unknown
+	 * @param y     other touched node, or -1 if unknown or for a node event
+	 */
+	protected void notifyView(IEventType event, int x, int y) throws ContradictionException {
+		((IView) this).notify(event);
+	}
+
+	@Override
+	public void subscribeView(IView view) {
+		super.subscribeView(view);
+		subscribedViews = getViews();
+	}
+
+	@Override
+	public void notifyViews(IEventType event, ICause cause) throws ContradictionException {
+		assert cause != null;
+		for (int i = subscribedViews.length - 1; i >= 0; i--) {
+			IView view = subscribedViews[i];
+			if (view != cause) {
+				if (view instanceof GraphVar) {
+					((GraphVar<?>) view).notifyView(event, touchedX, touchedY);
+				} else {
+					view.notify(event);
+				}
 			}
 		}
-		return true;
 	}
 
 	/**
 	 * Remove node x from the domain
 	 * Removes x from the upper bound graph
+	 * Arcs incident to x are removed in the same pass and propagators are notified only once,
+	 * with a REMOVE_NODE_AND_ARCS event if x had incident arcs
 	 *
 	 * @param x     node's index
 	 * @param cause algorithm which is related to the removal
@@ -111,29 +197,102 @@ public abstract class GraphVar<E extends IGraph> extends AbstractVariable implem
 	public boolean removeNode(int x, ICause cause) throws ContradictionException {
 		assert cause != null;
 		assert (x >= 0 && x < n);
+		int nbArcs = removeNodeAndArcs(x, cause);
+		if (nbArcs >= 0) {
+			GraphEventType e = nbArcs == 0 ? GraphEventType.REMOVE_NODE : GraphEventType.REMOVE_NODE_AND_ARCS;
+			notifyPropagators(e, x, -1, cause);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Remove every node of nodes from the domain
+	 * Removes them, together with their incident arcs, from the upper bound graph
+	 * Propagators are notified only once for the whole set
+	 *
+	 * @param nodes set of node indexes
+	 * @param cause algorithm which is related to the removal
+	 * @return true iff the removal has an effect
+	 * @throws ContradictionException if one of the nodes was mandatory
+	 */
+	public boolean removeNodes(BitSet nodes, ICause cause) throws ContradictionException {
+		assert cause != null;
+		int nbNodes = 0;
+		int nbArcs = 0;
+		for (int x = nodes.nextSetBit(0); x >= 0 && x < n; x = nodes.nextSetBit(x + 1)) {
+			int nbArcsOfX = removeNodeAndArcs(x, cause);
+			if (nbArcsOfX >= 0) {
+				nbNodes++;
+				nbArcs += nbArcsOfX;
+			}
+		}
+		if (nbNodes > 0) {
+			GraphEventType e = nbArcs == 0 ? GraphEventType.REMOVE_NODE : GraphEventType.REMOVE_NODE_AND_ARCS;
+			notifyPropagators(e, cause);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Removes x and its incident arcs from the upper bound graph and records them in the delta,
+	 * but does not notify propagators
+	 *
+	 * @param x     node's index
+	 * @param cause algorithm which is related to the removal
+	 * @return the number of arcs (or edges) removed with x, or -1 if x was not in the upper bound graph
+	 * @throws ContradictionException if x or one of its incident arcs was mandatory
+	 */
+	private int removeNodeAndArcs(int x, ICause cause) throws ContradictionException {
 		if (LB.getNodes().contains(x)) {
 			this.contradiction(cause, "remove mandatory node");
-			return true;
 		} else if (!UB.getNodes().contains(x)) {
-			return false;
+			return -1;
 		}
-		ISet nei = UB.getSuccOrNeighOf(x);
-		for (int i : nei) {
-			removeArc(x, i, cause);
+		if (LB.getSuccOrNeighOf(x).size() > 0 || LB.getPredOrNeighOf(x).size() > 0) {
+			this.contradiction(cause, "remove mandatory arc");
 		}
-		nei = UB.getPredOrNeighOf(x);
-		for (int i : nei) {
-			removeArc(i, x, cause);
+		int nbArcs = removeIncidentArcs(x, cause);
+		UB.removeNode(x);
+		nbPotArcs.add(-nbArcs);
+		if (reactOnModification) {
+			delta.addNode(x, GraphDelta.NR, cause);
+		}
+		return nbArcs;
+	}
+
+	/**
+	 * Records in the delta every arc of the upper bound graph which is incident to x.
+	 * Arcs are not removed from the upper bound graph: this is done by UB.removeNode(x)
+	 *
+	 * @param x     node's index
+	 * @param cause algorithm which is related to the removal
+	 * @return the number of arcs (or edges) incident to x
+	 */
+	private int removeIncidentArcs(int x, ICause cause) {
+		ISet succs = UB.getSuccOrNeighOf(x);
+		ISet preds = UB.getPredOrNeighOf(x);
+		int nbArcs = succs.size();
+		if (reactOnModification) {
+			for (int j : succs) {
+				delta.addArc(x, j, GraphDelta.AR, cause);
+			}
 		}
-		if (UB.removeNode(x)) {
+		if (isDirected()) {
+			nbArcs += preds.size();
+			if (succs.contains(x)) {
+				nbArcs--; // the loop has already been counted
+			}
 			if (reactOnModification) {
-				delta.add(x, GraphDelta.NR, cause);
+				for (int i : preds) {
+					if (i != x) {
+						delta.addArc(i, x, GraphDelta.AR, cause);
+					}
+				}
 			}
-			GraphEventType e = GraphEventType.REMOVE_NODE;
-			notifyPropagators(e, cause);
-			return true;
 		}
-		return false;
+		return nbArcs;
 	}
 
 	/**
@@ -147,13 +306,28 @@ public abstract class GraphVar<E extends IGraph> extends AbstractVariable implem
 	public boolean enforceNode(int x, ICause cause) throws ContradictionException {
 		assert cause != null;
 		assert (x >= 0 && x < n);
+		if (addNodeToLB(x, cause)) {
+			GraphEventType e = GraphEventType.ADD_NODE;
+			notifyPropagators(e, x, -1, cause);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Adds x to the lower bound graph and records it in the delta, but does not notify propagators
+	 *
+	 * @param x     node's index
+	 * @param cause algorithm which is related to the modification
+	 * @return true iff the enforcing has an effect
+	 * @throws ContradictionException if x is not in the upper bound graph
+	 */
+	protected boolean addNodeToLB(int x, ICause cause) throws ContradictionException {
 		if (UB.getNodes().contains(x)) {
 			if (LB.addNode(x)) {
 				if (reactOnModification) {
-					delta.add(x, GraphDelta.NE, cause);
+					delta.addNode(x, GraphDelta.NE, cause);
 				}
-				GraphEventType e = GraphEventType.ADD_NODE;
-				notifyPropagators(e, cause);
 				return true;
 			}
 			return false;
@@ -185,6 +359,106 @@ public abstract class GraphVar<E extends IGraph> extends AbstractVariable implem
 	 */
 	public abstract boolean enforceArc(int x, int y, ICause cause) throws ContradictionException;
 
+	/**
+	 * Remove every arc (or edge in case of undirected graph variable) (x,y) such that y belongs to ys
+	 * Propagators are notified only once for the whole set
+	 *
+	 * @param x     node's index
+	 * @param ys    set of node indexes
+	 * @param cause algorithm which is related to the removal
+	 * @return true iff the removal has an effect
+	 * @throws ContradictionException if one of the arcs was mandatory
+	 */
+	public boolean removeArcs(int x, BitSet ys, ICause cause) throws ContradictionException {
+		int size = 0;
+		for (int y : UB.getSuccOrNeighOf(x)) {
+			if (ys.get(y)) {
+				buffer[size++] = y;
+			}
+		}
+		return removeArcs(x, buffer, size, cause);
+	}
+
+	/**
+	 * Remove every arc (or edge in case of undirected graph variable) (x,y) such that y belongs to ys
+	 * Propagators are notified only once for the whole set
+	 *
+	 * @param x     node's index
+	 * @param ys    set of node indexes (may be a neighborhood of the upper bound graph)
+	 * @param cause algorithm which is related to the removal
+	 * @return true iff the removal has an effect
+	 * @throws ContradictionException if one of the arcs was mandatory
+	 */
+	public boolean removeArcs(int x, ISet ys, ICause cause) throws ContradictionException {
+		int size = 0;
+		for (int y : UB.getSuccOrNeighOf(x)) {
+			if (ys.contains(y)) {
+				buffer[size++] = y;
+			}
+		}
+		return removeArcs(x, buffer, size, cause);
+	}
+
+	/**
+	 * Enforces every arc (or edge in case of undirected graph variable) (x,y) such that y belongs to ys
+	 * Propagators are notified at most once for nodes and once for arcs
+	 *
+	 * @param x     node's index
+	 * @param ys    set of node indexes
+	 * @param cause algorithm which is related to the modification
+	 * @return true iff the enforcing has an effect
+	 * @throws ContradictionException if one of the arcs is not in the domain
+	 */
+	public boolean enforceArcs(int x, BitSet ys, ICause cause) throws ContradictionException {
+		int size = 0;
+		for (int y = ys.nextSetBit(0); y >= 0 && y < n; y = ys.nextSetBit(y + 1)) {
+			buffer[size++] = y;
+		}
+		return enforceArcs(x, buffer, size, cause);
+	}
+
+	/**
+	 * Enforces every arc (or edge in case of undirected graph variable) (x,y) such that y belongs to ys
+	 * Propagators are notified at most once for nodes and once for arcs
+	 *
+	 * @param x     node's index
+	 * @param ys    set of node indexes (may be a neighborhood of the upper bound graph)
+	 * @param cause algorithm which is related to the modification
+	 * @return true iff the enforcing has an effect
+	 * @throws ContradictionException if one of the arcs is not in the domain
+	 */
+	public boolean enforceArcs(int x, ISet ys, ICause cause) throws ContradictionException {
+		int size = 0;
+		for (int y : ys) {
+			buffer[size++] = y;
+		}
+		return enforceArcs(x, buffer, size, cause);
+	}
+
+	/**
+	 * Removes arcs (x,ys[0]), ..., (x,ys[size-1]) with a single notification
+	 *
+	 * @param x     node's index
+	 * @param ys    array of node indexes
+	 * @param size  number of relevant entries in ys
+	 * @param cause algorithm which is related to the removal
+	 * @return true iff the removal has an effect
+	 * @throws ContradictionException if one of the arcs was mandatory
+	 */
+	protected abstract boolean removeArcs(int x, int[] ys, int size, ICause cause) throws ContradictionException;
+
+	/**
+	 * Enforces arcs (x,ys[0]), ..., (x,ys[size-1]) with a single notification per event type
+	 *
+	 * @param x     node's index
+	 * @param ys    array of node indexes
+	 * @param size  number of relevant entries in ys
+	 * @param cause algorithm which is related to the modification
+	 * @return true iff the enforcing has an effect
+	 * @throws ContradictionException if one of the arcs is not in the domain
+	 */
+	protected abstract boolean enforceArcs(int x, int[] ys, int size, ICause cause) throws ContradictionException;
+
 	//***********************************************************************************
 	// ACCESSORS
 	//***********************************************************************************
@@ -272,6 +546,22 @@ public abstract class GraphVar<E extends IGraph> extends AbstractVariable implem
 		return UB.getNodes();
 	}
 
+	/**
+	 * @return the number of arcs (or edges in case of undirected graph variable)
+	 * of the upper bound graph, i.e. arcs that may belong to one solution
+	 */
+	public int getNbPotentialArcs() {
+		return nbPotArcs.get();
+	}
+
+	/**
+	 * @return the number of arcs (or edges in case of undirected graph variable)
+	 * of the lower bound graph, i.e. arcs that belong to every solution
+	 */
+	public int getNbMandatoryArcs() {
+		return nbMandArcs.get();
+	}
+
 	/**
 	 * @return true iff the graph is directed. It is undirected otherwise.
 	 */
@@ -313,7 +603,7 @@ public abstract class GraphVar<E extends IGraph> extends AbstractVariable implem
 	public void createDelta() {
 		if (!reactOnModification) {
 			reactOnModification = true;
-			delta = new GraphDelta(getEnvironment());
+			delta = new GraphDelta(getEnvironment(), getNbMaxNodes());
 		}
 	}
 
@@ -328,6 +618,19 @@ public abstract class GraphVar<E extends IGraph> extends AbstractVariable implem
 		return new GraphDeltaMonitor(delta, propagator);
 	}
 
+	/**
+	 * Make the propagator 'prop' have an incremental filtering w.r.t. this graph variable,
+	 * restricted to events involving some watched nodes
+	 *
+	 * @param propagator A propagator involving this graph variable
+	 * @param watched    nodes whose events are monitored
+	 * @return A new instance of GraphDeltaMonitor only reporting events involving watched nodes
+	 */
+	public GraphDeltaMonitor monitorDelta(ICause propagator, BitSet watched) {
+		createDelta();
+		return new GraphDeltaMonitor(delta, propagator, watched);
+	}
+
 	@Override
 	public void notifyMonitors(IEventType event) throws ContradictionException {
 		for (int i = mIdx - 1; i >= 0; i--) {
@@ -343,6 +646,7 @@ public abstract class GraphVar<E extends IGraph> extends AbstractVariable implem
 	 * @return the value of the graph variable represented through an adjacency matrix
 	 * plus a set of nodes (last row of the matrix).
 	 * This method is not supposed to be used except for restoring solutions.
+	 * The matrix takes O(n²) memory, see {@link GraphSnapshot} for a compact representation.
 	 */
 	public boolean[][] getValue() {
 		int n = getUB().getNbMaxNodes();
@@ -383,6 +687,42 @@ public abstract class GraphVar<E extends IGraph> extends AbstractVariable implem
 		}
 	}
 
+	/**
+	 * Instantiates <code>this</code> to value, in O(n+m) where m is the number of potential arcs.
+	 * Propagators are notified at most once per node for arcs.
+	 *
+	 * @param value value of <code>this</code>
+	 * @param cause algorithm which is related to the modification
+	 * @throws ContradictionException if value is not in the domain of <code>this</code>
+	 */
+	public void instantiateTo(GraphSnapshot value, ICause cause) throws ContradictionException {
+		BitSet nodes = value.getNodes();
+		BitSet toRemove = new BitSet(n);
+		for (int i : UB.getNodes()) {
+			if (!nodes.get(i)) {
+				toRemove.set(i);
+			}
+		}
+		removeNodes(toRemove, cause);
+		for (int i = nodes.nextSetBit(0); i >= 0; i = nodes.nextSetBit(i + 1)) {
+			enforceNode(i, cause);
+		}
+		for (int i = nodes.nextSetBit(0); i >= 0; i = nodes.nextSetBit(i + 1)) {
+			int size = 0;
+			for (int j : UB.getSuccOrNeighOf(i)) {
+				if (!value.arcExists(i, j)) {
+					buffer[size++] = j;
+				}
+			}
+			removeArcs(i, buffer, size, cause);
+			size = value.getNbSuccOrNeighOf(i);
+			for (int k = 0; k < size; k++) {
+				buffer[k] = value.getSuccOrNeighOf(i, k);
+			}
+			enforceArcs(i, buffer, size, cause);
+		}
+	}
+
 	//***********************************************************************************
 	// GraphViz
 	//***********************************************************************************
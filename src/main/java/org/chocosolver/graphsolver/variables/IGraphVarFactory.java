@@ -1,6 +1,9 @@
 package org.chocosolver.graphsolver.variables;
 
 import org.chocosolver.graphsolver.GraphModel;
+import org.chocosolver.graphsolver.util.GraphBuilder;
+import org.chocosolver.graphsolver.variables.view.ComplementGraphView;
+import org.chocosolver.graphsolver.variables.view.InducedSubgraphView;
 import org.chocosolver.solver.Model;
 import org.chocosolver.solver.variables.BoolVar;
 import org.chocosolver.solver.variables.IntVar;
@@ -11,6 +14,7 @@ import org.chocosolver.util.objects.graphs.UndirectedGraph;
 import org.chocosolver.util.objects.setDataStructures.SetType;
 
 import java.util.Arrays;
+import java.util.BitSet;
 
 public interface IGraphVarFactory {
 
@@ -40,16 +44,58 @@ public interface IGraphVarFactory {
 	 * @return a graph variable having n vertices
 	 */
 	default UndirectedGraphVar graphVar(String name, int n, boolean allNodes) {
-		UndirectedGraph lb = new UndirectedGraph(_me(), n, SetType.BITSET, allNodes);
-		UndirectedGraph ub = new UndirectedGraph(_me(), n, SetType.BITSET, allNodes);
-		for (int i = 0; i < n; i++) {
-			if (!allNodes) {
-				ub.addNode(i);
-			}
-			for (int j = i; j < n; j++) {
-				ub.addEdge(i, j);
-			}
-		}
+		return graphVar(name, n, allNodes, GraphRepresentationPolicy.DENSE);
+	}
+
+	/**
+	 * Creates a graph variable comprised between an empty graph and K_n (complete graph of n vertices)
+	 *
+	 * @param name     name of the variable
+	 * @param n        Maximum number of vertices
+	 * @param allNodes If true then every vertex in [0,n-1] belongs to every solution.
+	 * @param policy   selects the data structures of the lower and upper bounds
+	 * @return a graph variable having n vertices
+	 */
+	default UndirectedGraphVar graphVar(String name, int n, boolean allNodes, GraphRepresentationPolicy policy) {
+		UndirectedGraph lb = new UndirectedGraph(_me(), n, policy.getLBSetType(), allNodes);
+		UndirectedGraph ub = GraphBuilder.makeCompleteUndirectedGraph(_me(), n, policy.getUBSetType(n, n), allNodes, true);
+		return graphVar(name, lb, ub);
+	}
+
+	/**
+	 * Creates a graph variable comprised between an empty graph and the graph given by CSR adjacency arrays:
+	 * the neighbors of node i are targets[offsets[i]], ..., targets[offsets[i+1]-1]
+	 * (an edge may be given in one direction or both)
+	 *
+	 * @param name     name of the variable
+	 * @param n        Maximum number of vertices
+	 * @param allNodes If true then every vertex in [0,n-1] belongs to every solution.
+	 * @param offsets  n+1 offsets in targets
+	 * @param targets  potential neighbors of every vertex
+	 * @param policy   selects the data structures of the lower and upper bounds
+	 * @return a graph variable having n vertices
+	 */
+	default UndirectedGraphVar graphVar(String name, int n, boolean allNodes, int[] offsets, int[] targets, GraphRepresentationPolicy policy) {
+		UndirectedGraph lb = new UndirectedGraph(_me(), n, policy.getLBSetType(), allNodes);
+		SetType ubType = policy.getUBSetType(n, GraphBuilder.maxDegree(n, offsets, targets, true));
+		UndirectedGraph ub = GraphBuilder.makeUndirectedGraph(_me(), n, ubType, allNodes, offsets, targets);
+		return graphVar(name, lb, ub);
+	}
+
+	/**
+	 * Creates a graph variable comprised between an empty graph and the graph of the given edges
+	 *
+	 * @param name     name of the variable
+	 * @param n        Maximum number of vertices
+	 * @param allNodes If true then every vertex in [0,n-1] belongs to every solution.
+	 * @param edges    potential edges, packed as (i << 32 | j), see {@link GraphBuilder#pack(int, int)}
+	 * @param policy   selects the data structures of the lower and upper bounds
+	 * @return a graph variable having n vertices
+	 */
+	default UndirectedGraphVar graphVar(String name, int n, boolean allNodes, long[] edges, GraphRepresentationPolicy policy) {
+		UndirectedGraph lb = new UndirectedGraph(_me(), n, policy.getLBSetType(), allNodes);
+		SetType ubType = policy.getUBSetType(n, GraphBuilder.maxDegree(n, edges, true));
+		UndirectedGraph ub = GraphBuilder.makeUndirectedGraph(_me(), n, ubType, allNodes, edges);
 		return graphVar(name, lb, ub);
 	}
 
@@ -88,16 +134,57 @@ public interface IGraphVarFactory {
 	 * @return a directed graph variable having n vertices
 	 */
 	default DirectedGraphVar digraphVar(String name, int n, boolean allNodes) {
-		DirectedGraph lb = new DirectedGraph(_me(), n, SetType.BITSET, allNodes);
-		DirectedGraph ub = new DirectedGraph(_me(), n, SetType.BITSET, allNodes);
-		for (int i = 0; i < n; i++) {
-			if (!allNodes) {
-				ub.addNode(i);
-			}
-			for (int j = 0; j < n; j++) {
-				ub.addArc(i, j);
-			}
-		}
+		return digraphVar(name, n, allNodes, GraphRepresentationPolicy.DENSE);
+	}
+
+	/**
+	 * Creates a directed graph variable comprised between an empty graph and K_n (complete graph of n vertices)
+	 *
+	 * @param name     name of the variable
+	 * @param n        Maximum number of vertices
+	 * @param allNodes If true then every vertex in [0,n-1] belongs to every solution.
+	 * @param policy   selects the data structures of the lower and upper bounds
+	 * @return a directed graph variable having n vertices
+	 */
+	default DirectedGraphVar digraphVar(String name, int n, boolean allNodes, GraphRepresentationPolicy policy) {
+		DirectedGraph lb = new DirectedGraph(_me(), n, policy.getLBSetType(), allNodes);
+		DirectedGraph ub = GraphBuilder.makeCompleteDirectedGraph(_me(), n, policy.getUBSetType(n, n), allNodes, true);
+		return digraphVar(name, lb, ub);
+	}
+
+	/**
+	 * Creates a directed graph variable comprised between an empty graph and the graph given by CSR adjacency arrays:
+	 * the successors of node i are targets[offsets[i]], ..., targets[offsets[i+1]-1]
+	 *
+	 * @param name     name of the variable
+	 * @param n        Maximum number of vertices
+	 * @param allNodes If true then every vertex in [0,n-1] belongs to every solution.
+	 * @param offsets  n+1 offsets in targets
+	 * @param targets  potential successors of every vertex
+	 * @param policy   selects the data structures of the lower and upper bounds
+	 * @return a directed graph variable having n vertices
+	 */
+	default DirectedGraphVar digraphVar(String name, int n, boolean allNodes, int[] offsets, int[] targets, GraphRepresentationPolicy policy) {
+		DirectedGraph lb = new DirectedGraph(_me(), n, policy.getLBSetType(), allNodes);
+		SetType ubType = policy.getUBSetType(n, GraphBuilder.maxDegree(n, offsets, targets, false));
+		DirectedGraph ub = GraphBuilder.makeDirectedGraph(_me(), n, ubType, allNodes, offsets, targets);
+		return digraphVar(name, lb, ub);
+	}
+
+	/**
+	 * Creates a directed graph variable comprised between an empty graph and the graph of the given arcs
+	 *
+	 * @param name     name of the variable
+	 * @param n        Maximum number of vertices
+	 * @param allNodes If true then every vertex in [0,n-1] belongs to every solution.
+	 * @param arcs     potential arcs, packed as (from << 32 | to), see {@link GraphBuilder#pack(int, int)}
+	 * @param policy   selects the data structures of the lower and upper bounds
+	 * @return a directed graph variable having n vertices
+	 */
+	default DirectedGraphVar digraphVar(String name, int n, boolean allNodes, long[] arcs, GraphRepresentationPolicy policy) {
+		DirectedGraph lb = new DirectedGraph(_me(), n, policy.getLBSetType(), allNodes);
+		SetType ubType = policy.getUBSetType(n, GraphBuilder.maxDegree(n, arcs, false));
+		DirectedGraph ub = GraphBuilder.makeDirectedGraph(_me(), n, ubType, allNodes, arcs);
 		return digraphVar(name, lb, ub);
 	}
 
@@ -116,6 +203,33 @@ public interface IGraphVarFactory {
 		return new DirectedGraphVar(name, _me(), lb, ub);
 	}
 
+	//*************************************************************************************
+	// GRAPH VIEWS
+	//*************************************************************************************
+
+	/**
+	 * Creates a view over the subgraph of g induced by a set of nodes:
+	 * it reads the domain of g without copying it and requires no channeling propagator
+	 *
+	 * @param g     an undirected graph variable
+	 * @param nodes set of nodes inducing the subgraph
+	 * @return an undirected graph variable representing the subgraph of g induced by nodes
+	 */
+	default UndirectedGraphVar inducedSubgraphView(UndirectedGraphVar g, BitSet nodes) {
+		return new InducedSubgraphView("induced(" + g.getName() + ")", g, (BitSet) nodes.clone());
+	}
+
+	/**
+	 * Creates a view over the complement of g (without loops):
+	 * it reads the domain of g without copying it and requires no channeling propagator
+	 *
+	 * @param g an undirected graph variable whose nodes are all mandatory
+	 * @return an undirected graph variable representing the complement of g
+	 */
+	default UndirectedGraphVar complementView(UndirectedGraphVar g) {
+		return new ComplementGraphView("complement(" + g.getName() + ")", g);
+	}
+
 	//*************************************************************************************
 	// OTHER
 	//*************************************************************************************
@@ -66,12 +66,12 @@ public class UndirectedGraphVar extends GraphVar<UndirectedGraph> {
 			return false;
 		}
 		if (UB.removeEdge(x, y)) {
+			nbPotArcs.add(-1);
 			if (reactOnModification) {
-				delta.add(x, GraphDelta.AR_TAIL, cause);
-				delta.add(y, GraphDelta.AR_HEAD, cause);
+				delta.addArc(x, y, GraphDelta.AR, cause);
 			}
 			GraphEventType e = GraphEventType.REMOVE_ARC;
-			notifyPropagators(e, cause);
+			notifyPropagators(e, x, y, cause);
 			return true;
 		}
 		return false;
@@ -84,12 +84,12 @@ public class UndirectedGraphVar extends GraphVar<UndirectedGraph> {
 		enforceNode(y, cause);
 		if (UB.edgeExists(x, y)) {
 			if (LB.addEdge(x, y)) {
+				nbMandArcs.add(1);
 				if (reactOnModification) {
-					delta.add(x, GraphDelta.AE_TAIL, cause);
-					delta.add(y, GraphDelta.AE_HEAD, cause);
+					delta.addArc(x, y, GraphDelta.AE, cause);
 				}
 				GraphEventType e = GraphEventType.ADD_ARC;
-				notifyPropagators(e, cause);
+				notifyPropagators(e, x, y, cause);
 				return true;
 			}
 			return false;
@@ -98,6 +98,61 @@ public class UndirectedGraphVar extends GraphVar<UndirectedGraph> {
 		return false;
 	}
 
+	@Override
+	protected boolean removeArcs(int x, int[] ys, int size, ICause cause) throws ContradictionException {
+		assert cause != null;
+		int nbArcs = 0;
+		for (int k = 0; k < size; k++) {
+			int y = ys[k];
+			if (LB.edgeExists(x, y)) {
+				this.contradiction(cause, "remove mandatory arc");
+			}
+			if (UB.removeEdge(x, y)) {
+				nbArcs++;
+				if (reactOnModification) {
+					delta.addArc(x, y, GraphDelta.AR, cause);
+				}
+			}
+		}
+		if (nbArcs > 0) {
+			nbPotArcs.add(-nbArcs);
+			notifyPropagators(GraphEventType.REMOVE_ARC, x, -1, cause);
+			return true;
+		}
+		return false;
+	}
+
+	@Override
+	protected boolean enforceArcs(int x, int[] ys, int size, ICause cause) throws ContradictionException {
+		assert cause != null;
+		boolean nodeAdded = size > 0 && addNodeToLB(x, cause);
+		int nbArcs = 0;
+		for (int k = 0; k < size; k++) {
+			int y = ys[k];
+			if (!UB.edgeExists(x, y)) {
+				this.contradiction(cause, "enforce arc which is not in the domain");
+			}
+			nodeAdded |= addNodeToLB(y, cause);
+			if (LB.addEdge(x, y)) {
+				nbArcs++;
+				if (reactOnModification) {
+					delta.addArc(x, y, GraphDelta.AE, cause);
+				}
+			}
+		}
+		if (nbArcs > 0) {
+			nbMandArcs.add(nbArcs);
+		}
+		if (nodeAdded) {
+			notifyPropagators(GraphEventType.ADD_NODE, cause);
+		}
+		if (nbArcs > 0) {
+			notifyPropagators(GraphEventType.ADD_ARC, x, -1, cause);
+			return true;
+		}
+		return nodeAdded;
+	}
+
 	/**
 	 * Get the set of neighbors of vertex 'idx' in the lower bound graph
 	 * (mandatory incident edges)
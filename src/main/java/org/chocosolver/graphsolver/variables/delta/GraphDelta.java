@@ -27,69 +27,298 @@
 
 package org.chocosolver.graphsolver.variables.delta;
 
+import org.chocosolver.graphsolver.util.GraphBuilder;
 import org.chocosolver.memory.IEnvironment;
 import org.chocosolver.solver.ICause;
 import org.chocosolver.solver.search.loop.TimeStampedObject;
-import org.chocosolver.solver.variables.delta.EnumDelta;
 import org.chocosolver.solver.variables.delta.IDelta;
-import org.chocosolver.solver.variables.delta.IEnumDelta;
 
+/**
+ * Delta of a graph variable, i.e. nodes and arcs removed from / enforced in its domain
+ * <p>
+ * Each type of event is stored in a growable primitive array:
+ * nodes are stored as they are, arcs are packed into one long (tail << 32 | head).
+ * Causes are stored once per run of consecutive events having the same cause,
+ * so that monitors can skip whole runs at once.
+ * <p>
+ * On demand, events are also indexed by node (see buildIndex),
+ * so that monitors watching a few nodes do not have to scan every event.
+ */
 public class GraphDelta extends TimeStampedObject implements IDelta {
 
 	//NR NE AR AE : NodeRemoved NodeEnforced ArcRemoved ArcEnforced
 	public final static int NR = 0;
 	public final static int NE = 1;
-	public final static int AR_TAIL = 2;
-	public final static int AR_HEAD = 3;
-	public final static int AE_TAIL = 4;
-	public final static int AE_HEAD = 5;
-	public final static int NB = 6;
+	public final static int AR = 2;
+	public final static int AE = 3;
+	public final static int NB = 4;
+
+	private final static int SIZE = 32;
 
 	//***********************************************************************************
 	// VARIABLES
 	//***********************************************************************************
 
-	private IEnumDelta[] deltaOfType;
+	// values[type][index] : node index or packed arc
+	private long[][] values;
+	private int[] size;
+	// causes[type][r] is the cause of events runStart[type][r] to runStart[type][r+1]-1
+	private ICause[][] causes;
+	private int[][] runStart;
+	private int[] nbRuns;
+	// per-node index of events, allocated on first use
+	// links[type][2k] (resp. 2k+1) is the previous indexed event touching the tail (resp. head) of event k
+	private final int n;
+	private int[] indexed;
+	private int[][] last, lastEpoch, links;
+	private int epoch;
 
 	//***********************************************************************************
 	// CONSTRUCTORS
 	//***********************************************************************************
 
-	public GraphDelta(IEnvironment environment) {
+	public GraphDelta(IEnvironment environment, int n) {
 		super(environment);
-		deltaOfType = new IEnumDelta[NB];
-		for (int i = 0; i < NB; i++) {
-			deltaOfType[i] = new EnumDelta(environment);
-		}
+		this.n = n;
+		values = new long[NB][SIZE];
+		size = new int[NB];
+		causes = new ICause[NB][SIZE];
+		runStart = new int[NB][SIZE];
+		nbRuns = new int[NB];
 	}
 
 	//***********************************************************************************
 	// METHODS
 	//***********************************************************************************
 
-	public int getSize(int i) {
-		return deltaOfType[i].size();
+	/**
+	 * @param type type of event (NR, NE, AR or AE)
+	 * @return the number of events of the given type
+	 */
+	public int getSize(int type) {
+		return size[type];
 	}
 
-	public void add(int element, int type, ICause cause) {
+	/**
+	 * Records a node event
+	 *
+	 * @param node  node index
+	 * @param type  either NR or NE
+	 * @param cause cause of the modification
+	 */
+	public void addNode(int node, int type, ICause cause) {
+		assert type == NR || type == NE;
+		add(node, type, cause);
+	}
+
+	/**
+	 * Records an arc event
+	 *
+	 * @param from  tail of the arc
+	 * @param to    head of the arc
+	 * @param type  either AR or AE
+	 * @param cause cause of the modification
+	 */
+	public void addArc(int from, int to, int type, ICause cause) {
+		assert type == AR || type == AE;
+		add(GraphBuilder.pack(from, to), type, cause);
+	}
+
+	private void add(long value, int type, ICause cause) {
 		lazyClear();
-		deltaOfType[type].add(element, cause);
+		int last = size[type];
+		if (last == values[type].length) {
+			long[] tmp = new long[last * 3 / 2 + 1];
+			System.arraycopy(values[type], 0, tmp, 0, last);
+			values[type] = tmp;
+		}
+		values[type][last] = value;
+		size[type] = last + 1;
+		int r = nbRuns[type];
+		if (r == 0 || causes[type][r - 1] != cause) {
+			if (r == causes[type].length) {
+				ICause[] tmpc = new ICause[r * 3 / 2 + 1];
+				int[] tmps = new int[r * 3 / 2 + 1];
+				System.arraycopy(causes[type], 0, tmpc, 0, r);
+				System.arraycopy(runStart[type], 0, tmps, 0, r);
+				causes[type] = tmpc;
+				runStart[type] = tmps;
+			}
+			causes[type][r] = cause;
+			runStart[type][r] = last;
+			nbRuns[type] = r + 1;
+		}
 	}
 
 	public void lazyClear() {
 		if (needReset()) {
 			for (int i = 0; i < NB; i++) {
-				deltaOfType[i].lazyClear();
+				size[i] = 0;
+				nbRuns[i] = 0;
+			}
+			if (indexed != null) {
+				for (int i = 0; i < NB; i++) {
+					indexed[i] = 0;
+				}
+				epoch++;
 			}
 			resetStamp();
 		}
 	}
 
-	public int get(int index, int type) {
-		return deltaOfType[type].get(index);
+	/**
+	 * @param index index of a node event
+	 * @param type  either NR or NE
+	 * @return the node of the index-th event of the given type
+	 */
+	public int getNode(int index, int type) {
+		return (int) values[type][index];
+	}
+
+	/**
+	 * @param index index of an arc event
+	 * @param type  either AR or AE
+	 * @return the packed arc of the index-th event of the given type
+	 */
+	public long getArc(int index, int type) {
+		return values[type][index];
 	}
 
+	/**
+	 * @param index index of an event
+	 * @param type  type of event
+	 * @return the cause of the index-th event of the given type
+	 */
 	public ICause getCause(int index, int type) {
-		return deltaOfType[type].getCause(index);
+		return causes[type][getRun(index, type)];
+	}
+
+	//***********************************************************************************
+	// RUNS OF CAUSES
+	//***********************************************************************************
+
+	/**
+	 * @param type type of event
+	 * @return the number of runs of consecutive events having the same cause
+	 */
+	public int getNbRuns(int type) {
+		return nbRuns[type];
+	}
+
+	/**
+	 * @param index index of an event (lower than getSize(type))
+	 * @param type  type of event
+	 * @return the run containing the index-th event of the given type
+	 */
+	public int getRun(int index, int type) {
+		int[] starts = runStart[type];
+		int lo = 0;
+		int hi = nbRuns[type] - 1;
+		while (lo < hi) {
+			int mid = (lo + hi + 1) >>> 1;
+			if (starts[mid] <= index) {
+				lo = mid;
+			} else {
+				hi = mid - 1;
+			}
+		}
+		return lo;
+	}
+
+	/**
+	 * @param run  index of a run
+	 * @param type type of event
+	 * @return the index of the first event of the run
+	 */
+	public int getRunStart(int run, int type) {
+		return runStart[type][run];
+	}
+
+	/**
+	 * @param run  index of a run
+	 * @param type type of event
+	 * @return the index following the last event of the run
+	 */
+	public int getRunEnd(int run, int type) {
+		return run + 1 < nbRuns[type] ? runStart[type][run + 1] : size[type];
+	}
+
+	/**
+	 * @param run  index of a run
+	 * @param type type of event
+	 * @return the cause shared by every event of the run
+	 */
+	public ICause getRunCause(int run, int type) {
+		return causes[type][run];
+	}
+
+	//***********************************************************************************
+	// PER-NODE INDEX
+	//***********************************************************************************
+
+	/**
+	 * Indexes, by node, the events of the given type which have not been indexed yet.
+	 * The cost is amortized over all monitors relying on the index.
+	 *
+	 * @param type type of event
+	 */
+	public void buildIndex(int type) {
+		if (indexed == null) {
+			indexed = new int[NB];
+			last = new int[NB][n];
+			lastEpoch = new int[NB][n];
+			links = new int[NB][SIZE];
+			epoch = 1;
+		}
+		int sz = size[type];
+		if (2 * sz > links[type].length) {
+			int[] tmp = new int[2 * sz * 3 / 2 + 2];
+			System.arraycopy(links[type], 0, tmp, 0, 2 * indexed[type]);
+			links[type] = tmp;
+		}
+		int[] link = links[type];
+		for (int k = indexed[type]; k < sz; k++) {
+			int x, y;
+			if (type == NR || type == NE) {
+				x = y = getNode(k, type);
+			} else {
+				x = GraphBuilder.tail(values[type][k]);
+				y = GraphBuilder.head(values[type][k]);
+			}
+			link[2 * k] = getLastIndexed(x, type);
+			setLastIndexed(x, type, k);
+			if (y != x) {
+				link[2 * k + 1] = getLastIndexed(y, type);
+				setLastIndexed(y, type, k);
+			}
+		}
+		indexed[type] = sz;
+	}
+
+	private void setLastIndexed(int node, int type, int index) {
+		last[type][node] = index;
+		lastEpoch[type][node] = epoch;
+	}
+
+	/**
+	 * @param node a node
+	 * @param type type of event
+	 * @return the most recent indexed event of the given type involving node, -1 if none
+	 */
+	public int getLastIndexed(int node, int type) {
+		return lastEpoch[type][node] == epoch ? last[type][node] : -1;
+	}
+
+	/**
+	 * @param index index of an indexed event involving node
+	 * @param node  a node
+	 * @param type  type of event
+	 * @return the previous indexed event of the given type involving node, -1 if none
+	 */
+	public int getPrevIndexed(int index, int node, int type) {
+		if (type == NR || type == NE || GraphBuilder.tail(values[type][index]) == node) {
+			return links[type][2 * index];
+		}
+		return links[type][2 * index + 1];
 	}
 }
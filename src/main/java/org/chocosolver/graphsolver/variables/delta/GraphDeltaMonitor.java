@@ -26,6 +26,7 @@
  */
 package org.chocosolver.graphsolver.variables.delta;
 
+import org.chocosolver.graphsolver.util.GraphBuilder;
 import org.chocosolver.graphsolver.variables.GraphEventType;
 import org.chocosolver.solver.ICause;
 import org.chocosolver.solver.exception.ContradictionException;
@@ -34,6 +35,9 @@ import org.chocosolver.solver.variables.delta.IDeltaMonitor;
 import org.chocosolver.util.procedure.IntProcedure;
 import org.chocosolver.util.procedure.PairProcedure;
 
+import java.util.Arrays;
+import java.util.BitSet;
+
 /**
  * <br/>
  *
@@ -46,40 +50,62 @@ public class GraphDeltaMonitor extends TimeStampedObject implements IDeltaMonito
 	private int[] first; // references, in variable delta value to propagate, to un propagated values
 	private int[] frozenFirst, frozenLast; // same as previous while the recorder is frozen, to allow "concurrent modifications"
 	private ICause propagator;
+	private BitSet watched; // null if every node is watched
+	private final int nbWatched;
+	private int[] indexed; // indices of the events of watched nodes, sorted
 
 	public GraphDeltaMonitor(GraphDelta delta, ICause propagator) {
+		this(delta, propagator, null);
+	}
+
+	/**
+	 * Delta monitor which only reports events involving a watched node.
+	 * Events are then retrieved through a per-node index of the delta,
+	 * so that the cost of a propagation does not depend on events involving other nodes.
+	 * Events are reported in insertion order, as without watched nodes.
+	 * Walking the index costs O(|watched|) plus a sort of the hits, so events are scanned directly instead
+	 * when there are fewer of them than watched nodes (watched should not be modified afterwards).
+	 *
+	 * @param delta      delta of a graph variable
+	 * @param propagator propagator monitoring the delta
+	 * @param watched    set of watched nodes (null to watch every node)
+	 */
+	public GraphDeltaMonitor(GraphDelta delta, ICause propagator, BitSet watched) {
 		super(delta.getEnvironment());
 		this.delta = delta;
-		this.first = new int[4];
-		this.frozenFirst = new int[4];
-		this.frozenLast = new int[4];
+		this.watched = watched;
+		this.nbWatched = watched == null ? 0 : watched.cardinality();
+		this.first = new int[GraphDelta.NB];
+		this.frozenFirst = new int[GraphDelta.NB];
+		this.frozenLast = new int[GraphDelta.NB];
 		this.propagator = propagator;
+		this.indexed = new int[16];
 	}
 
 	@Override
 	public void freeze() {
 		if (needReset()) {
-			for (int i = 0; i < 4; i++) {
+			for (int i = 0; i < GraphDelta.NB; i++) {
 				first[i] = 0;
 			}
 			resetStamp();
 		}
-		for (int i = 0; i < 3; i++) {
+		for (int i = 0; i < GraphDelta.NB; i++) {
 			frozenFirst[i] = first[i]; // freeze indices
 			first[i] = frozenLast[i] = delta.getSize(i);
+			if (watched != null) {
+				delta.buildIndex(i);
+			}
 		}
-		frozenFirst[3] = first[3]; // freeze indices
-		first[3] = frozenLast[3] = delta.getSize(GraphDelta.AE_TAIL);
 	}
 
 	@Override
 	public void unfreeze() {
 		delta.lazyClear();    // fix 27/07/12
 		resetStamp();
-		for (int i = 0; i < 3; i++) {
+		for (int i = 0; i < GraphDelta.NB; i++) {
 			first[i] = delta.getSize(i);
 		}
-		first[3] = delta.getSize(GraphDelta.AE_TAIL);
 	}
 
 	/**
@@ -89,23 +115,46 @@ public class GraphDeltaMonitor extends TimeStampedObject implements IDeltaMonito
 	 * @throws ContradictionException if a failure occurs
 	 */
 	public void forEachNode(IntProcedure proc, GraphEventType evt) throws ContradictionException {
-		int type;
-		if (evt == GraphEventType.REMOVE_NODE) {
-			type = GraphDelta.NR;
-			for (int i = frozenFirst[type]; i < frozenLast[type]; i++) {
-				if (delta.getCause(i, type) != propagator) {
-					proc.execute(delta.get(i, type));
+		int type = getNodeType(evt);
+		int from = frozenFirst[type];
+		int to = frozenLast[type];
+		if (from < to) {
+			if (watched != null && to - from > nbWatched) {
+				int nb = collectIndexed(type, from, to);
+				int end = -1;
+				boolean skip = false;
+				for (int k = 0; k < nb; k++) {
+					int i = indexed[k];
+					if (i >= end) {
+						// the run is only searched when the event is not in the previous one
+						int r = delta.getRun(i, type);
+						end = delta.getRunEnd(r, type);
+						skip = delta.getRunCause(r, type) == propagator;
+					}
+					int x = delta.getNode(i, type);
+					if (!skip && isReported(x)) {
+						proc.execute(x);
+					}
 				}
+				return;
 			}
-		} else if (evt == GraphEventType.ADD_NODE) {
-			type = GraphDelta.NE;
-			for (int i = frozenFirst[type]; i < frozenLast[type]; i++) {
-				if (delta.getCause(i, type) != propagator) {
-					proc.execute(delta.get(i, type));
+			// events are scanned run by run so that the cause is checked once per run
+			// (watched nodes, if any, are then checked event by event)
+			for (int r = delta.getRun(from, type); r < delta.getNbRuns(type); r++) {
+				int start = delta.getRunStart(r, type);
+				if (start >= to) {
+					break;
+				}
+				if (delta.getRunCause(r, type) != propagator) {
+					int end = Math.min(delta.getRunEnd(r, type), to);
+					for (int i = Math.max(start, from); i < end; i++) {
+						int x = delta.getNode(i, type);
+						if ((watched == null || watched.get(x)) && isReported(x)) {
+							proc.execute(x);
+						}
+					}
 				}
 			}
-		} else {
-			throw new UnsupportedOperationException();
 		}
 	}
 
@@ -116,20 +165,127 @@ public class GraphDeltaMonitor extends TimeStampedObject implements IDeltaMonito
 	 * @throws ContradictionException if a failure occurs
 	 */
 	public void forEachArc(PairProcedure proc, GraphEventType evt) throws ContradictionException {
-		if (evt == GraphEventType.REMOVE_ARC) {
-			for (int i = frozenFirst[2]; i < frozenLast[2]; i++) {
-				if (delta.getCause(i, GraphDelta.AR_TAIL) != propagator) {
-					proc.execute(delta.get(i, GraphDelta.AR_TAIL), delta.get(i, GraphDelta.AR_HEAD));
+		int type = getArcType(evt);
+		int from = frozenFirst[type];
+		int to = frozenLast[type];
+		if (from < to) {
+			if (watched != null && to - from > nbWatched) {
+				int nb = collectIndexed(type, from, to);
+				int end = -1;
+				boolean skip = false;
+				for (int k = 0; k < nb; k++) {
+					int i = indexed[k];
+					if (i >= end) {
+						// the run is only searched when the event is not in the previous one
+						int r = delta.getRun(i, type);
+						end = delta.getRunEnd(r, type);
+						skip = delta.getRunCause(r, type) == propagator;
+					}
+					if (!skip) {
+						long arc = delta.getArc(i, type);
+						int x = GraphBuilder.tail(arc);
+						int y = GraphBuilder.head(arc);
+						if (isReported(x, y)) {
+							proc.execute(x, y);
+						}
+					}
 				}
+				return;
 			}
-		} else if (evt == GraphEventType.ADD_ARC) {
-			for (int i = frozenFirst[3]; i < frozenLast[3]; i++) {
-				if (delta.getCause(i, GraphDelta.AE_TAIL) != propagator) {
-					proc.execute(delta.get(i, GraphDelta.AE_TAIL), delta.get(i, GraphDelta.AE_HEAD));
+			// events are scanned run by run so that the cause is checked once per run
+			// (watched nodes, if any, are then checked event by event)
+			for (int r = delta.getRun(from, type); r < delta.getNbRuns(type); r++) {
+				int start = delta.getRunStart(r, type);
+				if (start >= to) {
+					break;
+				}
+				if (delta.getRunCause(r, type) != propagator) {
+					int end = Math.min(delta.getRunEnd(r, type), to);
+					for (int i = Math.max(start, from); i < end; i++) {
+						long arc = delta.getArc(i, type);
+						int x = GraphBuilder.tail(arc);
+						int y = GraphBuilder.head(arc);
+						if ((watched == null || watched.get(x) || watched.get(y)) && isReported(x, y)) {
+							proc.execute(x, y);
+						}
+					}
 				}
 			}
-		} else {
-			throw new UnsupportedOperationException();
 		}
 	}
+
+	/**
+	 * Collects, in indexed, the indices in [from,to[ of the events of watched nodes
+	 * in increasing order and without duplicates (an arc between two watched nodes is indexed twice)
+	 *
+	 * @return the number of collected indices
+	 */
+	private int collectIndexed(int type, int from, int to) {
+		int nb = 0;
+		for (int v = watched.nextSetBit(0); v >= 0; v = watched.nextSetBit(v + 1)) {
+			for (int i = delta.getLastIndexed(v, type); i >= from; i = delta.getPrevIndexed(i, v, type)) {
+				if (i < to) {
+					if (nb == indexed.length) {
+						indexed = Arrays.copyOf(indexed, nb * 3 / 2 + 1);
+					}
+					indexed[nb++] = i;
+				}
+			}
+		}
+		Arrays.sort(indexed, 0, nb);
+		int size = 0;
+		for (int k = 0; k < nb; k++) {
+			if (size == 0 || indexed[size - 1] != indexed[k]) {
+				indexed[size++] = indexed[k];
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * @param evt either ADD_NODE or REMOVE_NODE
+	 * @return the type of delta entries to report for evt
+	 */
+	protected int getNodeType(GraphEventType evt) {
+		if (evt == GraphEventType.REMOVE_NODE) {
+			return GraphDelta.NR;
+		} else if (evt == GraphEventType.ADD_NODE) {
+			return GraphDelta.NE;
+		}
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * @param evt either ADD_ARC or REMOVE_ARC
+	 * @return the type of delta entries to report for evt
+	 */
+	protected int getArcType(GraphEventType evt) {
+		if (evt == GraphEventType.REMOVE_ARC) {
+			return GraphDelta.AR;
+		} else if (evt == GraphEventType.ADD_ARC) {
+			return GraphDelta.AE;
+		}
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * Filter over recorded nodes, to be overridden by monitors of views
+	 *
+	 * @param x a node recorded in the delta
+	 * @return true iff x should be reported
+	 */
+	protected boolean isReported(int x) {
+		return true;
+	}
+
+	/**
+	 * Filter over recorded arcs, to be overridden by monitors of views
+	 *
+	 * @param x tail of an arc recorded in the delta
+	 * @param y head of an arc recorded in the delta
+	 * @return true iff (x,y) should be reported
+	 */
+	protected boolean isReported(int x, int y) {
+		return true;
+	}
 }
@@ -0,0 +1,224 @@
+/**
+ * Copyright (c) 1999-2014, Ecole des Mines de Nantes
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * <p>
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the Ecole des Mines de Nantes nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE REGENTS AND CONTRIBUTORS ``AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE REGENTS AND CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.graphsolver.variables.view;
+
+import org.chocosolver.graphsolver.variables.GraphEventType;
+import org.chocosolver.graphsolver.variables.UndirectedGraphVar;
+import org.chocosolver.graphsolver.variables.delta.GraphDelta;
+import org.chocosolver.graphsolver.variables.delta.GraphDeltaMonitor;
+import org.chocosolver.solver.ICause;
+import org.chocosolver.solver.exception.ContradictionException;
+import org.chocosolver.solver.exception.SolverException;
+import org.chocosolver.util.objects.graphs.UndirectedGraph;
+import org.chocosolver.util.objects.setDataStructures.ISet;
+import org.chocosolver.util.objects.setDataStructures.Set_ReadOnly;
+
+import java.util.BitSet;
+
+/**
+ * View over the complement of an undirected graph variable whose nodes are all mandatory:
+ * it has the same nodes and an edge (x,y), with x != y, iff (x,y) is not an edge of the observed variable.
+ * Loops are not part of the complement.
+ * <p>
+ * Mandatory edges of the view are the edges missing from the upper bound of the observed variable
+ * and potential edges of the view are the edges missing from its lower bound.
+ */
+public class ComplementGraphView extends UndirectedGraphVarView {
+
+	//***********************************************************************************
+	// VARIABLES
+	//***********************************************************************************
+
+	private final ISet nodes;
+
+	//***********************************************************************************
+	// CONSTRUCTORS
+	//***********************************************************************************
+
+	/**
+	 * Creates a view over the complement of var
+	 *
+	 * @param name name of the view
+	 * @param var  observed variable, whose potential nodes must all be mandatory
+	 * @throws SolverException if some node of var is not mandatory
+	 */
+	public ComplementGraphView(String name, UndirectedGraphVar var) {
+		super(name, var, complement(var, var.getUB()), complement(var, var.getLB()));
+		this.nodes = var.getMandatoryNodes();
+	}
+
+	/**
+	 * @param var      observed variable
+	 * @param excluded bound of var whose edges are excluded
+	 * @return the complement of excluded over the node set of var
+	 */
+	private static UndirectedGraph complement(UndirectedGraphVar var, UndirectedGraph excluded) {
+		ISet nodes = var.getMandatoryNodes();
+		if (nodes.size() != var.getPotentialNodes().size()) {
+			throw new SolverException("The complement of " + var.getName() + " is not defined: all its nodes should be mandatory");
+		}
+		ISet[] neighbors = new ISet[var.getNbMaxNodes()];
+		for (int i = 0; i < neighbors.length; i++) {
+			int x = i;
+			ISet excludedNeigh = excluded.getNeighOf(x);
+			neighbors[i] = new FilteredSet(nodes, y -> y != x && nodes.contains(x) && !excludedNeigh.contains(y)) {
+				@Override
+				public int size() {
+					// the node set is fixed, so that excludedNeigh is included in it
+					return nodes.contains(x) ? nodes.size() - excludedNeigh.size() - (excludedNeigh.contains(x) ? 0 : 1) : 0;
+				}
+			};
+		}
+		return new ReadOnlyUndirectedGraph(new Set_ReadOnly(nodes), neighbors);
+	}
+
+	//***********************************************************************************
+	// METHODS
+	//***********************************************************************************
+
+	@Override
+	protected GraphEventType transformEvent(GraphEventType evt) {
+		switch (evt) {
+			case ADD_ARC:
+				return GraphEventType.REMOVE_ARC;
+			case REMOVE_ARC:
+				return GraphEventType.ADD_ARC;
+			default:
+				return evt;
+		}
+	}
+
+	@Override
+	protected boolean isTouched(int x, int y) {
+		// loops of var are not part of the complement
+		return x < 0 || x != y;
+	}
+
+	/**
+	 * Counts edges missing from the lower bound of var, in O(n)
+	 */
+	@Override
+	public int getNbPotentialArcs() {
+		return nbPairs() - var.getNbMandatoryArcs() + countLoops(var.getLB());
+	}
+
+	/**
+	 * Counts edges missing from the upper bound of var, in O(n)
+	 */
+	@Override
+	public int getNbMandatoryArcs() {
+		return nbPairs() - var.getNbPotentialArcs() + countLoops(var.getUB());
+	}
+
+	private int nbPairs() {
+		int k = nodes.size();
+		return k * (k - 1) / 2;
+	}
+
+	private int countLoops(UndirectedGraph g) {
+		int nb = 0;
+		for (int i = 0; i < n; i++) {
+			if (nodes.contains(i) && g.edgeExists(i, i)) {
+				nb++;
+			}
+		}
+		return nb;
+	}
+
+	@Override
+	public boolean removeNode(int x, ICause cause) throws ContradictionException {
+		assert cause != null;
+		if (nodes.contains(x)) {
+			this.contradiction(cause, "remove mandatory node");
+		}
+		return false;
+	}
+
+	@Override
+	public boolean enforceNode(int x, ICause cause) throws ContradictionException {
+		assert cause != null;
+		if (!nodes.contains(x)) {
+			this.contradiction(cause, "enforce node which is not in the domain");
+		}
+		return false;
+	}
+
+	@Override
+	public boolean removeArc(int x, int y, ICause cause) throws ContradictionException {
+		assert cause != null;
+		if (x != y && nodes.contains(x) && nodes.contains(y) && var.enforceArc(x, y, this)) {
+			notifyPropagators(GraphEventType.REMOVE_ARC, cause);
+			return true;
+		}
+		return false;
+	}
+
+	@Override
+	public boolean enforceArc(int x, int y, ICause cause) throws ContradictionException {
+		assert cause != null;
+		if (x == y || !nodes.contains(x) || !nodes.contains(y)) {
+			this.contradiction(cause, "enforce arc which is not in the domain");
+		}
+		if (var.removeArc(x, y, this)) {
+			notifyPropagators(GraphEventType.ADD_ARC, cause);
+			return true;
+		}
+		return false;
+	}
+
+	@Override
+	public boolean isInstantiated() {
+		// loops of var are not constrained by the view
+		return var.isInstantiated() || getNbPotentialArcs() == getNbMandatoryArcs();
+	}
+
+	//***********************************************************************************
+	// VARIABLE STUFF
+	//***********************************************************************************
+
+	@Override
+	public GraphDeltaMonitor monitorDelta(ICause propagator) {
+		return monitorDelta(propagator, null);
+	}
+
+	@Override
+	public GraphDeltaMonitor monitorDelta(ICause propagator, BitSet watched) {
+		createDelta();
+		// edges removed from (resp. added to) the observed variable are added to (resp. removed from) the view
+		return new GraphDeltaMonitor(getDelta(), propagator, watched) {
+			@Override
+			protected int getArcType(GraphEventType evt) {
+				return super.getArcType(evt) == GraphDelta.AR ? GraphDelta.AE : GraphDelta.AR;
+			}
+
+			@Override
+			protected boolean isReported(int x, int y) {
+				return x != y;
+			}
+		};
+	}
+}
@@ -0,0 +1,198 @@
+/**
+ * Copyright (c) 1999-2014, Ecole des Mines de Nantes
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * <p>
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the Ecole des Mines de Nantes nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE REGENTS AND CONTRIBUTORS ``AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE REGENTS AND CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.graphsolver.variables.view;
+
+import org.chocosolver.util.objects.setDataStructures.ISet;
+import org.chocosolver.util.objects.setDataStructures.ISetIterator;
+import org.chocosolver.util.objects.setDataStructures.SetType;
+
+import java.util.NoSuchElementException;
+import java.util.function.IntPredicate;
+
+/**
+ * Read-only set made of the elements of a source set which satisfy a filter.
+ * Nothing is copied: every query is answered by reading the source set.
+ */
+class FilteredSet implements ISet {
+
+	//***********************************************************************************
+	// VARIABLES
+	//***********************************************************************************
+
+	private final ISet source;
+	private final IntPredicate filter;
+	private ISetIterator iter;
+	// used by size, min and max so that they can be called while iterating
+	private ISetIterator scanIter;
+
+	//***********************************************************************************
+	// CONSTRUCTORS
+	//***********************************************************************************
+
+	/**
+	 * @param source set whose elements are filtered
+	 * @param filter predicate satisfied by the elements of this set
+	 */
+	FilteredSet(ISet source, IntPredicate filter) {
+		this.source = source;
+		this.filter = filter;
+	}
+
+	//***********************************************************************************
+	// METHODS
+	//***********************************************************************************
+
+	@Override
+	public ISetIterator iterator() {
+		if (iter == null) {
+			iter = newIterator();
+		}
+		iter.reset();
+		return iter;
+	}
+
+	@Override
+	public ISetIterator newIterator() {
+		ISetIterator it = new ISetIterator() {
+			private final ISetIterator it = source.newIterator();
+			private int next;
+			private boolean ready;
+
+			@Override
+			public void reset() {
+				it.reset();
+				ready = false;
+			}
+
+			@Override
+			public boolean hasNext() {
+				while (!ready && it.hasNext()) {
+					next = it.nextInt();
+					ready = filter.test(next);
+				}
+				return ready;
+			}
+
+			@Override
+			public int nextInt() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				ready = false;
+				return next;
+			}
+		};
+		it.reset();
+		return it;
+	}
+
+	private ISetIterator scan() {
+		if (scanIter == null) {
+			scanIter = newIterator();
+		}
+		scanIter.reset();
+		return scanIter;
+	}
+
+	@Override
+	public boolean contains(int element) {
+		return source.contains(element) && filter.test(element);
+	}
+
+	/**
+	 * Counts elements in time proportional to the size of the source set
+	 */
+	@Override
+	public int size() {
+		int size = 0;
+		ISetIterator it = scan();
+		while (it.hasNext()) {
+			it.nextInt();
+			size++;
+		}
+		return size;
+	}
+
+	@Override
+	public int min() {
+		int min = Integer.MAX_VALUE;
+		ISetIterator it = scan();
+		while (it.hasNext()) {
+			min = Math.min(min, it.nextInt());
+		}
+		if (min == Integer.MAX_VALUE) {
+			throw new IllegalStateException("cannot find minimum of an empty set");
+		}
+		return min;
+	}
+
+	@Override
+	public int max() {
+		int max = Integer.MIN_VALUE;
+		ISetIterator it = scan();
+		while (it.hasNext()) {
+			max = Math.max(max, it.nextInt());
+		}
+		if (max == Integer.MIN_VALUE) {
+			throw new IllegalStateException("cannot find maximum of an empty set");
+		}
+		return max;
+	}
+
+	@Override
+	public SetType getSetType() {
+		return source.getSetType();
+	}
+
+	@Override
+	public boolean add(int element) {
+		throw new UnsupportedOperationException("this set is read-only");
+	}
+
+	@Override
+	public boolean remove(int element) {
+		throw new UnsupportedOperationException("this set is read-only");
+	}
+
+	@Override
+	public void clear() {
+		throw new UnsupportedOperationException("this set is read-only");
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("{");
+		ISetIterator it = newIterator();
+		while (it.hasNext()) {
+			sb.append(it.nextInt());
+			if (it.hasNext()) {
+				sb.append(", ");
+			}
+		}
+		return sb.append("}").toString();
+	}
+}
@@ -0,0 +1,186 @@
+/**
+ * Copyright (c) 1999-2014, Ecole des Mines de Nantes
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * <p>
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the Ecole des Mines de Nantes nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE REGENTS AND CONTRIBUTORS ``AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE REGENTS AND CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.graphsolver.variables.view;
+
+import org.chocosolver.graphsolver.variables.GraphEventType;
+import org.chocosolver.graphsolver.variables.UndirectedGraphVar;
+import org.chocosolver.graphsolver.variables.delta.GraphDeltaMonitor;
+import org.chocosolver.solver.ICause;
+import org.chocosolver.solver.exception.ContradictionException;
+import org.chocosolver.util.objects.graphs.UndirectedGraph;
+import org.chocosolver.util.objects.setDataStructures.ISet;
+import org.chocosolver.util.objects.setDataStructures.SetFactory;
+
+import java.util.BitSet;
+
+/**
+ * View over the subgraph of an undirected graph variable induced by a fixed set of nodes S:
+ * its nodes are the nodes of the observed variable which belong to S
+ * and its edges are the edges of the observed variable whose both endpoints belong to S.
+ */
+public class InducedSubgraphView extends UndirectedGraphVarView {
+
+	//***********************************************************************************
+	// VARIABLES
+	//***********************************************************************************
+
+	private final BitSet inducingNodes;
+
+	//***********************************************************************************
+	// CONSTRUCTORS
+	//***********************************************************************************
+
+	/**
+	 * Creates a view over the subgraph of var induced by nodes
+	 *
+	 * @param name  name of the view
+	 * @param var   observed variable
+	 * @param nodes set of nodes inducing the subgraph (should not be modified afterwards)
+	 */
+	public InducedSubgraphView(String name, UndirectedGraphVar var, BitSet nodes) {
+		super(name, var, induce(var.getLB(), nodes), induce(var.getUB(), nodes));
+		this.inducingNodes = nodes;
+	}
+
+	private static UndirectedGraph induce(UndirectedGraph g, BitSet nodes) {
+		ISet empty = SetFactory.makeConstantSet(new int[0]);
+		ISet[] neighbors = new ISet[g.getNbMaxNodes()];
+		for (int i = 0; i < neighbors.length; i++) {
+			neighbors[i] = nodes.get(i) ? new FilteredSet(g.getNeighOf(i), nodes::get) : empty;
+		}
+		return new ReadOnlyUndirectedGraph(new FilteredSet(g.getNodes(), nodes::get), neighbors);
+	}
+
+	//***********************************************************************************
+	// METHODS
+	//***********************************************************************************
+
+	@Override
+	protected GraphEventType transformEvent(GraphEventType evt) {
+		return evt;
+	}
+
+	@Override
+	protected boolean isTouched(int x, int y) {
+		return (x < 0 || inducingNodes.get(x)) && (y < 0 || inducingNodes.get(y));
+	}
+
+	@Override
+	public boolean removeNode(int x, ICause cause) throws ContradictionException {
+		assert cause != null;
+		if (!inducingNodes.get(x)) {
+			return false;
+		}
+		boolean hasArcs = !UB.getNeighOf(x).isEmpty();
+		if (var.removeNode(x, this)) {
+			notifyPropagators(hasArcs ? GraphEventType.REMOVE_NODE_AND_ARCS : GraphEventType.REMOVE_NODE, cause);
+			return true;
+		}
+		return false;
+	}
+
+	@Override
+	public boolean enforceNode(int x, ICause cause) throws ContradictionException {
+		assert cause != null;
+		if (!inducingNodes.get(x)) {
+			this.contradiction(cause, "enforce node which is not in the domain");
+		}
+		if (var.enforceNode(x, this)) {
+			notifyPropagators(GraphEventType.ADD_NODE, cause);
+			return true;
+		}
+		return false;
+	}
+
+	@Override
+	public boolean removeArc(int x, int y, ICause cause) throws ContradictionException {
+		assert cause != null;
+		if (inducingNodes.get(x) && inducingNodes.get(y) && var.removeArc(x, y, this)) {
+			notifyPropagators(GraphEventType.REMOVE_ARC, cause);
+			return true;
+		}
+		return false;
+	}
+
+	@Override
+	public boolean enforceArc(int x, int y, ICause cause) throws ContradictionException {
+		assert cause != null;
+		if (!inducingNodes.get(x) || !inducingNodes.get(y)) {
+			this.contradiction(cause, "enforce arc which is not in the domain");
+		}
+		boolean nodeAdded = !LB.getNodes().contains(x) || !LB.getNodes().contains(y);
+		boolean arcAdded = var.enforceArc(x, y, this);
+		if (nodeAdded) {
+			notifyPropagators(GraphEventType.ADD_NODE, cause);
+		}
+		if (arcAdded) {
+			notifyPropagators(GraphEventType.ADD_ARC, cause);
+		}
+		return arcAdded;
+	}
+
+	/**
+	 * Compares both bounds node by node, in a single pass which stops at the first difference
+	 */
+	@Override
+	public boolean isInstantiated() {
+		if (var.isInstantiated()) {
+			return true;
+		}
+		for (int i : UB.getNodes()) {
+			if (!LB.getNodes().contains(i) || UB.getNeighOf(i).size() != LB.getNeighOf(i).size()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	//***********************************************************************************
+	// VARIABLE STUFF
+	//***********************************************************************************
+
+	@Override
+	public GraphDeltaMonitor monitorDelta(ICause propagator) {
+		return monitorDelta(propagator, null);
+	}
+
+	@Override
+	public GraphDeltaMonitor monitorDelta(ICause propagator, BitSet watched) {
+		createDelta();
+		return new GraphDeltaMonitor(getDelta(), propagator, watched) {
+			@Override
+			protected boolean isReported(int x) {
+				return inducingNodes.get(x);
+			}
+
+			@Override
+			protected boolean isReported(int x, int y) {
+				return inducingNodes.get(x) && inducingNodes.get(y);
+			}
+		};
+	}
+}
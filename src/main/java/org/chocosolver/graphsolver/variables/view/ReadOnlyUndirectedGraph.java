@@ -0,0 +1,141 @@
+/**
+ * Copyright (c) 1999-2014, Ecole des Mines de Nantes
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * <p>
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the Ecole des Mines de Nantes nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE REGENTS AND CONTRIBUTORS ``AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE REGENTS AND CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.graphsolver.variables.view;
+
+import org.chocosolver.util.objects.graphs.UndirectedGraph;
+import org.chocosolver.util.objects.setDataStructures.ISet;
+import org.chocosolver.util.objects.setDataStructures.SetType;
+
+/**
+ * Read-only undirected graph whose nodes and neighborhoods are given as (view) sets.
+ * It is used as lower and upper bounds of graph variable views:
+ * modifications must go through the view variable, which forwards them to the observed variable.
+ */
+class ReadOnlyUndirectedGraph extends UndirectedGraph {
+
+	//***********************************************************************************
+	// VARIABLES
+	//***********************************************************************************
+
+	private final int n;
+	private final ISet nodes;
+	private final ISet[] neighbors;
+
+	//***********************************************************************************
+	// CONSTRUCTORS
+	//***********************************************************************************
+
+	/**
+	 * @param nodes     node set
+	 * @param neighbors neighbors[i] is the neighborhood of node i
+	 */
+	ReadOnlyUndirectedGraph(ISet nodes, ISet[] neighbors) {
+		super(0, SetType.BITSET, false);
+		this.n = neighbors.length;
+		this.nodes = nodes;
+		this.neighbors = neighbors;
+	}
+
+	//***********************************************************************************
+	// METHODS
+	//***********************************************************************************
+
+	@Override
+	public int getNbMaxNodes() {
+		return n;
+	}
+
+	@Override
+	public ISet getNodes() {
+		return nodes;
+	}
+
+	@Override
+	public SetType getType() {
+		return nodes.getSetType();
+	}
+
+	@Override
+	public boolean edgeExists(int x, int y) {
+		return neighbors[x].contains(y);
+	}
+
+	@Override
+	public boolean isArcOrEdge(int x, int y) {
+		return neighbors[x].contains(y);
+	}
+
+	@Override
+	public ISet getNeighOf(int x) {
+		return neighbors[x];
+	}
+
+	@Override
+	public ISet getPredOrNeighOf(int x) {
+		return neighbors[x];
+	}
+
+	@Override
+	public ISet getSuccOrNeighOf(int x) {
+		return neighbors[x];
+	}
+
+	@Override
+	public boolean addNode(int x) {
+		throw new UnsupportedOperationException("this graph is read-only");
+	}
+
+	@Override
+	public boolean removeNode(int x) {
+		throw new UnsupportedOperationException("this graph is read-only");
+	}
+
+	@Override
+	public boolean addEdge(int x, int y) {
+		throw new UnsupportedOperationException("this graph is read-only");
+	}
+
+	@Override
+	public boolean removeEdge(int x, int y) {
+		throw new UnsupportedOperationException("this graph is read-only");
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("nodes : \n").append(nodes).append("\n");
+		sb.append("neighbors : \n");
+		for (int i : nodes) {
+			sb.append(i).append(" -> {");
+			for (int j : neighbors[i]) {
+				sb.append(j).append(" ");
+			}
+			sb.append("}\n");
+		}
+		return sb.toString();
+	}
+}
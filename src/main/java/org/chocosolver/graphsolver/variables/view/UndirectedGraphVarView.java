@@ -0,0 +1,197 @@
+/**
+ * Copyright (c) 1999-2014, Ecole des Mines de Nantes
+ * All rights reserved.
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * <p>
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the Ecole des Mines de Nantes nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE REGENTS AND CONTRIBUTORS ``AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE REGENTS AND CONTRIBUTORS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.graphsolver.variables.view;
+
+import org.chocosolver.graphsolver.variables.GraphEventType;
+import org.chocosolver.graphsolver.variables.UndirectedGraphVar;
+import org.chocosolver.graphsolver.variables.delta.GraphDelta;
+import org.chocosolver.solver.ICause;
+import org.chocosolver.solver.exception.ContradictionException;
+import org.chocosolver.solver.variables.IntVar;
+import org.chocosolver.solver.variables.Variable;
+import org.chocosolver.solver.variables.events.IEventType;
+import org.chocosolver.solver.variables.events.IntEventType;
+import org.chocosolver.solver.variables.view.IView;
+import org.chocosolver.util.objects.graphs.IGraph;
+import org.chocosolver.util.objects.graphs.UndirectedGraph;
+
+import java.util.BitSet;
+
+/**
+ * Undirected graph variable which does not declare any domain but reads the domain of another
+ * undirected graph variable through read-only bounds.
+ * Modifications are translated and forwarded to the observed variable,
+ * and events of the observed variable are translated and forwarded to the propagators of the view,
+ * so that no channeling propagator is needed.
+ * <p>
+ * Events touching only nodes which the view ignores (see {@link #isTouched(int, int)}) are not forwarded.
+ * <p>
+ * Delta monitors of a view read the delta of the observed variable.
+ * Views do not maintain arc counters, so that counting arcs takes O(n+m) time unless overridden.
+ */
+public abstract class UndirectedGraphVarView extends UndirectedGraphVar implements IView {
+
+	//***********************************************************************************
+	// VARIABLES
+	//***********************************************************************************
+
+	// observed variable
+	protected final UndirectedGraphVar var;
+
+	//***********************************************************************************
+	// CONSTRUCTORS
+	//***********************************************************************************
+
+	/**
+	 * Creates a view over var
+	 *
+	 * @param name name of the view
+	 * @param var  observed variable
+	 * @param LB   read-only lower bound, reading the domain of var
+	 * @param UB   read-only upper bound, reading the domain of var
+	 */
+	protected UndirectedGraphVarView(String name, UndirectedGraphVar var, UndirectedGraph LB, UndirectedGraph UB) {
+		super(name, var.getModel(), LB, UB);
+		this.var = var;
+		var.subscribeView(this);
+	}
+
+	//***********************************************************************************
+	// METHODS
+	//***********************************************************************************
+
+	/**
+	 * @param evt an event of the observed variable
+	 * @return the corresponding event of this view
+	 */
+	protected abstract GraphEventType transformEvent(GraphEventType evt);
+
+	/**
+	 * @param x a node touched by a modification of the observed variable, or -1 if unknown
+	 * @param y another touched node, or -1 if unknown or for a node event
+	 * @return false iff the modification cannot change the domain of this view
+	 */
+	protected boolean isTouched(int x, int y) {
+		return true;
+	}
+
+	@Override
+	public void notify(IEventType event) throws ContradictionException {
+		notifyPropagators(transformEvent((GraphEventType) event), this);
+	}
+
+	@Override
+	protected void notifyView(IEventType event, int x, int y) throws ContradictionException {
+		if (isTouched(x, y)) {
+			notify(event);
+		}
+	}
+
+	@Override
+	public UndirectedGraphVar getVariable() {
+		return var;
+	}
+
+	@Override
+	public void justifyEvent(IntVar var, ICause cause, IntEventType mask, int one, int two, int three) {
+		// explanations are not supported by graph variables
+	}
+
+	@Override
+	public int getTypeAndKind() {
+		return Variable.VIEW | GRAPH;
+	}
+
+	@Override
+	public boolean removeNodes(BitSet nodes, ICause cause) throws ContradictionException {
+		boolean change = false;
+		for (int x = nodes.nextSetBit(0); x >= 0 && x < n; x = nodes.nextSetBit(x + 1)) {
+			change |= removeNode(x, cause);
+		}
+		return change;
+	}
+
+	@Override
+	protected boolean removeArcs(int x, int[] ys, int size, ICause cause) throws ContradictionException {
+		boolean change = false;
+		for (int k = 0; k < size; k++) {
+			change |= removeArc(x, ys[k], cause);
+		}
+		return change;
+	}
+
+	@Override
+	protected boolean enforceArcs(int x, int[] ys, int size, ICause cause) throws ContradictionException {
+		boolean change = false;
+		for (int k = 0; k < size; k++) {
+			change |= enforceArc(x, ys[k], cause);
+		}
+		return change;
+	}
+
+	/**
+	 * Counts edges of the upper bound, in O(n+m)
+	 */
+	@Override
+	public int getNbPotentialArcs() {
+		return countEdges(UB);
+	}
+
+	/**
+	 * Counts edges of the lower bound, in O(n+m)
+	 */
+	@Override
+	public int getNbMandatoryArcs() {
+		return countEdges(LB);
+	}
+
+	private static int countEdges(IGraph g) {
+		int nb = 0;
+		for (int i : g.getNodes()) {
+			for (int j : g.getSuccOrNeighOf(i)) {
+				if (j >= i) {
+					nb++;
+				}
+			}
+		}
+		return nb;
+	}
+
+	//***********************************************************************************
+	// VARIABLE STUFF
+	//***********************************************************************************
+
+	@Override
+	public void createDelta() {
+		var.createDelta();
+	}
+
+	@Override
+	public GraphDelta getDelta() {
+		return var.getDelta();
+	}
+}
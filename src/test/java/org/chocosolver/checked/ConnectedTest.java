@@ -1,16 +1,23 @@
 package org.chocosolver.checked;
 
 import org.chocosolver.graphsolver.GraphModel;
+import org.chocosolver.graphsolver.cstrs.connectivity.PropConnected;
+import org.chocosolver.graphsolver.util.UGVarConnectivityHelper;
 import org.chocosolver.graphsolver.variables.UndirectedGraphVar;
+import org.chocosolver.solver.Cause;
 import org.chocosolver.solver.Solver;
+import org.chocosolver.solver.constraints.Constraint;
 import org.chocosolver.solver.exception.ContradictionException;
 import org.chocosolver.solver.variables.BoolVar;
+import org.chocosolver.solver.variables.IntVar;
 import org.chocosolver.util.ESat;
 import org.chocosolver.util.objects.graphs.UndirectedGraph;
 import org.chocosolver.util.objects.setDataStructures.SetType;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import java.util.BitSet;
+
 import static org.testng.Assert.assertEquals;
 
 /**
@@ -436,4 +443,315 @@ public class ConnectedTest {
         for (int y : list)
             g.addEdge(x, y);
     }
+
+	@Test(groups = "1s")
+	public void testIncrementalWitness() {
+		// number of connected graphs over 5 labelled nodes
+		GraphModel m = new GraphModel();
+		UndirectedGraphVar g = m.graphVar("g", 5, true);
+		m.nbLoops(g).eq(0).post();
+		m.connected(g).post();
+		Assert.assertEquals(m.getSolver().findAllSolutions().size(), 728);
+	}
+
+	@Test(groups = "1s")
+	public void testIncrementalBridges() throws ContradictionException {
+		// cycle 0-1-2-3 with mandatory nodes 0 and 2: removing any edge, within the witness or not,
+		// makes the other path between 0 and 2 mandatory
+		int[][] cycle = {{0, 1}, {1, 2}, {2, 3}, {3, 0}};
+		for (int[] e : cycle) {
+			GraphModel m = new GraphModel();
+			UndirectedGraph LB = new UndirectedGraph(m, 4, SetType.BITSET, false);
+			UndirectedGraph UB = new UndirectedGraph(m, 4, SetType.BITSET, false);
+			for (int[] f : cycle) {
+				UB.addNode(f[0]);
+				UB.addEdge(f[0], f[1]);
+			}
+			LB.addNode(0);
+			LB.addNode(2);
+			UndirectedGraphVar g = m.graphVar("g", LB, UB);
+			m.connected(g).post();
+			m.getSolver().propagate();
+			Assert.assertEquals(g.getNbMandatoryArcs(), 0);
+			g.removeArc(e[0], e[1], Cause.Null);
+			m.getSolver().propagate();
+			int other = e[0] % 2 == 1 ? 4 - e[0] : 4 - e[1];
+			Assert.assertTrue(g.getMandatoryNodes().contains(other));
+			Assert.assertEquals(g.getNbMandatoryArcs(), 2);
+			Assert.assertTrue(g.getMandNeighOf(other).contains(0));
+			Assert.assertTrue(g.getMandNeighOf(other).contains(2));
+		}
+	}
+
+	@Test(groups = "1s")
+	public void testMandatoryHull() {
+		// cycle 0-1-2-3 with mandatory nodes 0 and 2, a triangle 1-4-5 and a tail 3-6-7 hanging off it
+		GraphModel m = new GraphModel();
+		UndirectedGraph LB = new UndirectedGraph(m, 8, SetType.BITSET, false);
+		UndirectedGraph UB = new UndirectedGraph(m, 8, SetType.BITSET, false);
+		for (int i = 0; i < 8; i++) {
+			UB.addNode(i);
+		}
+		add_neighbors(UB, 1, 0, 2, 4, 5);
+		add_neighbors(UB, 3, 0, 2, 6);
+		UB.addEdge(4, 5);
+		UB.addEdge(6, 7);
+		LB.addNode(0);
+		LB.addNode(2);
+		UGVarConnectivityHelper helper = new UGVarConnectivityHelper(m.graphVar("g", LB, UB));
+		helper.findMandatoryArticulationPointsAndBridges();
+		BitSet expected = new BitSet();
+		expected.set(0, 4);
+		Assert.assertEquals(helper.getHull(), expected);
+		// with node 7 mandatory, the tail joins the hull
+		LB.addNode(7);
+		helper.findMandatoryArticulationPointsAndBridges();
+		expected.set(6, 8);
+		Assert.assertEquals(helper.getHull(), expected);
+	}
+
+	@Test(groups = "1s")
+	public void testBridgesWithOptionalNodes() {
+		// brute-force counts of connected graphs having 4 edges (loops included) over optional nodes
+		int[][] expected = {{4, 127}, {5, 640}};
+		for (int[] e : expected) {
+			GraphModel m = new GraphModel();
+			UndirectedGraphVar g = m.graphVar("g", e[0]);
+			m.nbEdges(g).eq(4).post();
+			m.connected(g).post();
+			Assert.assertEquals(m.getSolver().findAllSolutions().size(), e[1]);
+		}
+	}
+
+	@Test(groups = "1s")
+	public void testLongPath() throws ContradictionException {
+		// deep DFS: articulation points are found without recursion
+		int n = 20000;
+		GraphModel m = new GraphModel();
+		UndirectedGraph LB = new UndirectedGraph(m, n, SetType.LINKED_LIST, false);
+		UndirectedGraph UB = new UndirectedGraph(m, n, SetType.LINKED_LIST, false);
+		for (int i = 0; i < n; i++) {
+			UB.addNode(i);
+		}
+		for (int i = 0; i < n - 1; i++) {
+			UB.addEdge(i, i + 1);
+		}
+		LB.addNode(0);
+		LB.addNode(n - 1);
+		UndirectedGraphVar g = m.graphVar("g", LB, UB);
+		m.connected(g).post();
+		m.getSolver().propagate();
+		Assert.assertTrue(g.isInstantiated());
+	}
+
+	@Test(groups = "1s")
+	public void testBiconnectedFiltering() throws ContradictionException {
+		GraphModel model = new GraphModel();
+		int n = 5;
+		UndirectedGraph GLB = new UndirectedGraph(model, n, SetType.BITSET, false);
+		UndirectedGraph GUB = new UndirectedGraph(model, n, SetType.BITSET, false);
+		for (int i = 0; i < n; i++) {
+			GUB.addNode(i);
+		}
+		GLB.addNode(0);
+		GLB.addNode(1);
+		GLB.addNode(2);
+		// cycle 0-1-2-3 plus a pendant node 4
+		GUB.addEdge(0, 1);
+		GUB.addEdge(1, 2);
+		GUB.addEdge(2, 3);
+		GUB.addEdge(3, 0);
+		GUB.addEdge(0, 4);
+		UndirectedGraphVar g = model.graphVar("G", GLB, GUB);
+		model.connected(g).post();
+		model.biconnected(g).post();
+		model.getSolver().propagate();
+		Assert.assertFalse(g.getPotentialNodes().contains(4));
+		Assert.assertTrue(g.isInstantiated());
+		Assert.assertEquals(g.getMandatoryNodes().size(), 4);
+		Assert.assertTrue(g.getMandNeighOf(3).contains(0));
+	}
+
+	@Test(groups = "1s")
+	public void testBiconnectedSeparators() throws ContradictionException {
+		// mandatory nodes 0 and 3 only linked by the chains 0-1-2-3 and 3-4-5-0
+		GraphModel model = new GraphModel();
+		int n = 6;
+		UndirectedGraph GLB = new UndirectedGraph(model, n, SetType.BITSET, false);
+		UndirectedGraph GUB = new UndirectedGraph(model, n, SetType.BITSET, false);
+		for (int i = 0; i < n; i++) {
+			GUB.addNode(i);
+			GUB.addEdge(i, (i + 1) % n);
+		}
+		GLB.addNode(0);
+		GLB.addNode(3);
+		UndirectedGraphVar g = model.graphVar("G", GLB, GUB);
+		model.biconnected(g).post();
+		model.getSolver().propagate();
+		Assert.assertTrue(g.isInstantiated());
+		Assert.assertEquals(g.getNbMandatoryArcs(), 6);
+
+		// without node 0, node 3 separates mandatory nodes 1 and 2
+		model = new GraphModel();
+		GLB = new UndirectedGraph(model, n, SetType.BITSET, false);
+		GUB = new UndirectedGraph(model, n, SetType.BITSET, false);
+		for (int i = 0; i < n; i++) {
+			GUB.addNode(i);
+		}
+		add_neighbors(GUB, 0, 1, 2, 4, 5);
+		add_neighbors(GUB, 3, 1, 2);
+		GUB.addEdge(1, 4);
+		GUB.addEdge(2, 5);
+		for (int i = 0; i < 3; i++) {
+			GLB.addNode(i);
+		}
+		g = model.graphVar("G", GLB, GUB);
+		model.biconnected(g).post();
+		model.getSolver().propagate();
+		Assert.assertTrue(g.getMandatoryNodes().contains(3));
+		Assert.assertTrue(g.getMandNeighOf(3).contains(1));
+		Assert.assertTrue(g.getMandNeighOf(3).contains(2));
+		Assert.assertFalse(g.getMandatoryNodes().contains(4));
+		Assert.assertEquals(g.getNbMandatoryArcs(), 2);
+		Assert.assertEquals(model.getSolver().findAllSolutions().size(), 9);
+	}
+
+	@Test(groups = "1s")
+	public void testBiconnectedCounts() {
+		// brute-force number of biconnected graphs (loops included)
+		GraphModel model = new GraphModel();
+		UndirectedGraphVar g = model.graphVar("G", 4);
+		model.connected(g).post();
+		model.biconnected(g).post();
+		Assert.assertEquals(model.getSolver().findAllSolutions().size(), 225);
+		model = new GraphModel();
+		g = model.graphVar("G", 5, true);
+		model.connected(g).post();
+		model.biconnected(g).post();
+		Assert.assertEquals(model.getSolver().findAllSolutions().size(), 7616);
+	}
+
+	@Test(groups = "1s")
+	public void testKEdgeConnectedCounts() {
+		// brute-force number of k-edge-connected graphs (loops included)
+		GraphModel model = new GraphModel();
+		UndirectedGraphVar g = model.graphVar("G", 4);
+		model.kEdgeConnected(g, 2).post();
+		Assert.assertEquals(model.getSolver().findAllSolutions().size(), 201);
+		model = new GraphModel();
+		g = model.graphVar("G", 4);
+		model.kEdgeConnected(g, 3).post();
+		Assert.assertEquals(model.getSolver().findAllSolutions().size(), 25);
+		model = new GraphModel();
+		g = model.graphVar("G", 4, true);
+		model.kEdgeConnected(g, 2).post();
+		Assert.assertEquals(model.getSolver().findAllSolutions().size(), 160);
+	}
+
+	@Test(groups = "1s", expectedExceptions = IllegalArgumentException.class)
+	public void testKEdgeConnectedArgument() {
+		GraphModel model = new GraphModel();
+		model.kEdgeConnected(model.graphVar("G", 4), 0);
+	}
+
+	@Test(groups = "1s")
+	public void testKEdgeConnectedFiltering() throws ContradictionException {
+		GraphModel model = new GraphModel();
+		int n = 6;
+		UndirectedGraph GLB = new UndirectedGraph(model, n, SetType.BITSET, false);
+		UndirectedGraph GUB = new UndirectedGraph(model, n, SetType.BITSET, false);
+		for (int i = 0; i < n; i++) {
+			GUB.addNode(i);
+		}
+		GLB.addNode(0);
+		GLB.addNode(3);
+		// two triangles 0-1-2 and 3-4-5 linked by two edges
+		GUB.addEdge(0, 1);
+		GUB.addEdge(1, 2);
+		GUB.addEdge(2, 0);
+		GUB.addEdge(3, 4);
+		GUB.addEdge(4, 5);
+		GUB.addEdge(5, 3);
+		GUB.addEdge(1, 4);
+		GUB.addEdge(2, 5);
+		UndirectedGraphVar g = model.graphVar("G", GLB, GUB);
+		model.kEdgeConnected(g, 2).post();
+		model.getSolver().propagate();
+		// edges of cuts of size 2 separating 0 and 3 are mandatory
+		Assert.assertTrue(g.getMandNeighOf(1).contains(4));
+		Assert.assertTrue(g.getMandNeighOf(2).contains(5));
+		Assert.assertTrue(g.getMandNeighOf(0).contains(1));
+		Assert.assertTrue(g.getMandNeighOf(3).contains(5));
+		Assert.assertFalse(g.getMandNeighOf(1).contains(2));
+		Assert.assertFalse(g.getMandNeighOf(4).contains(5));
+	}
+
+	@Test(groups = "1s")
+	public void testConnectedDistances() throws ContradictionException {
+		// cycle of 7 nodes with chords (0,3) and (2,5), brute-force numbers of connected subgraphs
+		int[][] mandatory = {{}, {0}, {1, 5}, {1, 4, 6}};
+		int[] maxNodes = {4, 4, 4, 5};
+		int[] expected = {62, 29, 6, 3};
+		for (int k = 0; k < expected.length; k++) {
+			GraphModel model = new GraphModel();
+			UndirectedGraphVar g = model.graphVar("G", chordedCycle(model, mandatory[k]), chordedCycleUB(model));
+			model.connected(g, model.intVar(0, maxNodes[k])).post();
+			Assert.assertEquals(model.getSolver().findAllSolutions().size(), expected[k]);
+		}
+		// only node 2 can link 1 and 5 with 3 nodes
+		GraphModel model = new GraphModel();
+		UndirectedGraphVar g = model.graphVar("G", chordedCycle(model, 1, 5), chordedCycleUB(model));
+		IntVar nb = model.intVar(0, 3);
+		model.connected(g, nb).post();
+		model.getSolver().propagate();
+		Assert.assertEquals(g.getPotentialNodes().size(), 3);
+		Assert.assertTrue(g.getMandatoryNodes().contains(2));
+		Assert.assertEquals(nb.getLB(), 3);
+	}
+
+	@Test(groups = "1s")
+	public void testConnectedDistancesFixpoint() throws ContradictionException {
+		// node 0 becomes mandatory after a first pass, which makes node 8 too far from mandatory nodes
+		GraphModel model = new GraphModel();
+		int n = 9;
+		UndirectedGraph GLB = new UndirectedGraph(model, n, SetType.BITSET, false);
+		UndirectedGraph GUB = new UndirectedGraph(model, n, SetType.BITSET, false);
+		for (int i = 0; i < n; i++) {
+			GUB.addNode(i);
+		}
+		add_neighbors(GUB, 0, 1, 2, 3, 7);
+		add_neighbors(GUB, 1, 2, 3, 6);
+		add_neighbors(GUB, 2, 3, 4);
+		add_neighbors(GUB, 5, 6, 8);
+		GUB.addEdge(7, 8);
+		GLB.addNode(2);
+		GLB.addNode(4);
+		GLB.addNode(7);
+		UndirectedGraphVar g = model.graphVar("G", GLB, GUB);
+		// posted alone, the propagator is not woken up again by nbNodes
+		new Constraint("connected", new PropConnected(g, model.intVar(0, 4))).post();
+		model.getSolver().propagate();
+		Assert.assertTrue(g.getMandatoryNodes().contains(0));
+		Assert.assertFalse(g.getPotentialNodes().contains(8));
+		Assert.assertEquals(g.getPotentialNodes().size(), 6);
+	}
+
+	private static UndirectedGraph chordedCycle(GraphModel model, int... nodes) {
+		UndirectedGraph lb = new UndirectedGraph(model, 7, SetType.BITSET, false);
+		for (int i : nodes) {
+			lb.addNode(i);
+		}
+		return lb;
+	}
+
+	private static UndirectedGraph chordedCycleUB(GraphModel model) {
+		UndirectedGraph ub = new UndirectedGraph(model, 7, SetType.BITSET, false);
+		for (int i = 0; i < 7; i++) {
+			ub.addNode(i);
+			ub.addEdge(i, (i + 1) % 7);
+		}
+		ub.addEdge(0, 3);
+		ub.addEdge(2, 5);
+		return ub;
+	}
 }
@@ -1,9 +1,18 @@
 package org.chocosolver.checked;
 
 import org.chocosolver.graphsolver.GraphModel;
+import org.chocosolver.graphsolver.cstrs.cost.IArcCost;
+import org.chocosolver.graphsolver.cstrs.cost.tsp.PropCircuitCostAssignment;
+import org.chocosolver.graphsolver.cstrs.cost.tsp.lagrangian.PropLagrOneArborescence;
+import org.chocosolver.graphsolver.variables.DirectedGraphVar;
 import org.chocosolver.graphsolver.variables.UndirectedGraphVar;
+import org.chocosolver.solver.Cause;
+import org.chocosolver.solver.Model;
+import org.chocosolver.solver.Solution;
 import org.chocosolver.solver.Solver;
+import org.chocosolver.solver.constraints.Constraint;
 import org.chocosolver.solver.exception.ContradictionException;
+import org.chocosolver.solver.variables.IntVar;
 import org.chocosolver.util.objects.graphs.UndirectedGraph;
 import org.chocosolver.util.objects.setDataStructures.SetType;
 import org.testng.Assert;
@@ -72,4 +81,171 @@ public class CycleTest {
 		s.printStatistics();
 		Assert.assertEquals(s.getSolutionCount(), 1);
 	}
+
+	@Test(groups = "1s")
+	public void testNoCircuitCounts() throws ContradictionException {
+		// numbers of labeled DAGs: 1 + 3 * 1 + 3 * 3 + 25 over 3 optional nodes, 543 over 4 nodes
+		GraphModel model = new GraphModel();
+		DirectedGraphVar g = model.digraphVar("g", 3);
+		model.noCircuit(g).post();
+		Assert.assertEquals(model.getSolver().findAllSolutions().size(), 38);
+		model = new GraphModel();
+		g = model.digraphVar("g", 4, true);
+		model.noCircuit(g).post();
+		Assert.assertEquals(model.getSolver().findAllSolutions().size(), 543);
+		// arcs closing a circuit are removed as soon as a path is enforced
+		model = new GraphModel();
+		g = model.digraphVar("g", 5, true);
+		model.noCircuit(g).post();
+		model.getSolver().propagate();
+		g.enforceArc(3, 4, Cause.Null);
+		g.enforceArc(0, 1, Cause.Null);
+		g.enforceArc(2, 3, Cause.Null);
+		g.enforceArc(1, 2, Cause.Null);
+		model.getSolver().propagate();
+		for (int i = 0; i < 5; i++) {
+			for (int j = 0; j <= i; j++) {
+				Assert.assertFalse(g.getPotSuccOf(i).contains(j));
+			}
+		}
+	}
+
+	@Test(groups = "1s")
+	public void testForestCounts() throws ContradictionException {
+		// numbers of labeled forests: 1 + 3 * 1 + 3 * 2 + 7 over 3 optional nodes, 291 over 5 nodes
+		GraphModel model = new GraphModel();
+		UndirectedGraphVar g = model.graphVar("g", 3);
+		model.forest(g).post();
+		Assert.assertEquals(model.getSolver().findAllSolutions().size(), 17);
+		model = new GraphModel();
+		g = model.graphVar("g", 5, true);
+		model.noCycle(g).post();
+		Assert.assertEquals(model.getSolver().findAllSolutions().size(), 291);
+		// Cayley's formula
+		model = new GraphModel();
+		g = model.graphVar("g", 5, true);
+		model.tree(g).post();
+		Assert.assertEquals(model.getSolver().findAllSolutions().size(), 125);
+		// edges inside a component are removed as soon as it is formed
+		model = new GraphModel();
+		g = model.graphVar("g", 5, true);
+		model.forest(g).post();
+		model.getSolver().propagate();
+		g.enforceArc(0, 1, Cause.Null);
+		g.enforceArc(3, 4, Cause.Null);
+		model.getSolver().propagate();
+		Assert.assertFalse(g.getPotNeighOf(0).contains(0));
+		Assert.assertTrue(g.getPotNeighOf(1).contains(4));
+		g.enforceArc(1, 3, Cause.Null);
+		model.getSolver().propagate();
+		Assert.assertEquals(g.getPotNeighOf(0).size(), 2);
+		Assert.assertEquals(g.getPotNeighOf(4).size(), 2);
+		Assert.assertTrue(g.getPotNeighOf(2).contains(4));
+	}
+
+	@Test(groups = "1s")
+	public void testCircuitCounts() throws ContradictionException {
+		// 6 + 4 * 2 + 6 circuits over 2, 3 and 4 optional nodes
+		GraphModel model = new GraphModel();
+		DirectedGraphVar g = model.digraphVar("g", 4);
+		model.circuit(g).post();
+		model.nbNodes(g, model.intVar(1, 4)).post();
+		Assert.assertEquals(model.getSolver().findAllSolutions().size(), 20);
+		model = new GraphModel();
+		g = model.digraphVar("g", 6);
+		model.hamiltonianCircuit(g).post();
+		Assert.assertEquals(model.getSolver().findAllSolutions().size(), 120);
+		// subtours are forbidden as soon as a node outside the path is mandatory
+		model = new GraphModel();
+		g = model.digraphVar("g", 5);
+		model.circuit(g).post();
+		model.getSolver().propagate();
+		g.enforceArc(0, 1, Cause.Null);
+		g.enforceArc(1, 2, Cause.Null);
+		model.getSolver().propagate();
+		Assert.assertTrue(g.getPotSuccOf(2).contains(0));
+		g.enforceNode(3, Cause.Null);
+		model.getSolver().propagate();
+		Assert.assertFalse(g.getPotSuccOf(2).contains(0));
+		Assert.assertFalse(g.getPotSuccOf(0).contains(2));
+		// closing the circuit removes other nodes
+		g.enforceArc(2, 3, Cause.Null);
+		g.enforceArc(3, 0, Cause.Null);
+		model.getSolver().propagate();
+		Assert.assertFalse(g.getPotentialNodes().contains(4));
+		Assert.assertTrue(g.isInstantiated());
+	}
+
+	@Test(groups = "1s")
+	public void testATSPAssignmentBound() throws ContradictionException {
+		int[][] costs = new int[][]{
+				{0, 11, 5, 13, 21, 2},
+				{3, 0, 27, 18, 4, 12},
+				{19, 2, 0, 30, 17, 7},
+				{2, 3, 14, 0, 14, 3},
+				{8, 3, 18, 14, 0, 2},
+				{27, 19, 4, 8, 21, 0}
+		};
+		// counts of circuits with a cost lower than or equal to 50, obtained by enumeration
+		GraphModel model = new GraphModel();
+		DirectedGraphVar g = model.digraphVar("g", 6);
+		IntVar cost = model.intVar("cost", 0, 50);
+		model.tsp(g, cost, IArcCost.of(costs)).post();
+		Assert.assertEquals(model.getSolver().findAllSolutions().size(), 21);
+		model = new GraphModel();
+		g = model.digraphVar("g", 6);
+		cost = model.intVar("cost", 0, 1000);
+		model.tsp(g, cost, IArcCost.of(costs)).post();
+		model.getSolver().propagate();
+		// the optimal assignment is a circuit
+		Assert.assertEquals(cost.getLB(), 23);
+		Solution best = model.getSolver().findOptimalSolution(cost, Model.MINIMIZE);
+		Assert.assertEquals(best.getIntVal(cost), 23);
+		// subcircuits
+		model = new GraphModel();
+		g = model.digraphVar("g", 6);
+		cost = model.intVar("cost", 0, 30);
+		model.circuit(g).post();
+		model.nbNodes(g, model.intVar(2, 6)).post();
+		new Constraint("cost", new PropCircuitCostAssignment(g, cost, IArcCost.of(costs))).post();
+		Assert.assertEquals(model.getSolver().findAllSolutions().size(), 54);
+	}
+
+	@Test(groups = "1s")
+	public void testATSPLagrangianRelaxation() throws ContradictionException {
+		int[][] costs = new int[][]{
+				{0, 11, 5, 13, 21, 2},
+				{3, 0, 27, 18, 4, 12},
+				{19, 2, 0, 30, 17, 7},
+				{2, 3, 14, 0, 14, 3},
+				{8, 3, 18, 14, 0, 2},
+				{27, 19, 4, 8, 21, 0}
+		};
+		GraphModel model = new GraphModel();
+		DirectedGraphVar g = model.digraphVar("g", 6);
+		IntVar cost = model.intVar("cost", 0, 50);
+		model.tsp(g, cost, IArcCost.of(costs), 1).post();
+		Assert.assertEquals(model.getSolver().findAllSolutions().size(), 21);
+		// the 1-arborescence bound reaches the optimum (23, by brute force) at the root node
+		model = new GraphModel();
+		g = model.digraphVar("g", 6);
+		cost = model.intVar("cost", 0, 1000);
+		model.hamiltonianCircuit(g).post();
+		new Constraint("HK", new PropLagrOneArborescence(g, cost, IArcCost.of(costs))).post();
+		model.getSolver().propagate();
+		Assert.assertEquals(cost.getLB(), 23);
+		// cost is tied to the circuit by the assignment relaxation, and the optimal circuit is checked against the matrix
+		new Constraint("AP", new PropCircuitCostAssignment(g, cost, IArcCost.of(costs))).post();
+		model.setObjective(Model.MINIMIZE, cost);
+		int best = -1;
+		while (model.getSolver().solve()) {
+			int circuit = 0;
+			for (int i = 0; i < 6; i++) {
+				circuit += costs[i][g.getMandSuccOf(i).iterator().next()];
+			}
+			Assert.assertEquals(cost.getValue(), circuit);
+			best = circuit;
+		}
+		Assert.assertEquals(best, 23);
+	}
 }
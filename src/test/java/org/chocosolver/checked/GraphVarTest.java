@@ -0,0 +1,365 @@
+package org.chocosolver.checked;
+
+import org.chocosolver.graphsolver.GraphModel;
+import org.chocosolver.graphsolver.GraphSolution;
+import org.chocosolver.graphsolver.util.GraphBuilder;
+import org.chocosolver.graphsolver.cstrs.degree.PropNodeDegreeAtMostIncr;
+import org.chocosolver.graphsolver.variables.DirectedGraphVar;
+import org.chocosolver.graphsolver.variables.GraphEventType;
+import org.chocosolver.graphsolver.variables.GraphEvtScheduler;
+import org.chocosolver.graphsolver.variables.GraphRepresentationPolicy;
+import org.chocosolver.graphsolver.variables.GraphSnapshot;
+import org.chocosolver.graphsolver.variables.UndirectedGraphVar;
+import org.chocosolver.graphsolver.variables.delta.GraphDeltaMonitor;
+import org.chocosolver.solver.Cause;
+import org.chocosolver.solver.ICause;
+import org.chocosolver.solver.constraints.Constraint;
+import org.chocosolver.solver.exception.ContradictionException;
+import org.chocosolver.solver.variables.SetVar;
+import org.chocosolver.util.objects.graphs.Orientation;
+import org.chocosolver.util.objects.graphs.UndirectedGraph;
+import org.chocosolver.util.objects.setDataStructures.SetType;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Tests of the domain operations of graph variables
+ */
+public class GraphVarTest {
+
+	@Test(groups = "1s")
+	public void testArcCounters() throws ContradictionException {
+		GraphModel m = new GraphModel();
+		UndirectedGraph LB = new UndirectedGraph(m, 4, SetType.BITSET, false);
+		UndirectedGraph UB = new UndirectedGraph(m, 4, SetType.BITSET, false);
+		for (int i = 0; i < 4; i++) {
+			UB.addNode(i);
+		}
+		UB.addEdge(0, 1);
+		UB.addEdge(1, 2);
+		UB.addEdge(2, 3);
+		UB.addEdge(3, 3);
+		UndirectedGraphVar g = m.graphVar("g", LB, UB);
+		Assert.assertEquals(g.getNbPotentialArcs(), 4);
+		Assert.assertEquals(g.getNbMandatoryArcs(), 0);
+
+		m.getEnvironment().worldPush();
+		g.enforceArc(0, 1, Cause.Null);
+		g.removeNode(3, Cause.Null);
+		Assert.assertEquals(g.getNbPotentialArcs(), 2);
+		Assert.assertEquals(g.getNbMandatoryArcs(), 1);
+		Assert.assertFalse(g.isInstantiated());
+		g.enforceArc(1, 2, Cause.Null);
+		Assert.assertTrue(g.isInstantiated());
+		m.getEnvironment().worldPop();
+
+		Assert.assertEquals(g.getNbPotentialArcs(), 4);
+		Assert.assertEquals(g.getNbMandatoryArcs(), 0);
+		Assert.assertFalse(g.isInstantiated());
+	}
+
+	@Test(groups = "1s")
+	public void testArcCountersDirected() throws ContradictionException {
+		GraphModel m = new GraphModel();
+		DirectedGraphVar g = m.digraphVar("g", 3, true);
+		Assert.assertEquals(g.getNbPotentialArcs(), 9);
+		g.removeArc(0, 1, Cause.Null);
+		g.enforceArc(1, 0, Cause.Null);
+		Assert.assertEquals(g.getNbPotentialArcs(), 8);
+		Assert.assertEquals(g.getNbMandatoryArcs(), 1);
+	}
+
+	@Test(groups = "1s")
+	public void testRemoveHubNode() throws ContradictionException {
+		GraphModel m = new GraphModel();
+		int n = 6;
+		UndirectedGraphVar g = m.graphVar("g", n);
+		SetVar[] neighbors = m.neighSets(g);
+		m.getSolver().propagate();
+		m.getEnvironment().worldPush();
+		g.removeNode(0, Cause.Null);
+		Assert.assertEquals(g.getNbPotentialArcs(), (n - 1) * n / 2);
+		m.getSolver().propagate();
+		for (int i = 1; i < n; i++) {
+			Assert.assertFalse(neighbors[i].getUB().contains(0));
+			Assert.assertEquals(neighbors[i].getUB().size(), n - 1);
+		}
+		m.getEnvironment().worldPop();
+		Assert.assertEquals(g.getNbPotentialArcs(), (n + 1) * n / 2);
+	}
+
+	@Test(groups = "1s")
+	public void testSetAtATimeOperations() throws ContradictionException {
+		GraphModel m = new GraphModel();
+		DirectedGraphVar g = m.digraphVar("g", 5);
+		BitSet set = new BitSet(5);
+		set.set(1, 4);
+		Assert.assertTrue(g.enforceArcs(0, set, Cause.Null));
+		Assert.assertFalse(g.enforceArcs(0, set, Cause.Null));
+		Assert.assertEquals(g.getNbMandatoryArcs(), 3);
+		Assert.assertEquals(g.getMandatoryNodes().size(), 4);
+
+		Assert.assertTrue(g.removeArcs(4, g.getPotSuccOf(4), Cause.Null));
+		Assert.assertEquals(g.getPotSuccOf(4).size(), 0);
+		Assert.assertEquals(g.getNbPotentialArcs(), 20);
+
+		set.clear();
+		set.set(4);
+		Assert.assertTrue(g.removeNodes(set, Cause.Null));
+		Assert.assertEquals(g.getNbPotentialArcs(), 16);
+		Assert.assertFalse(g.isInstantiated());
+	}
+
+	@Test(groups = "1s", expectedExceptions = ContradictionException.class)
+	public void testRemoveArcsFail() throws ContradictionException {
+		GraphModel m = new GraphModel();
+		UndirectedGraphVar g = m.graphVar("g", 4);
+		g.enforceArc(0, 2, Cause.Null);
+		BitSet set = new BitSet(4);
+		set.set(0, 4);
+		g.removeArcs(0, set, Cause.Null);
+	}
+
+	@Test(groups = "1s")
+	public void testEvtScheduler() {
+		GraphEvtScheduler sched = new GraphEvtScheduler();
+		int addArc = sched.select(GraphEventType.ADD_ARC.getMask());
+		int arcs = sched.select(GraphEventType.ADD_ARC.getMask() | GraphEventType.REMOVE_ARC.getMask());
+		int all = sched.select(GraphEventType.ALL_EVENTS);
+		Assert.assertFalse(visits(sched, GraphEventType.REMOVE_ARC, addArc));
+		Assert.assertFalse(visits(sched, GraphEventType.REMOVE_NODE, arcs));
+		Assert.assertTrue(visits(sched, GraphEventType.REMOVE_ARC, arcs));
+		Assert.assertTrue(visits(sched, GraphEventType.REMOVE_NODE_AND_ARCS, arcs));
+		for (GraphEventType e : GraphEventType.values()) {
+			Assert.assertEquals(visits(sched, e, all), e != GraphEventType.VOID);
+		}
+	}
+
+	@Test(groups = "1s")
+	public void testWatchedNodeMonitors() {
+		GraphModel m = new GraphModel();
+		DirectedGraphVar g = m.digraphVar("g", 3, true);
+		SetVar succ0 = m.setVar("succ0", new int[0], new int[]{0, 1, 2});
+		SetVar pred1 = m.setVar("pred1", new int[0], new int[]{0, 1, 2});
+		new Constraint("maxOutDegrees", new PropNodeDegreeAtMostIncr(g, Orientation.SUCCESSORS, new int[]{1, 3, 3})).post();
+		m.successorsChanneling(g, succ0, 0).post();
+		m.predecessorsChanneling(g, pred1, 1).post();
+		int nb = 0;
+		while (m.getSolver().solve()) {
+			nb++;
+			Assert.assertTrue(g.getMandSuccOf(0).size() <= 1);
+			Assert.assertEquals(succ0.getValue().size(), g.getMandSuccOf(0).size());
+			for (int i : succ0.getValue()) {
+				Assert.assertTrue(g.getMandSuccOf(0).contains(i));
+			}
+			Assert.assertEquals(pred1.getValue().size(), g.getMandPredOf(1).size());
+			for (int i : pred1.getValue()) {
+				Assert.assertTrue(g.getMandPredOf(1).contains(i));
+			}
+		}
+		Assert.assertEquals(nb, 4 * 64);
+	}
+
+	@Test(groups = "1s")
+	public void testWatchedMonitorOrder() throws ContradictionException {
+		GraphModel m = new GraphModel();
+		DirectedGraphVar g = m.digraphVar("g", 5, true);
+		ICause self = new ICause() {
+		};
+		ICause other = new ICause() {
+		};
+		BitSet watched = new BitSet();
+		watched.set(0);
+		watched.set(2);
+		GraphDeltaMonitor all = g.monitorDelta(self);
+		GraphDeltaMonitor some = g.monitorDelta(self, watched);
+		all.unfreeze();
+		some.unfreeze();
+		g.removeArc(3, 2, other);
+		g.removeArc(0, 2, other);
+		g.removeArc(4, 1, other);
+		g.removeArc(2, 4, self);
+		g.removeArc(1, 0, other);
+		g.removeArc(2, 0, other);
+		List<String> expected = new ArrayList<>();
+		List<String> actual = new ArrayList<>();
+		all.freeze();
+		all.forEachArc((x, y) -> {
+			if (watched.get(x) || watched.get(y)) {
+				expected.add(x + "," + y);
+			}
+		}, GraphEventType.REMOVE_ARC);
+		some.freeze();
+		some.forEachArc((x, y) -> actual.add(x + "," + y), GraphEventType.REMOVE_ARC);
+		Assert.assertEquals(expected, Arrays.asList("3,2", "0,2", "1,0", "2,0"));
+		Assert.assertEquals(actual, expected);
+		// fewer events than watched nodes: events are scanned directly
+		all.unfreeze();
+		some.unfreeze();
+		g.removeArc(4, 3, other);
+		g.removeArc(3, 0, other);
+		actual.clear();
+		some.freeze();
+		some.forEachArc((x, y) -> actual.add(x + "," + y), GraphEventType.REMOVE_ARC);
+		Assert.assertEquals(actual, Arrays.asList("3,0"));
+	}
+
+	@Test(groups = "1s")
+	public void testGraphSolution() throws ContradictionException {
+		GraphModel m = new GraphModel();
+		// variables are resolved upon the first recording
+		GraphSolution early = new GraphSolution(m);
+		DirectedGraphVar g = m.digraphVar("g", 5);
+		m.stronglyConnected(g).post();
+		m.nbArcs(g, m.intVar(7)).post();
+		GraphSolution sol = new GraphSolution(m);
+		Assert.assertTrue(m.getSolver().solve());
+		sol.record();
+		GraphSnapshot val = sol.getGraphVal(g);
+		Assert.assertEquals(early.record().getGraphVal(g).toString(), val.toString());
+		Assert.assertEquals(val.getNodes().cardinality(), g.getMandatoryNodes().size());
+		for (int i : g.getMandatoryNodes()) {
+			Assert.assertEquals(val.getNbSuccOrNeighOf(i), g.getMandSuccOf(i).size());
+			for (int j : g.getMandSuccOf(i)) {
+				Assert.assertTrue(val.arcExists(i, j));
+			}
+		}
+		m.getSolver().reset();
+		m.getEnvironment().worldPush();
+		sol.restore();
+		Assert.assertTrue(g.isInstantiated());
+		Assert.assertEquals(g.getNbMandatoryArcs(), 7);
+		for (int i = 0; i < 5; i++) {
+			for (int j = 0; j < 5; j++) {
+				Assert.assertEquals(g.getMandSuccOf(i).contains(j), val.arcExists(i, j));
+			}
+		}
+		m.getEnvironment().worldPop();
+	}
+
+	@Test(groups = "1s")
+	public void testRepresentationPolicies() {
+		int[] counts = new int[GraphRepresentationPolicy.values().length];
+		for (GraphRepresentationPolicy policy : GraphRepresentationPolicy.values()) {
+			GraphModel m = new GraphModel();
+			UndirectedGraphVar g = m.graphVar("g", 5, false, policy);
+			m.maxDegrees(g, 2).post();
+			m.nbEdges(g, m.intVar(4)).post();
+			while (m.getSolver().solve()) {
+				counts[policy.ordinal()]++;
+			}
+		}
+		for (int c : counts) {
+			Assert.assertEquals(c, counts[0]);
+		}
+		Assert.assertTrue(counts[0] > 0);
+		Assert.assertEquals(GraphRepresentationPolicy.ADAPTIVE.getUBSetType(1000, 10), SetType.BIPARTITESET);
+		Assert.assertEquals(GraphRepresentationPolicy.ADAPTIVE.getUBSetType(1000, 999), SetType.BITSET);
+	}
+
+	@Test(groups = "1s")
+	public void testBulkConstruction() {
+		GraphModel m = new GraphModel();
+		// path 0-1-2-3 plus loop on 3, given in CSR form (some edges in both directions)
+		int[] offsets = {0, 1, 3, 4, 6};
+		int[] targets = {1, 0, 2, 3, 2, 3};
+		UndirectedGraphVar g = m.graphVar("g", 4, false, offsets, targets, GraphRepresentationPolicy.SPARSE);
+		long[] edges = {GraphBuilder.pack(0, 1), GraphBuilder.pack(2, 1), GraphBuilder.pack(2, 3), GraphBuilder.pack(3, 3)};
+		UndirectedGraphVar h = m.graphVar("h", 4, false, edges, GraphRepresentationPolicy.ADAPTIVE);
+		for (UndirectedGraphVar v : new UndirectedGraphVar[]{g, h}) {
+			Assert.assertEquals(v.getPotentialNodes().size(), 4);
+			Assert.assertEquals(v.getNbPotentialArcs(), 4);
+			Assert.assertTrue(v.getPotNeighOf(1).contains(0));
+			Assert.assertTrue(v.getPotNeighOf(1).contains(2));
+			Assert.assertTrue(v.getPotNeighOf(3).contains(3));
+			Assert.assertFalse(v.getPotNeighOf(0).contains(3));
+		}
+		DirectedGraphVar d = m.digraphVar("d", 4, true, offsets, targets, GraphRepresentationPolicy.DENSE);
+		Assert.assertEquals(d.getNbPotentialArcs(), 6);
+		Assert.assertTrue(d.getPotPredOf(0).contains(1));
+		Assert.assertFalse(d.getPotSuccOf(0).contains(2));
+		DirectedGraphVar c = m.digraphVar("c", 5);
+		Assert.assertEquals(c.getNbPotentialArcs(), 25);
+		Assert.assertEquals(c.getPotPredOf(3).size(), 5);
+	}
+
+	@Test(groups = "1s")
+	public void testGraphViews() throws ContradictionException {
+		// complement of a graph is connected: as many solutions as connected graphs over 4 labelled nodes
+		GraphModel m = new GraphModel();
+		UndirectedGraphVar g = m.graphVar("g", 4, true);
+		m.nbLoops(g).eq(0).post();
+		UndirectedGraphVar c = m.complementView(g);
+		m.connected(c).post();
+		Assert.assertEquals(m.getSolver().findAllSolutions().size(), 38);
+
+		// node 0 is isolated in g iff it is adjacent to every other node in the complement
+		m = new GraphModel();
+		g = m.graphVar("g", 4, true);
+		m.nbLoops(g).eq(0).post();
+		SetVar[] neigh = m.neighSets(m.complementView(g));
+		m.member(3, neigh[0]).post();
+		m.member(2, neigh[0]).post();
+		m.member(1, neigh[0]).post();
+		Assert.assertEquals(m.getSolver().findAllSolutions().size(), 8);
+
+		// triangle over {0,1,2}, enforced through the induced subgraph
+		m = new GraphModel();
+		g = m.graphVar("g", 5, false);
+		BitSet s = new BitSet();
+		s.set(0, 3);
+		UndirectedGraphVar v = m.inducedSubgraphView(g, s);
+		Assert.assertEquals(v.getNbPotentialArcs(), 6);
+		Assert.assertFalse(v.getPotentialNodes().contains(3));
+		v.enforceArc(0, 1, Cause.Null);
+		v.enforceArc(1, 2, Cause.Null);
+		v.removeArc(0, 0, Cause.Null);
+		Assert.assertTrue(g.getMandatoryNodes().contains(2));
+		Assert.assertTrue(g.getMandNeighOf(1).contains(0));
+		Assert.assertFalse(g.getPotNeighOf(0).contains(0));
+		Assert.assertEquals(v.getNbMandatoryArcs(), 2);
+		Assert.assertFalse(v.removeArc(0, 3, Cause.Null));
+		Assert.assertTrue(g.getPotNeighOf(0).contains(3));
+		m.nbEdges(v).eq(3).post();
+		m.nbNodes(g).eq(3).post();
+		m.nbLoops(g).eq(0).post();
+		Assert.assertEquals(m.getSolver().findAllSolutions().size(), 1);
+		Assert.assertTrue(g.getMandNeighOf(2).contains(0));
+	}
+
+	@Test(groups = "1s")
+	public void testViewNotifications() throws ContradictionException {
+		GraphModel m = new GraphModel();
+		UndirectedGraphVar g = m.graphVar("g", 5, false);
+		BitSet s = new BitSet();
+		s.set(0, 3);
+		UndirectedGraphVar v = m.inducedSubgraphView(g, s);
+		List<GraphEventType> events = new ArrayList<>();
+		v.addMonitor((var, evt) -> events.add((GraphEventType) evt));
+		g.removeArc(0, 3, Cause.Null);
+		g.enforceNode(4, Cause.Null);
+		g.removeArcs(3, s, Cause.Null);
+		Assert.assertTrue(events.isEmpty());
+		g.removeArc(0, 1, Cause.Null);
+		g.enforceNode(2, Cause.Null);
+		Assert.assertEquals(events, Arrays.asList(GraphEventType.REMOVE_ARC, GraphEventType.ADD_NODE));
+		Assert.assertEquals(v.getNbPotentialArcs(), 5);
+		Assert.assertFalse(v.isInstantiated());
+	}
+
+	private static boolean visits(GraphEvtScheduler sched, GraphEventType e, int bucket) {
+		sched.init(e);
+		boolean found = false;
+		while (sched.hasNext()) {
+			int from = sched.next();
+			int to = sched.next();
+			found |= from <= bucket && bucket < to;
+		}
+		return found;
+	}
+}
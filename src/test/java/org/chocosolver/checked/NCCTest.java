@@ -1,12 +1,15 @@
 package org.chocosolver.checked;
 
 import org.chocosolver.graphsolver.GraphModel;
+import org.chocosolver.graphsolver.variables.DirectedGraphVar;
 import org.chocosolver.graphsolver.variables.UndirectedGraphVar;
+import org.chocosolver.solver.Cause;
 import org.chocosolver.solver.Solver;
 import org.chocosolver.solver.exception.ContradictionException;
 import org.chocosolver.solver.variables.BoolVar;
 import org.chocosolver.solver.variables.IntVar;
 import org.chocosolver.util.ESat;
+import org.chocosolver.util.objects.graphs.DirectedGraph;
 import org.chocosolver.util.objects.graphs.UndirectedGraph;
 import org.chocosolver.util.objects.setDataStructures.SetType;
 import org.testng.Assert;
@@ -519,4 +522,133 @@ public class NCCTest {
         for (int y : list)
             g.addEdge(x, y);
     }
+
+	@Test(groups = "1s")
+	public void testNbCCCounts() {
+		// brute-force number of graphs (loops included) over 4 optional nodes having k CC
+		int[] expected = {1, 768, 424, 128, 16};
+		for (int k = 0; k < expected.length; k++) {
+			GraphModel m = new GraphModel();
+			UndirectedGraphVar g = m.graphVar("g", 4);
+			m.nbConnectedComponents(g, m.intVar(k)).post();
+			Assert.assertEquals(m.getSolver().findAllSolutions().size(), expected[k]);
+		}
+		GraphModel m = new GraphModel();
+		UndirectedGraphVar g = m.graphVar("g", 4);
+		m.nbConnectedComponents(g, m.intVar(0, 4)).post();
+		Assert.assertEquals(m.getSolver().findAllSolutions().size(), 1337);
+	}
+
+	@Test(groups = "1s")
+	public void testNbSCCCounts() {
+		// brute-force number of digraphs (loops included) over 3 optional nodes having k SCC
+		int[] expected = {1, 162, 204, 200};
+		for (int k = 0; k < expected.length; k++) {
+			GraphModel m = new GraphModel();
+			DirectedGraphVar g = m.digraphVar("g", 3);
+			m.nbStronglyConnectedComponents(g, m.intVar(k)).post();
+			Assert.assertEquals(m.getSolver().findAllSolutions().size(), expected[k]);
+		}
+	}
+
+	@Test(groups = "1s")
+	public void testNbSCCCountsMandatoryNodes() {
+		// brute-force number of loop-free digraphs over 4 mandatory nodes having k SCC
+		int[] expected = {0, 1606, 1173, 774, 543};
+		for (int k = 0; k < expected.length; k++) {
+			GraphModel m = new GraphModel();
+			int n = 4;
+			DirectedGraph LB = new DirectedGraph(m, n, SetType.BITSET, true);
+			DirectedGraph UB = new DirectedGraph(m, n, SetType.BITSET, true);
+			for (int i = 0; i < n; i++) {
+				for (int j = 0; j < n; j++) {
+					if (i != j) {
+						UB.addArc(i, j);
+					}
+				}
+			}
+			DirectedGraphVar g = m.digraphVar("g", LB, UB);
+			m.nbStronglyConnectedComponents(g, m.intVar(k)).post();
+			Assert.assertEquals(m.getSolver().findAllSolutions().size(), expected[k]);
+		}
+	}
+
+	@Test(groups = "1s")
+	public void testNbSCCEnforcementWave() throws ContradictionException {
+		// a path enforced at once exceeds the budget of incremental searches
+		GraphModel m = new GraphModel();
+		int n = 60;
+		DirectedGraph LB = new DirectedGraph(m, n, SetType.BITSET, true);
+		DirectedGraph UB = new DirectedGraph(m, n, SetType.BITSET, true);
+		for (int i = 0; i < n; i++) {
+			UB.addArc(i, (i + 1) % n);
+		}
+		UB.addArc(30, 10);
+		DirectedGraphVar g = m.digraphVar("g", LB, UB);
+		IntVar k = m.intVar(0, n);
+		m.nbStronglyConnectedComponents(g, k).post();
+		m.getSolver().propagate();
+		for (int i = 0; i < n - 1; i++) {
+			g.enforceArc(i, i + 1, Cause.Null);
+		}
+		g.enforceArc(30, 10, Cause.Null);
+		m.getSolver().propagate();
+		// nodes 10 to 30 form a single SCC
+		Assert.assertEquals(k.getUB(), n - 20);
+		g.enforceArc(n - 1, 0, Cause.Null);
+		m.getSolver().propagate();
+		Assert.assertTrue(k.isInstantiatedTo(1));
+	}
+
+	@Test(groups = "1s")
+	public void testStronglyConnectedDominators() throws ContradictionException {
+		GraphModel m = new GraphModel();
+		int n = 5;
+		DirectedGraph LB = new DirectedGraph(m, n, SetType.BITSET, false);
+		DirectedGraph UB = new DirectedGraph(m, n, SetType.BITSET, false);
+		for (int i = 0; i < n; i++) {
+			UB.addNode(i);
+		}
+		LB.addNode(0);
+		LB.addNode(3);
+		UB.addArc(0, 1);
+		UB.addArc(0, 2);
+		UB.addArc(1, 3);
+		UB.addArc(3, 2);
+		UB.addArc(2, 0);
+		UB.addArc(4, 0);
+		DirectedGraphVar g = m.digraphVar("g", LB, UB);
+		m.stronglyConnected(g).post();
+		m.getSolver().propagate();
+		// 4 cannot be reached from 0
+		Assert.assertFalse(g.getPotentialNodes().contains(4));
+		// every path from 0 to 3 uses (0,1) and (1,3), every path from 3 to 0 uses (3,2) and (2,0)
+		Assert.assertTrue(g.getMandatoryNodes().contains(1));
+		Assert.assertTrue(g.getMandatoryNodes().contains(2));
+		Assert.assertTrue(g.getMandSuccOf(0).contains(1));
+		Assert.assertTrue(g.getMandSuccOf(1).contains(3));
+		Assert.assertTrue(g.getMandSuccOf(3).contains(2));
+		Assert.assertTrue(g.getMandSuccOf(2).contains(0));
+		Assert.assertFalse(g.getMandSuccOf(0).contains(2));
+		Assert.assertEquals(m.getSolver().findAllSolutions().size(), 2);
+		// brute-force number of strongly connected digraphs (loops included) over 3 optional nodes
+		m = new GraphModel();
+		g = m.digraphVar("g", 3);
+		m.stronglyConnected(g).post();
+		Assert.assertEquals(m.getSolver().findAllSolutions().size(), 162);
+		// brute-force number of loop-free strongly connected digraphs over 4 mandatory nodes
+		m = new GraphModel();
+		LB = new DirectedGraph(m, 4, SetType.BITSET, true);
+		UB = new DirectedGraph(m, 4, SetType.BITSET, true);
+		for (int i = 0; i < 4; i++) {
+			for (int j = 0; j < 4; j++) {
+				if (i != j) {
+					UB.addArc(i, j);
+				}
+			}
+		}
+		g = m.digraphVar("g", LB, UB);
+		m.stronglyConnected(g).post();
+		Assert.assertEquals(m.getSolver().findAllSolutions().size(), 1606);
+	}
 }
@@ -261,4 +261,16 @@ public class SizeMaxCCTest {
 			}
 		}
 	}
+
+	@Test
+	public void testBruteForceCounts() {
+		// brute-force number of graphs (loops included) over 4 optional nodes, by size of their largest CC
+		int[] expected = {1, 80, 264, 384, 608};
+		for (int size = 0; size < expected.length; size++) {
+			GraphModel m = new GraphModel();
+			UndirectedGraphVar g = m.graphVar("g", 4);
+			m.sizeMaxConnectedComponents(g, m.intVar(size)).post();
+			Assert.assertEquals(m.getSolver().findAllSolutions().size(), expected[size]);
+		}
+	}
 }
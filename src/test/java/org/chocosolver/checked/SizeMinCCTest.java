@@ -325,4 +325,16 @@ public class SizeMinCCTest {
 			}
 		}
 	}
+
+	@Test
+	public void testBruteForceCounts() {
+		// brute-force number of graphs (loops included) over 4 optional nodes, by size of their smallest CC
+		int[] expected = {1, 528, 72, 128, 608};
+		for (int size = 0; size < expected.length; size++) {
+			GraphModel m = new GraphModel();
+			UndirectedGraphVar g = m.graphVar("g", 4);
+			m.sizeMinConnectedComponents(g, m.intVar(size)).post();
+			Assert.assertEquals(m.getSolver().findAllSolutions().size(), expected[size]);
+		}
+	}
 }
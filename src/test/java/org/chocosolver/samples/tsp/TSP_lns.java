@@ -30,6 +30,8 @@ package org.chocosolver.samples.tsp;
 import gnu.trove.list.array.TIntArrayList;
 import org.chocosolver.graphsolver.GraphModel;
 import org.chocosolver.graphsolver.search.strategy.GraphSearch;
+import org.chocosolver.graphsolver.util.GraphBuilder;
+import org.chocosolver.graphsolver.variables.GraphSnapshot;
 import org.chocosolver.graphsolver.variables.UndirectedGraphVar;
 import org.chocosolver.solver.Model;
 import org.chocosolver.solver.Solution;
@@ -41,10 +43,8 @@ import org.chocosolver.solver.search.strategy.decision.Decision;
 import org.chocosolver.solver.search.strategy.decision.DecisionPath;
 import org.chocosolver.solver.variables.IntVar;
 import org.chocosolver.util.objects.graphs.UndirectedGraph;
-import org.chocosolver.util.objects.setDataStructures.ISet;
 import org.chocosolver.util.objects.setDataStructures.SetType;
 
-import java.util.Iterator;
 import java.util.Random;
 
 /**
@@ -90,13 +90,8 @@ public class TSP_lns {
 		IntVar totalCost = model.intVar("obj", 0, 99999999, true);
 		// creates a graph containing n nodes
 		UndirectedGraph GLB = new UndirectedGraph(model, n, SetType.LINKED_LIST, true);
-		UndirectedGraph GUB = new UndirectedGraph(model, n, SetType.BIPARTITESET, true);
-		// adds potential edges
-		for (int i = 0; i < n; i++) {
-			for (int j = i + 1; j < n; j++) {
-				GUB.addEdge(i, j);
-			}
-		}
+		// potential edges: complete graph (without loops)
+		UndirectedGraph GUB = GraphBuilder.makeCompleteUndirectedGraph(model, n, SetType.BIPARTITESET, true, false);
 		UndirectedGraphVar graph = model.graphVar("G", GLB, GUB);
 
 		// constraints (TSP basic model + lagrangian relaxation)
@@ -153,7 +148,7 @@ public class TSP_lns {
 
 		Random rd = new Random(0);
 		int n, nbRL;
-		UndirectedGraph solution;
+		GraphSnapshot solution;
 		int nbFreeEdges = 15;
 		LNSDecision metaDec = new LNSDecision();
 		UndirectedGraphVar graph;
@@ -161,7 +156,7 @@ public class TSP_lns {
 		protected SubpathLNS(UndirectedGraphVar graph) {
 			this.graph = graph;
 			this.n = graph.getNbMaxNodes();
-			this.solution = new UndirectedGraph(n,SetType.LINKED_LIST,true);
+			this.solution = new GraphSnapshot(n);
 		}
 
 		@Override
@@ -169,14 +164,8 @@ public class TSP_lns {
 
 		@Override
 		public void recordSolution() {
-			// stores a solution in a graph object
-			for(int i=0;i<n;i++)solution.getNeighOf(i).clear();
-			for(int i=0;i<n;i++){
-				ISet nei = graph.getMandNeighOf(i);
-				for(int j:nei){
-					solution.addEdge(i,j);
-				}
-			}
+			// stores a solution in a compact graph object
+			solution.record(graph);
 		}
 
 		@Override
@@ -184,20 +173,12 @@ public class TSP_lns {
 			metaDec.free();
 			// relaxes a sub-path (a set of consecutive edges in a solution)
 			int i1 = rd.nextInt(n);
-			ISet nei = solution.getNeighOf(i1);
-			Iterator<Integer> iter = nei.iterator();
-			int i2 = iter.next();
-			if(rd.nextBoolean()){
-				i2 = iter.next();
-			}
+			int i2 = solution.getSuccOrNeighOf(i1, rd.nextBoolean() ? 1 : 0);
 			for(int k=0;k<n-nbFreeEdges;k++){
 				metaDec.add(i1,i2);
-				int i3 = -1;
-				for(int z : solution.getNeighOf(i2)) {
-					if (z != i1) {
-						i3 = z;
-						break;
-					}
+				int i3 = solution.getSuccOrNeighOf(i2, 0);
+				if (i3 == i1) {
+					i3 = solution.getSuccOrNeighOf(i2, 1);
 				}
 				assert i3>=0;
 				i1 = i2;